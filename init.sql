@@ -15,6 +15,18 @@ CREATE TABLE IF NOT EXISTS tests (
     deleted BOOLEAN DEFAULT false
 );
 
+CREATE INDEX IF NOT EXISTS idx_tests_title_id ON tests (title, id) WHERE deleted = false;
+CREATE INDEX IF NOT EXISTS idx_tests_topic_title_id ON tests (topic, title, id) WHERE deleted = false;
+CREATE INDEX IF NOT EXISTS idx_tests_topic_id ON tests (topic, id) WHERE deleted = false;
+
+-- Single row bumped in every transaction that changes a test; the catalog ETag of all nodes is built from it
+CREATE TABLE IF NOT EXISTS test_catalog (
+    id INTEGER PRIMARY KEY CHECK (id = 1),
+    version BIGINT NOT NULL DEFAULT 0
+);
+
+INSERT INTO test_catalog (id, version) VALUES (1, 0) ON CONFLICT (id) DO NOTHING;
+
 CREATE TABLE IF NOT EXISTS questions (
     id uuid PRIMARY KEY,
     question_number INTEGER,
@@ -39,10 +51,18 @@ CREATE TABLE IF NOT EXISTS results (
     test_id uuid REFERENCES tests(id) NOT NULL,
     test_title text ,
     score INTEGER,
+    total_questions INTEGER,
     date TIMESTAMP,
     version INTEGER DEFAULT 0
 );
 
+-- Question count of the test when the result was saved; older rows get the current count of their test
+ALTER TABLE results ADD COLUMN IF NOT EXISTS total_questions INTEGER;
+UPDATE results r SET total_questions = (SELECT COUNT(*) FROM questions q WHERE q.test_id = r.test_id)
+WHERE r.total_questions IS NULL;
+
+CREATE INDEX IF NOT EXISTS idx_results_user_date_id ON results (user_id, date DESC, id DESC);
+
 CREATE TABLE IF NOT EXISTS answers_in_result (
     id uuid PRIMARY KEY,
     result_id uuid REFERENCES results(id) ON DELETE CASCADE NOT NULL,
@@ -54,3 +74,36 @@ CREATE TABLE IF NOT EXISTS answers_in_result_selected_answers (
     answer_id uuid REFERENCES answers(id),
     PRIMARY KEY (answers_in_result_id, answer_id)
 );
+
+CREATE TABLE IF NOT EXISTS test_stats (
+    test_id uuid PRIMARY KEY REFERENCES tests(id),
+    test_title text,
+    attempts BIGINT NOT NULL DEFAULT 0,
+    score_sum BIGINT NOT NULL DEFAULT 0,
+    max_score INTEGER NOT NULL DEFAULT 0,
+    total_questions INTEGER NOT NULL DEFAULT 0,
+    last_passed TIMESTAMP
+);
+
+CREATE INDEX IF NOT EXISTS idx_test_stats_attempts ON test_stats (attempts DESC);
+
+-- Progress of running tests; UNLOGGED skips the WAL, the rows only need to outlive an application node
+CREATE UNLOGGED TABLE IF NOT EXISTS exam_state (
+    user_id uuid PRIMARY KEY,
+    progress bytea NOT NULL,
+    updated_at TIMESTAMP NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_exam_state_updated_at ON exam_state (updated_at);
+
+INSERT INTO test_stats (test_id, test_title, attempts, score_sum, max_score, total_questions, last_passed)
+SELECT r.test_id,
+       (ARRAY_AGG(r.test_title ORDER BY r.date DESC))[1],
+       COUNT(*),
+       COALESCE(SUM(r.score), 0),
+       COALESCE(MAX(r.score), 0),
+       COALESCE((ARRAY_AGG(r.total_questions ORDER BY r.date DESC, r.total_questions DESC))[1], 0),
+       MAX(r.date)
+FROM results r
+GROUP BY r.test_id
+ON CONFLICT (test_id) DO NOTHING;
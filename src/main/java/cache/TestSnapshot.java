@@ -0,0 +1,177 @@
+package cache;
+
+import dto.AnswerDTO;
+import dto.QuestionDTO;
+import dto.TestDTO;
+import exceptions.ValidationException;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Immutable, read-only view of a test with its questions and answers,
+ * shared between all users who are passing the test.
+ * Questions are indexed by their position in the test and answers by their id,
+ * so moving to the next question and resolving selected answers take constant time.
+ * Every answer also gets a bit within its question, assigned in the order of answer ids,
+ * so that a set of selected answers can be stored as a single {@code long} mask
+ * that stays valid for any snapshot of the same test version.
+ */
+public final class TestSnapshot {
+    @Getter
+    private final UUID testId;
+    @Getter
+    private final Integer version;
+    @Getter
+    private final TestDTO test;
+    private final QuestionDTO[] questionsByPosition;
+    private final Map<UUID, Integer> questionPositions;
+    private final Map<UUID, Integer>[] answerBits;
+    private final AnswerDTO[][] answersByBit;
+    private final long[] correctMasks;
+
+    @SuppressWarnings("unchecked")
+    private TestSnapshot(TestDTO test) {
+        this.testId = test.getId();
+        this.version = test.getVersion();
+        this.test = test;
+        this.questionsByPosition = test.getQuestions().toArray(new QuestionDTO[0]);
+        this.questionPositions = new HashMap<>(questionsByPosition.length * 2);
+        this.answerBits = new Map[questionsByPosition.length];
+        this.answersByBit = new AnswerDTO[questionsByPosition.length][];
+        this.correctMasks = new long[questionsByPosition.length];
+
+        for (int position = 0; position < questionsByPosition.length; position++) {
+            QuestionDTO question = questionsByPosition[position];
+            questionPositions.put(question.getId(), position);
+
+            AnswerDTO[] answers = question.getAnswers() == null ? new AnswerDTO[0] : question.getAnswers().stream()
+                    .sorted(Comparator.comparing(AnswerDTO::getId))
+                    .toArray(AnswerDTO[]::new);
+            if (answers.length > Long.SIZE) {
+                throw new ValidationException("Question '" + question.getQuestionText() + "' has too many answers.");
+            }
+            Map<UUID, Integer> bits = new HashMap<>(answers.length * 2);
+            for (int bit = 0; bit < answers.length; bit++) {
+                bits.put(answers[bit].getId(), bit);
+                if (answers[bit].isCorrect()) {
+                    correctMasks[position] |= 1L << bit;
+                }
+            }
+            answerBits[position] = bits;
+            answersByBit[position] = answers;
+        }
+    }
+
+    /**
+     * Creates a snapshot from the DTO, ordering the questions by number
+     * and copying the question and answer lists into unmodifiable ones.
+     */
+    public static TestSnapshot of(TestDTO testDTO) {
+        List<QuestionDTO> questions = testDTO.getQuestions() == null ? List.of() : testDTO.getQuestions().stream()
+                .sorted(Comparator.comparing(QuestionDTO::getQuestionNumber, Comparator.nullsLast(Comparator.naturalOrder())))
+                .map(question -> question.toBuilder()
+                        .answers(question.getAnswers() == null ? null : List.copyOf(question.getAnswers()))
+                        .build())
+                .toList();
+        return new TestSnapshot(testDTO.toBuilder().questions(questions).build());
+    }
+
+    public List<QuestionDTO> getQuestions() {
+        return test.getQuestions();
+    }
+
+    public int getQuestionCount() {
+        return questionsByPosition.length;
+    }
+
+    /**
+     * Returns the question at the given zero-based position in the test.
+     */
+    public QuestionDTO getQuestion(int position) {
+        return questionsByPosition[position];
+    }
+
+    /**
+     * Returns the zero-based position of the question in the test, or -1 if it does not belong to the test.
+     */
+    public int getQuestionPosition(UUID questionId) {
+        Integer position = questionPositions.get(questionId);
+        return position != null ? position : -1;
+    }
+
+    /**
+     * Returns the question following the given position, or empty if it is the last one.
+     */
+    public Optional<QuestionDTO> getQuestionAfter(int position) {
+        int next = position + 1;
+        return next < questionsByPosition.length ? Optional.of(questionsByPosition[next]) : Optional.empty();
+    }
+
+    /**
+     * Finds an answer of the question at the given position by its id.
+     */
+    public Optional<AnswerDTO> findAnswer(int position, UUID answerId) {
+        Integer bit = answerBits[position].get(answerId);
+        return bit != null ? Optional.of(answersByBit[position][bit]) : Optional.empty();
+    }
+
+    /**
+     * Builds the mask of the given answers of the question at the given position.
+     * Ids that do not belong to the question are ignored.
+     */
+    public long toAnswerMask(int position, List<UUID> answerIds) {
+        long mask = 0L;
+        for (UUID answerId : answerIds) {
+            Integer bit = answerBits[position].get(answerId);
+            if (bit != null) {
+                mask |= 1L << bit;
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * Returns the mask of the correct answers of the question at the given position.
+     */
+    public long getCorrectMask(int position) {
+        return correctMasks[position];
+    }
+
+    /**
+     * Returns the answers of the question at the given position that are set in the mask.
+     */
+    public List<AnswerDTO> getAnswers(int position, long mask) {
+        AnswerDTO[] answers = answersByBit[position];
+        List<AnswerDTO> selected = new ArrayList<>(Long.bitCount(mask));
+        for (int bit = 0; bit < answers.length; bit++) {
+            if ((mask & (1L << bit)) != 0) {
+                selected.add(answers[bit]);
+            }
+        }
+        return selected;
+    }
+
+    /**
+     * Checks whether this snapshot was built from an older version of the test than the given one.
+     */
+    boolean isOlderThan(TestSnapshot other) {
+        return isOlderThan(other.version);
+    }
+
+    /**
+     * Checks whether this snapshot was built from an older version of the test than the given version.
+     */
+    public boolean isOlderThan(Integer otherVersion) {
+        if (version == null || otherVersion == null) {
+            return false;
+        }
+        return version < otherVersion;
+    }
+}
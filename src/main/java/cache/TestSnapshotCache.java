@@ -0,0 +1,152 @@
+package cache;
+
+import dao.TestDAO;
+import entity.Test;
+import exceptions.ValidationException;
+import lombok.extern.slf4j.Slf4j;
+import mappers.TestMapper;
+import util.HibernateSessionManager;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounded LRU cache of {@link TestSnapshot}s keyed by test id.
+ * Each snapshot remembers the {@code @Version} of the test it was built from,
+ * so an older version never replaces a newer one. Entries are evicted
+ * once the transaction that modified the test has been committed.
+ * Snapshots loaded in a read-only request come from a replica that may lag behind, so they are not cached.
+ */
+@Slf4j
+public class TestSnapshotCache {
+    private final TestDAO testDao;
+    private final TestMapper testMapper;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Map<UUID, TestSnapshot> snapshots;
+    private long invalidations;
+
+    public TestSnapshotCache(TestDAO testDao, TestMapper testMapper, int maxEntries) {
+        this.testDao = testDao;
+        this.testMapper = testMapper;
+        this.snapshots = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<UUID, TestSnapshot> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Returns the cached snapshot of the test, loading it from the database on a miss.
+     */
+    public TestSnapshot get(UUID testId) {
+        TestSnapshot snapshot = getIfPresent(testId);
+        if (snapshot != null) {
+            return snapshot;
+        }
+        log.debug("Test snapshot cache miss for test id: {}", testId);
+        return load(testId, false);
+    }
+
+    /**
+     * Returns the snapshot of the test in at least the given version.
+     * Other nodes do not invalidate this cache, so an older cached snapshot is replaced
+     * by one read from the database past the second-level cache.
+     */
+    public TestSnapshot get(UUID testId, Integer minVersion) {
+        TestSnapshot snapshot = get(testId);
+        if (!snapshot.isOlderThan(minVersion)) {
+            return snapshot;
+        }
+        log.debug("Test snapshot of version {} is older than version {} for test id: {}", snapshot.getVersion(), minVersion, testId);
+        invalidate(testId);
+        return load(testId, true);
+    }
+
+    /**
+     * Returns the snapshot of the test in the version the database currently holds.
+     * The version is read from the current session, so in a read-write request it comes from the primary.
+     */
+    public TestSnapshot getCurrent(UUID testId) {
+        Integer version = testDao.findVersion(testId).orElseThrow(() -> new ValidationException("Test not found"));
+        return get(testId, version);
+    }
+
+    /**
+     * Returns the cached snapshot of the test, or null if it is not cached.
+     */
+    public TestSnapshot getIfPresent(UUID testId) {
+        lock.lock();
+        try {
+            return snapshots.get(testId);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Removes the snapshot of the test from the cache.
+     */
+    public void invalidate(UUID testId) {
+        lock.lock();
+        try {
+            snapshots.remove(testId);
+            invalidations++;
+        } finally {
+            lock.unlock();
+        }
+        log.debug("Test snapshot invalidated for test id: {}", testId);
+    }
+
+    /**
+     * Removes the snapshot of the test once the current transaction has been committed.
+     */
+    public void invalidateAfterCommit(UUID testId) {
+        if (testId != null) {
+            HibernateSessionManager.runAfterCommit(() -> invalidate(testId));
+        }
+    }
+
+    private TestSnapshot load(UUID testId, boolean refresh) {
+        long invalidationsBeforeLoad = currentInvalidations();
+        Optional<Test> test = refresh ? testDao.refreshByIdWithDetails(testId) : testDao.findByIdWithDetails(testId);
+        TestSnapshot snapshot = TestSnapshot.of(testMapper.toDTO(test.orElseThrow(() -> new ValidationException("Test not found"))));
+        if (HibernateSessionManager.isReadOnly()) {
+            return snapshot;
+        }
+        return put(snapshot, invalidationsBeforeLoad);
+    }
+
+    /**
+     * Caches a freshly loaded snapshot unless a newer version is cached
+     * or the test was invalidated while the snapshot was being loaded.
+     */
+    private TestSnapshot put(TestSnapshot snapshot, long invalidationsBeforeLoad) {
+        lock.lock();
+        try {
+            if (invalidations != invalidationsBeforeLoad) {
+                return snapshot;
+            }
+            TestSnapshot cached = snapshots.get(snapshot.getTestId());
+            if (cached != null && snapshot.isOlderThan(cached)) {
+                return cached;
+            }
+            snapshots.put(snapshot.getTestId(), snapshot);
+            return snapshot;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private long currentInvalidations() {
+        lock.lock();
+        try {
+            return invalidations;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package constants;
+
+/**
+ * Where the progress of running tests is kept, selected by the {@code examState.storage} application setting.
+ */
+public enum ExamStateStorage {
+    /** A map in the memory of this node; running tests are lost when the node stops. */
+    MEMORY,
+    /** The UNLOGGED exam_state table, so any node can resume a running test. */
+    POSTGRES
+}
@@ -13,6 +13,8 @@ public interface ServletPaths {
     String START_TEST_PATH = "/secure/startTest";
     String WELCOME_TO_TEST_PATH = "/secure/welcomeToTest";
     String ADMIN_STATS_PATH = "/secure/admin/stats";
+    String ADMIN_EXPORT_RESULTS_PATH = "/secure/admin/export/results";
+    String ADMIN_IMPORT_USERS_PATH = "/secure/admin/import/users";
     String ERROR_PATH = "/error";
     String ADD_QUESTION_PATH = "/secure/tests/add-question";
     String PREPARE_EDIT_TEST_PATH = "/secure/tests/prepare-edit";
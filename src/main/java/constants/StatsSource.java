@@ -0,0 +1,11 @@
+package constants;
+
+/**
+ * Where the admin statistics are read from, selected by the {@code stats.source} application setting.
+ */
+public enum StatsSource {
+    /** The test_stats table maintained on every saved result. */
+    TABLE,
+    /** A GROUP BY query over the results table. */
+    QUERY
+}
@@ -0,0 +1,36 @@
+package constants;
+
+import exceptions.ValidationException;
+
+/**
+ * Fields the test catalog can be sorted by. Only these properties are ever put into the listing query.
+ */
+public enum TestSort {
+    TITLE("title"),
+    TOPIC("topic");
+
+    private final String property;
+
+    TestSort(String property) {
+        this.property = property;
+    }
+
+    public String getProperty() {
+        return property;
+    }
+
+    /**
+     * Resolves the sort field from a request parameter, sorting by title when none is given.
+     */
+    public static TestSort fromParam(String value) {
+        if (value == null) {
+            return TITLE;
+        }
+        for (TestSort sort : values()) {
+            if (sort.property.equalsIgnoreCase(value)) {
+                return sort;
+            }
+        }
+        throw new ValidationException("Unsupported sort field: " + value);
+    }
+}
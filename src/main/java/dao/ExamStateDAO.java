@@ -0,0 +1,31 @@
+package dao;
+
+import entity.ExamState;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Map;
+import java.util.UUID;
+
+public interface ExamStateDAO extends GenericBaseDAO<ExamState, UUID> {
+
+    /**
+     * Inserts or replaces the encoded progress of each user in one statement.
+     */
+    void upsertAll(Map<UUID, byte[]> progressByUserId, LocalDateTime updatedAt);
+
+    /**
+     * Returns the encoded progress of those of the users that have one, in one query.
+     */
+    Map<UUID, byte[]> findProgress(Collection<UUID> userIds);
+
+    /**
+     * Deletes the progress of the users in one statement.
+     */
+    void deleteAll(Collection<UUID> userIds);
+
+    /**
+     * Deletes progress that has not been updated since the given time, returning the number of deleted rows.
+     */
+    int deleteUpdatedBefore(LocalDateTime cutoff);
+}
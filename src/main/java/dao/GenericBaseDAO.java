@@ -7,9 +7,10 @@ import java.util.Optional;
 public interface GenericBaseDAO<T, K extends Serializable>{
 
     T save(T entity);
-    void update(T entity);
+    T update(T entity);
     void delete(T entity);
     Optional<T> findById(K id);
+    T getReference(K id);
 
     void deleteById(K id);
     List<T> findAll();
@@ -1,17 +1,30 @@
 package dao;
 
+import dto.ResultExportDTO;
+import dto.ResultSummaryDTO;
+import dto.TestStatsDTO;
 import entity.Result;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 public interface ResultDAO extends GenericBaseDAO<Result,UUID> {
 
     /**
-     * Retrieves all test results for a specific user.
+     * Retrieves a page of the user's results, newest first, starting after the given date and id.
+     * Starts from the newest result when the date is null.
      */
-    List<Result> getAllResultsByUserId(UUID id);
+    List<ResultSummaryDTO> findHistoryPage(UUID userId, LocalDateTime afterDate, UUID afterId, int limit);
+
+    /**
+     * Returns those of the result ids that are already saved, in one query.
+     */
+    Set<UUID> findExistingIds(Collection<UUID> resultIds);
 
     /**
      * Counts the total number of test results.
@@ -23,5 +36,15 @@ public interface ResultDAO extends GenericBaseDAO<Result,UUID> {
      */
     Optional<Result> findByIdWithDetails(UUID resultId);
 
-    List<Result> findAllWithDetails();
+    /**
+     * Aggregates the results of every test into statistics on the database side, most passed first.
+     * The question count is the one saved with the latest result, as in {@link TestStatsDAO#recordResult}.
+     */
+    List<TestStatsDTO> aggregateStats();
+
+    /**
+     * Streams all results for the export through a database cursor, oldest first.
+     * The stream must be closed by the caller.
+     */
+    Stream<ResultExportDTO> streamAllForExport();
 }
@@ -1,7 +1,10 @@
 package dao;
 
+import constants.TestSort;
+import dto.TestSummaryDTO;
 import entity.Test;
 
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -16,4 +19,41 @@ public interface TestDAO extends GenericBaseDAO<Test,UUID> {
      * Finds a test by its ID, fetching associated details like creator and questions.
      */
     Optional<Test> findByIdWithDetails(UUID testId);
+
+    /**
+     * Finds a test like {@link #findByIdWithDetails(UUID)} but reads it from the database only,
+     * refreshing the second-level cache entries that another node has made stale.
+     */
+    Optional<Test> refreshByIdWithDetails(UUID testId);
+
+    /**
+     * Reads the current version of the test from the database, bypassing all caches.
+     */
+    Optional<Integer> findVersion(UUID testId);
+
+    /**
+     * Reads the version of the whole catalog, which is shared by all nodes.
+     */
+    long findCatalogVersion();
+
+    /**
+     * Increments the version of the whole catalog within the current transaction.
+     */
+    void incrementCatalogVersion();
+
+    /**
+     * Forces an increment of the test version, e.g. when only its questions have changed.
+     */
+    void incrementVersion(Test test);
+
+    /**
+     * Retrieves a page of the catalog sorted by the given field and id, starting after the given value and id.
+     * Starts from the beginning when the id is null; filters by topic when it is not null.
+     */
+    List<TestSummaryDTO> findSummaryPage(String topic, TestSort sort, boolean descending, String afterValue, UUID afterId, int limit);
+
+    /**
+     * Retrieves the distinct topics of all tests in alphabetical order.
+     */
+    List<String> findTopics();
 }
\ No newline at end of file
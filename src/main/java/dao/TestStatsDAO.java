@@ -0,0 +1,27 @@
+package dao;
+
+import entity.Result;
+import entity.TestStats;
+
+import java.util.List;
+import java.util.UUID;
+
+public interface TestStatsDAO extends GenericBaseDAO<TestStats, UUID> {
+
+    /**
+     * Adds a saved result to the statistics of its test, creating them on the first result.
+     * The question count is the one saved with the latest result, the larger one if two results share a date.
+     */
+    void recordResult(Result result);
+
+    /**
+     * Replaces the score of a regraded result in the statistics of its test.
+     * The maximum only grows, so lowering the best score leaves it as it was.
+     */
+    void changeScore(UUID testId, int previousScore, int score);
+
+    /**
+     * Retrieves the statistics of all tests, most passed first.
+     */
+    List<TestStats> findAllOrderedByAttempts();
+}
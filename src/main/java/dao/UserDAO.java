@@ -2,7 +2,10 @@ package dao;
 
 import entity.User;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 
 public interface UserDAO extends GenericBaseDAO<User, UUID> {
@@ -12,4 +15,14 @@ public interface UserDAO extends GenericBaseDAO<User, UUID> {
      */
     Optional<User> findByUsername(String username);
 
+    /**
+     * Returns those of the usernames that are already taken, in one query.
+     */
+    Set<String> findExistingUsernames(Collection<String> usernames);
+
+    /**
+     * Inserts the users in JDBC batches and detaches them, so a large import does not grow the session.
+     */
+    void saveAll(List<User> users);
+
 }
@@ -0,0 +1,75 @@
+package dao.impl;
+
+import dao.ExamStateDAO;
+import entity.ExamState;
+import org.hibernate.query.NativeQuery;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+public class ExamStateDAOImpl extends GenericBaseDAOImpl<ExamState, UUID> implements ExamStateDAO {
+    public ExamStateDAOImpl() {
+        super(ExamState.class);
+    }
+
+    @Override
+    public void upsertAll(Map<UUID, byte[]> progressByUserId, LocalDateTime updatedAt) {
+        if (progressByUserId.isEmpty()) {
+            return;
+        }
+        StringBuilder sql = new StringBuilder("INSERT INTO exam_state (user_id, progress, updated_at) VALUES ");
+        for (int i = 0; i < progressByUserId.size(); i++) {
+            sql.append(i > 0 ? ", " : "").append("(:userId").append(i).append(", :progress").append(i).append(", :updatedAt)");
+        }
+        sql.append(" ON CONFLICT (user_id) DO UPDATE SET progress = EXCLUDED.progress, updated_at = EXCLUDED.updated_at");
+
+        execute(session -> {
+            NativeQuery<?> query = createNativeUpdate(session, sql.toString(), "exam_state")
+                    .setParameter("updatedAt", updatedAt);
+            int i = 0;
+            for (Map.Entry<UUID, byte[]> entry : progressByUserId.entrySet()) {
+                query.setParameter("userId" + i, entry.getKey());
+                query.setParameter("progress" + i, entry.getValue());
+                i++;
+            }
+            query.executeUpdate();
+        }, "Failed to save the progress of " + progressByUserId.size() + " tests");
+    }
+
+    @Override
+    public Map<UUID, byte[]> findProgress(Collection<UUID> userIds) {
+        String hql = "SELECT e.userId, e.progress FROM ExamState e WHERE e.userId IN :userIds";
+        List<Object[]> rows = executeWithResult(session -> session.createQuery(hql, Object[].class)
+                        .setParameter("userIds", userIds)
+                        .list(),
+                "Failed to find the progress of " + userIds.size() + " tests");
+        Map<UUID, byte[]> progressByUserId = new HashMap<>();
+        for (Object[] row : rows) {
+            progressByUserId.put((UUID) row[0], (byte[]) row[1]);
+        }
+        return progressByUserId;
+    }
+
+    @Override
+    public void deleteAll(Collection<UUID> userIds) {
+        if (userIds.isEmpty()) {
+            return;
+        }
+        execute(session -> createNativeUpdate(session, "DELETE FROM exam_state WHERE user_id IN (:userIds)", "exam_state")
+                        .setParameter("userIds", userIds)
+                        .executeUpdate(),
+                "Failed to delete the progress of " + userIds.size() + " tests");
+    }
+
+    @Override
+    public int deleteUpdatedBefore(LocalDateTime cutoff) {
+        return executeWithResult(session -> createNativeUpdate(session, "DELETE FROM exam_state WHERE updated_at < :cutoff", "exam_state")
+                        .setParameter("cutoff", cutoff)
+                        .executeUpdate(),
+                "Failed to delete abandoned test progress");
+    }
+}
@@ -2,8 +2,10 @@ package dao.impl;
 
 import dao.GenericBaseDAO;
 import exceptions.DataAccessException;
+import exceptions.ServiceBusyException;
 import lombok.extern.slf4j.Slf4j;
 import org.hibernate.Session;
+import org.hibernate.query.NativeQuery;
 import util.HibernateSessionManager;
 
 import java.io.Serializable;
@@ -29,10 +31,11 @@ public class GenericBaseDAOImpl<T, K extends Serializable> implements GenericBas
     }
 
     @Override
-    public void update(T entity) {
+    public T update(T entity) {
         log.debug("Updating entity: {}", entity);
         T updatedEntity = executeWithResult(session -> session.merge(entity), "Failed to update entity: " + entity);
         log.debug("Entity updated successfully: {}", updatedEntity);
+        return updatedEntity;
     }
 
     @Override
@@ -49,6 +52,16 @@ public class GenericBaseDAOImpl<T, K extends Serializable> implements GenericBas
                 "Failed to find entity of type " + entityClass.getSimpleName() + " with id: " + id);
     }
 
+    /**
+     * Returns a proxy for the entity with the given id without querying the database,
+     * for attaching foreign keys; a missing row is reported by the foreign key constraint on flush.
+     */
+    @Override
+    public T getReference(K id) {
+        return executeWithResult(session -> session.getReference(entityClass, id),
+                "Failed to get reference to " + entityClass.getSimpleName() + " with id: " + id);
+    }
+
     @Override
     public List<T> findAll() {
         log.debug("Finding all entities of type {}", entityClass.getSimpleName());
@@ -62,10 +75,25 @@ public class GenericBaseDAOImpl<T, K extends Serializable> implements GenericBas
         findById(id).ifPresent(this::delete);
     }
 
+    /**
+     * Creates a native insert, update or delete that declares the tables it writes to.
+     * Hibernate cannot see which tables a native statement touches, so without the declaration
+     * executing it evicts every second-level cache region and invalidates every cached query.
+     */
+    protected NativeQuery<?> createNativeUpdate(Session session, String sql, String... touchedTables) {
+        NativeQuery<?> query = session.createNativeQuery(sql);
+        for (String table : touchedTables) {
+            query.addSynchronizedQuerySpace(table);
+        }
+        return query;
+    }
+
     protected void execute(Consumer<Session> operation, String errorMessage) {
         try {
             Session session = HibernateSessionManager.getSession();
             operation.accept(session);
+        } catch (ServiceBusyException e) {
+            throw e;
         } catch (Exception e) {
             log.error(errorMessage, e);
             throw new DataAccessException(errorMessage, e);
@@ -76,6 +104,8 @@ public class GenericBaseDAOImpl<T, K extends Serializable> implements GenericBas
         try {
             Session session = HibernateSessionManager.getSession();
             return operation.apply(session);
+        } catch (ServiceBusyException e) {
+            throw e;
         } catch (Exception e) {
             log.error(errorMessage, e);
             throw new DataAccessException(errorMessage, e);
@@ -1,53 +1,101 @@
 package dao.impl;
 
 import dao.ResultDAO;
+import dto.ResultExportDTO;
+import dto.ResultSummaryDTO;
+import dto.TestStatsDTO;
 import entity.AnswersInResult;
+import entity.Question;
 import entity.Result;
-import org.hibernate.Hibernate;
-
+import org.hibernate.query.Query;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 public class ResultDAOImpl extends GenericBaseDAOImpl<Result, UUID> implements ResultDAO {
+    private static final int EXPORT_FETCH_SIZE = 500;
+
     public ResultDAOImpl() {
         super(Result.class);
     }
 
-    public List<Result> getAllResultsByUserId(UUID id) {
-            String hql = "FROM Result r LEFT JOIN FETCH r.test t WHERE r.user.id = :userId";
-            return executeWithResult(session ->
-                            session.createQuery(hql, Result.class)
-                                    .setParameter("userId", id)
-                                    .list(),
-                "Failed to get results for user id: " + id
+    @Override
+    public List<ResultSummaryDTO> findHistoryPage(UUID userId, LocalDateTime afterDate, UUID afterId, int limit) {
+        String hql = "SELECT new dto.ResultSummaryDTO(r.id, r.testTitle, r.score, r.date, SIZE(r.answersInResults)) " +
+                "FROM Result r " +
+                "WHERE r.user.id = :userId " +
+                (afterDate != null ? "AND (r.date < :afterDate OR (r.date = :afterDate AND r.id < :afterId)) " : "") +
+                "ORDER BY r.date DESC, r.id DESC";
+        return executeWithResult(session -> {
+                    Query<ResultSummaryDTO> query = session.createQuery(hql, ResultSummaryDTO.class)
+                            .setParameter("userId", userId)
+                            .setMaxResults(limit);
+                    if (afterDate != null) {
+                        query.setParameter("afterDate", afterDate)
+                                .setParameter("afterId", afterId);
+                    }
+                    return query.list();
+                },
+                "Failed to get result history for user id: " + userId
         );
     }
 
+    /**
+     * Loads the result with everything its detail page shows, with one fetch query per collection:
+     * the result with its rows and their questions, then the selected answers of the rows,
+     * then the answers of the questions. Fetching a single collection per query
+     * keeps the lists from being joined into one cartesian product.
+     */
     public Optional<Result> findByIdWithDetails(UUID resultId) {
         return executeWithResult(session -> {
-            String hql = "SELECT r FROM Result r " +
-                    "LEFT JOIN FETCH r.user " +
-                    "LEFT JOIN FETCH r.test " +
+            String resultHql = "SELECT r FROM Result r " +
                     "LEFT JOIN FETCH r.answersInResults air " +
+                    "LEFT JOIN FETCH air.question " +
                     "WHERE r.id = :resultId";
+            String selectedAnswersHql = "SELECT air FROM AnswersInResult air " +
+                    "LEFT JOIN FETCH air.selectedAnswers " +
+                    "WHERE air.result.id = :resultId";
+            String questionAnswersHql = "SELECT q FROM Question q " +
+                    "LEFT JOIN FETCH q.answers " +
+                    "WHERE q.id IN (SELECT air.question.id FROM AnswersInResult air WHERE air.result.id = :resultId)";
 
-            Result result = session.createQuery(hql, Result.class)
+            Result result = session.createQuery(resultHql, Result.class)
                     .setParameter("resultId", resultId)
                     .uniqueResult();
 
-            if (result != null && result.getAnswersInResults() != null) {
-                for (AnswersInResult air : result.getAnswersInResults()) {
-                    Hibernate.initialize(air.getQuestion());
-                    Hibernate.initialize(air.getSelectedAnswers());
-                }
+            if (result != null && result.getAnswersInResults() != null && !result.getAnswersInResults().isEmpty()) {
+                session.createQuery(selectedAnswersHql, AnswersInResult.class)
+                        .setParameter("resultId", resultId)
+                        .list();
+                session.createQuery(questionAnswersHql, Question.class)
+                        .setParameter("resultId", resultId)
+                        .list();
             }
 
             return Optional.ofNullable(result);
         }, "Failed to find result with details for id: " + resultId);
     }
 
+    @Override
+    public Set<UUID> findExistingIds(Collection<UUID> resultIds) {
+        if (resultIds.isEmpty()) {
+            return Set.of();
+        }
+        String hql = "SELECT r.id FROM Result r WHERE r.id IN :resultIds";
+        return executeWithResult(session ->
+                        new HashSet<>(session.createQuery(hql, UUID.class)
+                                .setParameter("resultIds", resultIds)
+                                .list()),
+                "Failed to check existing result ids"
+        );
+    }
+
     public Long getCount() {
         String hql = "SELECT COUNT(r) FROM Result r";
         return executeWithResult(session ->
@@ -57,13 +105,36 @@ public class ResultDAOImpl extends GenericBaseDAOImpl<Result, UUID> implements R
     }
 
     @Override
-    public List<Result> findAllWithDetails() {
-        return executeWithResult(session -> {
-            String hql = "SELECT r FROM Result r " +
-                    "LEFT JOIN FETCH r.user " +
-                    "LEFT JOIN FETCH r.test ";
+    public List<TestStatsDTO> aggregateStats() {
+        String hql = "SELECT MAX(r.testTitle), COUNT(r), MAX(r.score), AVG(r.score), MAX(r.date), " +
+                "(SELECT latest.totalQuestions FROM Result latest WHERE latest.test.id = r.test.id " +
+                "ORDER BY latest.date DESC, latest.totalQuestions DESC LIMIT 1) " +
+                "FROM Result r " +
+                "GROUP BY r.test.id " +
+                "ORDER BY COUNT(r) DESC";
+        return executeWithResult(session -> session.createQuery(hql, Object[].class).list().stream()
+                        .map(row -> TestStatsDTO.builder()
+                                .testTitle((String) row[0])
+                                .totalPassed((Long) row[1])
+                                .maxScore((Integer) row[2])
+                                .avgScore((Double) row[3])
+                                .lastPassed((LocalDateTime) row[4])
+                                .totalQuestions(row[5] != null ? (Integer) row[5] : 0)
+                                .build())
+                        .toList(),
+                "Failed to aggregate result stats"
+        );
+    }
 
-            return session.createQuery(hql, Result.class).getResultList();
-        }, "Failed to find all results with details");
+    @Override
+    public Stream<ResultExportDTO> streamAllForExport() {
+        String hql = "SELECT new dto.ResultExportDTO(r.id, u.username, r.testTitle, r.score, SIZE(r.answersInResults), r.date) " +
+                "FROM Result r JOIN r.user u " +
+                "ORDER BY r.date, r.id";
+        return executeWithResult(session -> session.createQuery(hql, ResultExportDTO.class)
+                        .setFetchSize(EXPORT_FETCH_SIZE)
+                        .stream(),
+                "Failed to stream results for export"
+        );
     }
 }
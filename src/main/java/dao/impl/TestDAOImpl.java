@@ -1,12 +1,18 @@
 package dao.impl;
 
+import constants.TestSort;
 import dao.TestDAO;
+import dto.TestSummaryDTO;
 import entity.Question;
 import entity.Test;
+import jakarta.persistence.LockModeType;
 import lombok.extern.slf4j.Slf4j;
+import org.hibernate.CacheMode;
 import org.hibernate.Hibernate;
+import org.hibernate.query.Query;
 
 import java.util.Comparator;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -24,6 +30,7 @@ public class TestDAOImpl extends GenericBaseDAOImpl<Test, UUID> implements TestD
         Long count = executeWithResult(session ->
                         session.createQuery(hql, Long.class)
                                 .setParameter("title", title)
+                                .setCacheable(true)
                                 .getSingleResult(),
                 "Failed to check for existence of test with title: " + title
         );
@@ -31,25 +38,112 @@ public class TestDAOImpl extends GenericBaseDAOImpl<Test, UUID> implements TestD
     }
 
     public Optional<Test> findByIdWithDetails(UUID testId) {
+        return findByIdWithDetails(testId, false);
+    }
+
+    @Override
+    public Optional<Test> refreshByIdWithDetails(UUID testId) {
+        log.debug("Refreshing Test with id: {} from the database", testId);
+        return findByIdWithDetails(testId, true);
+    }
+
+    @Override
+    public Optional<Integer> findVersion(UUID testId) {
+        String hql = "SELECT t.version FROM Test t WHERE t.id = :testId";
+        return executeWithResult(session -> session.createQuery(hql, Integer.class)
+                        .setParameter("testId", testId)
+                        .uniqueResultOptional(),
+                "Failed to find version of test with id: " + testId);
+    }
+
+    @Override
+    public long findCatalogVersion() {
+        return executeWithResult(session -> ((Number) session.createNativeQuery("SELECT version FROM test_catalog WHERE id = 1")
+                        .getSingleResult()).longValue(),
+                "Failed to find the catalog version");
+    }
+
+    @Override
+    public void incrementCatalogVersion() {
+        execute(session -> createNativeUpdate(session, "UPDATE test_catalog SET version = version + 1 WHERE id = 1", "test_catalog")
+                        .executeUpdate(),
+                "Failed to increment the catalog version");
+    }
+
+    @Override
+    public void incrementVersion(Test test) {
+        log.debug("Forcing version increment of Test with id: {}", test.getId());
+        execute(session -> session.lock(test, LockModeType.OPTIMISTIC_FORCE_INCREMENT),
+                "Failed to increment version of test with id: " + test.getId());
+    }
+
+    @Override
+    public List<TestSummaryDTO> findSummaryPage(String topic, TestSort sort, boolean descending, String afterValue, UUID afterId, int limit) {
+        String property = "t." + sort.getProperty();
+        String comparison = descending ? "<" : ">";
+        String direction = descending ? "DESC" : "ASC";
+        StringBuilder hql = new StringBuilder("SELECT new dto.TestSummaryDTO(t.id, t.title, t.topic, SIZE(t.questions)) FROM Test t WHERE 1 = 1");
+        if (topic != null) {
+            hql.append(" AND t.topic = :topic");
+        }
+        if (afterId != null) {
+            hql.append(" AND (").append(property).append(' ').append(comparison).append(" :afterValue")
+                    .append(" OR (").append(property).append(" = :afterValue AND t.id ").append(comparison).append(" :afterId))");
+        }
+        hql.append(" ORDER BY ").append(property).append(' ').append(direction).append(", t.id ").append(direction);
+
+        return executeWithResult(session -> {
+                    Query<TestSummaryDTO> query = session.createQuery(hql.toString(), TestSummaryDTO.class)
+                            .setMaxResults(limit);
+                    if (topic != null) {
+                        query.setParameter("topic", topic);
+                    }
+                    if (afterId != null) {
+                        query.setParameter("afterValue", afterValue)
+                                .setParameter("afterId", afterId);
+                    }
+                    return query.list();
+                },
+                "Failed to find test summaries"
+        );
+    }
+
+    @Override
+    public List<String> findTopics() {
+        String hql = "SELECT DISTINCT t.topic FROM Test t ORDER BY t.topic";
+        return executeWithResult(session -> session.createQuery(hql, String.class).list(),
+                "Failed to find test topics");
+    }
+
+    private Optional<Test> findByIdWithDetails(UUID testId, boolean refresh) {
         return executeWithResult(session -> {
             String hql = "SELECT t FROM Test t " +
                     "LEFT JOIN FETCH t.creator " +
                     "LEFT JOIN FETCH t.questions " +
                     "WHERE t.id = :testId";
 
-            Test test = session.createQuery(hql, Test.class)
-                    .setParameter("testId", testId)
-                    .uniqueResult();
+            CacheMode previousCacheMode = session.getCacheMode();
+            if (refresh) {
+                // A read-only session must not put into the second-level cache, so it only skips reading from it
+                session.setCacheMode(previousCacheMode == CacheMode.GET ? CacheMode.IGNORE : CacheMode.REFRESH);
+            }
+            try {
+                Test test = session.createQuery(hql, Test.class)
+                        .setParameter("testId", testId)
+                        .setCacheable(true)
+                        .uniqueResult();
 
-            if (test != null && test.getQuestions() != null) {
-                for (Question q : test.getQuestions()) {
-                    Hibernate.initialize(q.getAnswers());
+                if (test != null && test.getQuestions() != null) {
+                    for (Question q : test.getQuestions()) {
+                        Hibernate.initialize(q.getAnswers());
+                    }
+                    test.getQuestions().sort(Comparator.comparing(Question::getQuestionNumber));
                 }
-                test.getQuestions().sort(Comparator.comparing(Question::getQuestionNumber));
-            }
 
-            return Optional.ofNullable(test);
+                return Optional.ofNullable(test);
+            } finally {
+                session.setCacheMode(previousCacheMode);
+            }
         }, "Failed to find test with details for id: " + testId);
     }
-
 }
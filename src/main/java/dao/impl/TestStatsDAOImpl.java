@@ -0,0 +1,61 @@
+package dao.impl;
+
+import dao.TestStatsDAO;
+import entity.Result;
+import entity.TestStats;
+
+import java.util.List;
+import java.util.UUID;
+
+public class TestStatsDAOImpl extends GenericBaseDAOImpl<TestStats, UUID> implements TestStatsDAO {
+    public TestStatsDAOImpl() {
+        super(TestStats.class);
+    }
+
+    @Override
+    public void recordResult(Result result) {
+        String sql = "INSERT INTO test_stats (test_id, test_title, attempts, score_sum, max_score, total_questions, last_passed) " +
+                "VALUES (:testId, :testTitle, 1, :score, :score, :totalQuestions, :date) " +
+                "ON CONFLICT (test_id) DO UPDATE SET " +
+                "test_title = EXCLUDED.test_title, " +
+                "attempts = test_stats.attempts + 1, " +
+                "score_sum = test_stats.score_sum + EXCLUDED.score_sum, " +
+                "max_score = GREATEST(test_stats.max_score, EXCLUDED.max_score), " +
+                "total_questions = CASE " +
+                "WHEN EXCLUDED.last_passed > test_stats.last_passed THEN EXCLUDED.total_questions " +
+                "WHEN EXCLUDED.last_passed = test_stats.last_passed THEN GREATEST(test_stats.total_questions, EXCLUDED.total_questions) " +
+                "ELSE test_stats.total_questions END, " +
+                "last_passed = GREATEST(test_stats.last_passed, EXCLUDED.last_passed)";
+        int score = result.getScore() != null ? result.getScore() : 0;
+        int totalQuestions = result.getTotalQuestions() != null ? result.getTotalQuestions() : 0;
+        execute(session -> createNativeUpdate(session, sql, "test_stats")
+                        .setParameter("testId", result.getTest().getId())
+                        .setParameter("testTitle", result.getTestTitle())
+                        .setParameter("score", score)
+                        .setParameter("totalQuestions", totalQuestions)
+                        .setParameter("date", result.getDate())
+                        .executeUpdate(),
+                "Failed to record result in test stats for test id: " + result.getTest().getId());
+    }
+
+    @Override
+    public void changeScore(UUID testId, int previousScore, int score) {
+        String sql = "UPDATE test_stats SET " +
+                "score_sum = score_sum - :previousScore + :score, " +
+                "max_score = GREATEST(max_score, :score) " +
+                "WHERE test_id = :testId";
+        execute(session -> createNativeUpdate(session, sql, "test_stats")
+                        .setParameter("testId", testId)
+                        .setParameter("previousScore", previousScore)
+                        .setParameter("score", score)
+                        .executeUpdate(),
+                "Failed to change score in test stats for test id: " + testId);
+    }
+
+    @Override
+    public List<TestStats> findAllOrderedByAttempts() {
+        String hql = "FROM TestStats s ORDER BY s.attempts DESC";
+        return executeWithResult(session -> session.createQuery(hql, TestStats.class).list(),
+                "Failed to find test stats");
+    }
+}
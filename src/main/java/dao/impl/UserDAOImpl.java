@@ -4,7 +4,11 @@ import dao.UserDAO;
 import entity.User;
 import lombok.extern.slf4j.Slf4j;
 
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 
 @Slf4j
@@ -33,4 +37,30 @@ public class UserDAOImpl extends GenericBaseDAOImpl<User, UUID> implements UserD
 
         return userOptional;
     }
+
+    @Override
+    public Set<String> findExistingUsernames(Collection<String> usernames) {
+        if (usernames.isEmpty()) {
+            return Set.of();
+        }
+        log.debug("Checking {} usernames for collisions", usernames.size());
+        String hql = "SELECT u.username FROM User u WHERE u.username IN :usernames";
+
+        return executeWithResult(session ->
+                        new HashSet<>(session.createQuery(hql, String.class)
+                                .setParameter("usernames", usernames)
+                                .list()),
+                "Failed to check existing usernames"
+        );
+    }
+
+    @Override
+    public void saveAll(List<User> users) {
+        log.debug("Saving {} users", users.size());
+        execute(session -> {
+            users.forEach(session::persist);
+            session.flush();
+            session.clear();
+        }, "Failed to save " + users.size() + " users");
+    }
 }
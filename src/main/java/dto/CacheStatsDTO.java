@@ -0,0 +1,19 @@
+package dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * Hit and miss counters of the Hibernate second-level and query caches since startup.
+ */
+@Data
+@AllArgsConstructor
+@Builder(toBuilder = true)
+public class CacheStatsDTO {
+    private final long entityHits;
+    private final long entityMisses;
+    private final long entityPuts;
+    private final long queryHits;
+    private final long queryMisses;
+}
@@ -0,0 +1,37 @@
+package dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Compact progress of a user passing a test.
+ * Holds one mask of selected answers per answered question, in the order of the questions,
+ * so the number of masks is also the position of the current question.
+ * The masks are resolved against the snapshot of the test with the same version.
+ * The credit is summed up as the answers arrive, so finishing the test does not rescore it.
+ */
+@Data
+@AllArgsConstructor
+@Builder(toBuilder = true)
+public class ExamProgressDTO {
+    private final UUID testId;
+    private final Integer testVersion;
+    private final UUID userId;
+    private final LocalDateTime startedAt;
+    @Builder.Default
+    private final long[] selectedAnswers = new long[0];
+    private final double credit;
+    private final Integer score;
+
+    public int getAnsweredCount() {
+        return selectedAnswers.length;
+    }
+
+    public boolean isFinished() {
+        return score != null;
+    }
+}
@@ -0,0 +1,20 @@
+package dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * Counters of the login throttle since startup.
+ */
+@Data
+@AllArgsConstructor
+@Builder(toBuilder = true)
+public class LoginThrottleStatsDTO {
+    private final int trackedKeys;
+    private final long failedAttempts;
+    private final long lockouts;
+    private final long rejectedAttempts;
+    private final long evictedKeys;
+    private final long refusedFailures;
+}
@@ -0,0 +1,23 @@
+package dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * One page of a keyset-paginated listing.
+ * The next cursor points after the last item and is null on the last page.
+ */
+@Data
+@AllArgsConstructor
+@Builder(toBuilder = true)
+public class PageDTO<T> {
+    private final List<T> items;
+    private final String nextCursor;
+
+    public boolean isHasNext() {
+        return nextCursor != null;
+    }
+}
@@ -0,0 +1,23 @@
+package dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Result row of the admin export.
+ */
+@Data
+@AllArgsConstructor
+@Builder(toBuilder = true)
+public class ResultExportDTO {
+    private final UUID id;
+    private final String username;
+    private final String testTitle;
+    private final Integer score;
+    private final Integer totalQuestions;
+    private final LocalDateTime date;
+}
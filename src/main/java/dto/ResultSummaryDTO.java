@@ -0,0 +1,22 @@
+package dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Result row of the test history, without the answers.
+ */
+@Data
+@AllArgsConstructor
+@Builder(toBuilder = true)
+public class ResultSummaryDTO {
+    private final UUID id;
+    private final String testTitle;
+    private final Integer score;
+    private final LocalDateTime date;
+    private final Integer totalQuestions;
+}
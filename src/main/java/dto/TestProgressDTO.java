@@ -11,8 +11,8 @@ import java.util.List;
 @Data
 @Builder(toBuilder = true)
 public class TestProgressDTO {
-    @NotNull(message = "Result not found")
-    private final ResultDTO result;
+    @NotNull(message = "Test progress not found")
+    private final ExamProgressDTO progress;
     @NotNull(message = "Question not found")
     private final QuestionDTO question;
     @NotNull(message = "Answers are not selected")
@@ -8,8 +8,10 @@ import lombok.Data;
 @AllArgsConstructor
 @Builder(toBuilder = true)
 public class TestSessionDTO {
+    private final String testTitle;
+    private final int questionCount;
     private final QuestionDTO currentQuestion;
     private final String roundedEndTime;
-    private final ResultDTO result;
+    private final ExamProgressDTO progress;
     private final boolean testTimeOut;
 }
@@ -16,5 +16,6 @@ public class TestStatsDTO {
     private final Long totalPassed;
     private final Integer totalQuestions;
     private final Integer maxScore;
+    private final Double avgScore;
     private final LocalDateTime lastPassed;
 }
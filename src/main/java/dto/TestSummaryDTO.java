@@ -0,0 +1,20 @@
+package dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.UUID;
+
+/**
+ * Test row of the catalog, without questions and answers.
+ */
+@Data
+@AllArgsConstructor
+@Builder(toBuilder = true)
+public class TestSummaryDTO {
+    private final UUID id;
+    private final String title;
+    private final String topic;
+    private final Integer questionCount;
+}
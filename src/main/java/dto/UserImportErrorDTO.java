@@ -0,0 +1,17 @@
+package dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * A row of a bulk import that was not imported, and why.
+ */
+@Data
+@AllArgsConstructor
+@Builder(toBuilder = true)
+public class UserImportErrorDTO {
+    private final long row;
+    private final String username;
+    private final String message;
+}
@@ -0,0 +1,19 @@
+package dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Outcome of a bulk import: how many rows were read and imported, and the rows that failed.
+ */
+@Data
+@AllArgsConstructor
+@Builder(toBuilder = true)
+public class UserImportReportDTO {
+    private final long total;
+    private final long imported;
+    private final List<UserImportErrorDTO> errors;
+}
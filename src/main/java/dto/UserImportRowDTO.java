@@ -0,0 +1,17 @@
+package dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * One user of a bulk import, with its row number in the upload.
+ */
+@Data
+@AllArgsConstructor
+@Builder(toBuilder = true)
+public class UserImportRowDTO {
+    private final long row;
+    private final String username;
+    private final String password;
+}
@@ -3,6 +3,8 @@ package entity;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotNull;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.SoftDelete;
 import org.hibernate.proxy.HibernateProxy;
 
@@ -16,6 +18,8 @@ import java.util.UUID;
 @Builder
 @Entity
 @Table(name = "answers")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @SoftDelete
 public class Answer {
     @Id
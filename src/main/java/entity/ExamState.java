@@ -0,0 +1,30 @@
+package entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Progress of the test a user is passing, encoded with {@link util.ExamProgressCodec}.
+ * Kept in an UNLOGGED table: writes skip the WAL, and the rows are lost only if the database itself crashes.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(name = "exam_state")
+public class ExamState {
+    @Id
+    @Column(name = "user_id")
+    private UUID userId;
+
+    @Column(nullable = false)
+    private byte[] progress;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+}
@@ -6,6 +6,7 @@ import lombok.*;
 import org.hibernate.annotations.Fetch;
 import org.hibernate.annotations.FetchMode;
 import org.hibernate.proxy.HibernateProxy;
+import util.TimeOrderedUuid;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -20,8 +21,10 @@ import java.util.UUID;
 @Entity
 @Table(name = "results")
 public class Result {
+    /**
+     * Assigned when the result is submitted, so a result replayed from the spill file keeps its id.
+     */
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
     private UUID id;
 
     @NotNull
@@ -40,6 +43,12 @@ public class Result {
 
     private Integer score;
 
+    /**
+     * Number of questions the test had when the result was saved; the statistics show it for the latest result.
+     */
+    @Column(name = "total_questions")
+    private Integer totalQuestions;
+
     private LocalDateTime date;
 
     @OneToMany(mappedBy = "result", cascade = {CascadeType.PERSIST, CascadeType.MERGE, CascadeType.REFRESH}, orphanRemoval = true, fetch = FetchType.LAZY)
@@ -50,6 +59,13 @@ public class Result {
     @Version
     private Integer version;
 
+    @PrePersist
+    private void assignId() {
+        if (id == null) {
+            id = TimeOrderedUuid.next();
+        }
+    }
+
     @Override
     public final boolean equals(Object o) {
         if (this == o) return true;
@@ -0,0 +1,40 @@
+package entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Statistics of a test, updated every time a result of the test is saved.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(name = "test_stats")
+public class TestStats {
+    @Id
+    @Column(name = "test_id")
+    private UUID testId;
+
+    @Column(name = "test_title")
+    private String testTitle;
+
+    private long attempts;
+
+    @Column(name = "score_sum")
+    private long scoreSum;
+
+    @Column(name = "max_score")
+    private int maxScore;
+
+    @Column(name = "total_questions")
+    private int totalQuestions;
+
+    @Column(name = "last_passed")
+    private LocalDateTime lastPassed;
+}
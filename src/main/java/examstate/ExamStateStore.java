@@ -0,0 +1,29 @@
+package examstate;
+
+import dto.ExamProgressDTO;
+
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Keeps the progress of the test each user is passing, one running test per user.
+ * The HTTP session only caches what is shown to the user, so a store shared by all nodes
+ * lets any node resume a running test.
+ */
+public interface ExamStateStore {
+
+    /** Saves the progress of the user's running test, replacing the previous one. */
+    void save(ExamProgressDTO progress);
+
+    /** Returns the progress of the user's running test, if there is one. */
+    Optional<ExamProgressDTO> find(UUID userId);
+
+    /** Forgets the user's running test. */
+    void remove(UUID userId);
+
+    /** Starts background work of the store, if it has any. */
+    default void start() {}
+
+    /** Finishes background work of the store, writing out what is still pending. */
+    default void shutdown() {}
+}
@@ -0,0 +1,61 @@
+package examstate;
+
+import dto.ExamProgressDTO;
+import util.ExamProgressCodec;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps the progress in the memory of this node, encoded with {@link ExamProgressCodec}.
+ * Progress that has not been saved for longer than the retention is dropped lazily on the next save.
+ */
+public class InMemoryExamStateStore implements ExamStateStore {
+    private static final long SWEEP_INTERVAL_MILLIS = 60_000;
+
+    private final ConcurrentHashMap<UUID, Entry> entries = new ConcurrentHashMap<>();
+    private final long retentionMillis;
+    private final AtomicLong nextSweepAt = new AtomicLong();
+
+    public InMemoryExamStateStore(Duration retention) {
+        this.retentionMillis = retention.toMillis();
+    }
+
+    @Override
+    public void save(ExamProgressDTO progress) {
+        long now = System.currentTimeMillis();
+        entries.put(progress.getUserId(), new Entry(ExamProgressCodec.encode(progress), now));
+        sweepIfDue(now);
+    }
+
+    @Override
+    public Optional<ExamProgressDTO> find(UUID userId) {
+        Entry entry = entries.get(userId);
+        return entry != null ? Optional.of(ExamProgressCodec.decode(entry.progress)) : Optional.empty();
+    }
+
+    @Override
+    public void remove(UUID userId) {
+        entries.remove(userId);
+    }
+
+    private void sweepIfDue(long now) {
+        long sweepAt = nextSweepAt.get();
+        if (now >= sweepAt && nextSweepAt.compareAndSet(sweepAt, now + SWEEP_INTERVAL_MILLIS)) {
+            entries.values().removeIf(entry -> entry.savedAt < now - retentionMillis);
+        }
+    }
+
+    private static final class Entry {
+        private final byte[] progress;
+        private final long savedAt;
+
+        private Entry(byte[] progress, long savedAt) {
+            this.progress = progress;
+            this.savedAt = savedAt;
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package examstate;
+
+import dao.ExamStateDAO;
+import dto.ExamProgressDTO;
+import exceptions.ServiceBusyException;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.SessionFactory;
+import util.ExamProgressCodec;
+import util.HibernateSessionManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Keeps the progress in the UNLOGGED exam_state table, encoded with {@link ExamProgressCodec}.
+ * Request threads do not touch the database themselves: they queue their reads and writes and wait,
+ * while a worker on a virtual thread drains the queue and runs each batch in one transaction,
+ * with one multi-row upsert, one delete and one indexed read by user ids.
+ * Under load many candidates thus share one connection, and every operation is committed before it returns,
+ * so the next request of the candidate sees it on any node.
+ */
+@Slf4j
+public class PostgresExamStateStore implements ExamStateStore {
+    private static final long POLL_TIMEOUT_MILLIS = 1000;
+    private static final long OPERATION_TIMEOUT_MILLIS = 10_000;
+    private static final long SHUTDOWN_TIMEOUT_MILLIS = 10_000;
+    private static final long CLEANUP_INTERVAL_MILLIS = 60_000;
+
+    private enum Kind { SAVE, REMOVE, READ }
+
+    private final ExamStateDAO examStateDAO;
+    private final SessionFactory sessionFactory;
+    private final int batchSize;
+    private final Duration retention;
+    private final BlockingQueue<Operation> queue = new LinkedBlockingQueue<>();
+    private volatile boolean running;
+    private Thread worker;
+    private long nextCleanupAt;
+
+    public PostgresExamStateStore(ExamStateDAO examStateDAO, SessionFactory sessionFactory, int batchSize, Duration retention) {
+        this.examStateDAO = examStateDAO;
+        this.sessionFactory = sessionFactory;
+        this.batchSize = batchSize;
+        this.retention = retention;
+    }
+
+    @Override
+    public void save(ExamProgressDTO progress) {
+        execute(new Operation(Kind.SAVE, progress.getUserId(), ExamProgressCodec.encode(progress)));
+    }
+
+    @Override
+    public Optional<ExamProgressDTO> find(UUID userId) {
+        byte[] progress = execute(new Operation(Kind.READ, userId, null));
+        return progress != null ? Optional.of(ExamProgressCodec.decode(progress)) : Optional.empty();
+    }
+
+    @Override
+    public void remove(UUID userId) {
+        execute(new Operation(Kind.REMOVE, userId, null));
+    }
+
+    @Override
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        worker = Thread.ofVirtual().name("exam-state-worker").start(this::workLoop);
+        log.info("Exam state worker started with batch size {}", batchSize);
+    }
+
+    @Override
+    public synchronized void shutdown() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        try {
+            worker.join(SHUTDOWN_TIMEOUT_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        Operation operation;
+        while ((operation = queue.poll()) != null) {
+            operation.result.completeExceptionally(new ServiceBusyException("The server is shutting down."));
+        }
+        log.info("Exam state worker stopped");
+    }
+
+    private byte[] execute(Operation operation) {
+        if (!running) {
+            throw new ServiceBusyException("The server is shutting down.");
+        }
+        queue.add(operation);
+        try {
+            return operation.result.get(OPERATION_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw new ServiceBusyException("The server is busy. Please try again in a moment.", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServiceBusyException("Interrupted while waiting for the test progress.", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("Failed to access the test progress", e.getCause());
+        }
+    }
+
+    private void workLoop() {
+        List<Operation> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                Operation first = queue.poll(POLL_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+                if (first != null) {
+                    batch.add(first);
+                    queue.drainTo(batch, batchSize - 1);
+                    process(batch);
+                    batch.clear();
+                }
+                cleanupIfDue();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Runs the batch in one transaction. Writes are applied before reads, and of several writes
+     * for the same user only the last one counts, so every statement touches a user at most once.
+     */
+    private void process(List<Operation> batch) {
+        Map<UUID, byte[]> saves = new LinkedHashMap<>();
+        Set<UUID> removes = new HashSet<>();
+        Set<UUID> reads = new HashSet<>();
+        for (Operation operation : batch) {
+            switch (operation.kind) {
+                case SAVE -> {
+                    saves.put(operation.userId, operation.progress);
+                    removes.remove(operation.userId);
+                }
+                case REMOVE -> {
+                    saves.remove(operation.userId);
+                    removes.add(operation.userId);
+                }
+                case READ -> reads.add(operation.userId);
+            }
+        }
+
+        Map<UUID, byte[]> found = new HashMap<>();
+        try {
+            HibernateSessionManager.runInTransaction(sessionFactory, () -> {
+                examStateDAO.upsertAll(saves, LocalDateTime.now());
+                examStateDAO.deleteAll(removes);
+                if (!reads.isEmpty()) {
+                    found.putAll(examStateDAO.findProgress(reads));
+                }
+            });
+        } catch (RuntimeException e) {
+            log.error("Failed to process {} exam state operations", batch.size(), e);
+            batch.forEach(operation -> operation.result.completeExceptionally(e));
+            return;
+        }
+        for (Operation operation : batch) {
+            operation.result.complete(operation.kind == Kind.READ ? found.get(operation.userId) : null);
+        }
+    }
+
+    private void cleanupIfDue() {
+        long now = System.currentTimeMillis();
+        if (now < nextCleanupAt) {
+            return;
+        }
+        nextCleanupAt = now + CLEANUP_INTERVAL_MILLIS;
+        try {
+            HibernateSessionManager.runInTransaction(sessionFactory, () -> {
+                int deleted = examStateDAO.deleteUpdatedBefore(LocalDateTime.now().minus(retention));
+                if (deleted > 0) {
+                    log.info("Deleted {} abandoned test progress rows", deleted);
+                }
+            });
+        } catch (RuntimeException e) {
+            log.warn("Failed to delete abandoned test progress: {}", e.getMessage());
+        }
+    }
+
+    private static final class Operation {
+        private final Kind kind;
+        private final UUID userId;
+        private final byte[] progress;
+        private final CompletableFuture<byte[]> result = new CompletableFuture<>();
+
+        private Operation(Kind kind, UUID userId, byte[] progress) {
+            this.kind = kind;
+            this.userId = userId;
+            this.progress = progress;
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package exceptions;
+
+/**
+ * Thrown when a request cannot get a free database slot or worker in time.
+ * It is answered with 503 Service Unavailable, so the client can retry later.
+ */
+public class ServiceBusyException extends BusinessException {
+    public ServiceBusyException(String message) {
+        super(message);
+    }
+
+    public ServiceBusyException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -1,36 +1,77 @@
 package listener;
 
+import cache.TestSnapshotCache;
+import constants.ExamStateStorage;
+import constants.StatsSource;
+import dao.impl.ExamStateDAOImpl;
 import dao.impl.ResultDAOImpl;
 import dao.impl.TestDAOImpl;
+import dao.impl.TestStatsDAOImpl;
 import dao.impl.UserDAOImpl;
+import examstate.ExamStateStore;
+import examstate.InMemoryExamStateStore;
+import examstate.PostgresExamStateStore;
 import services.ResultServiceImpl;
+import services.ResultSubmissionServiceImpl;
 import services.TestRunnerServiceImpl;
 import services.TestServiceImpl;
 import services.UserServiceImpl;
 import services.interfaces.ResultService;
+import services.interfaces.ResultSubmissionService;
 import services.interfaces.TestRunnerService;
 import services.interfaces.TestService;
 import services.interfaces.UserService;
 import mappers.*;
+import scoring.ScoringMode;
+import scoring.ScoringStrategy;
 import org.mapstruct.factory.Mappers;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import jakarta.servlet.ServletContext;
 import jakarta.servlet.ServletContextEvent;
 import jakarta.servlet.ServletContextListener;
 import jakarta.servlet.annotation.WebListener;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import util.AuthTokens;
+import util.ClientAddressResolver;
+import util.ConnectionLimiter;
+import util.HibernateSessionManager;
 import util.HibernateUtil;
+import util.LoginThrottle;
+import util.PasswordHasher;
 import validators.ValidatorResultService;
 import validators.ValidatorTestRunnerService;
 import validators.ValidatorTestService;
 import validators.ValidatorUserService;
 import util.ValidatorUtil;
 
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
 
 @WebListener
 public class ContextListener implements ServletContextListener {
+    private static final int DEFAULT_TEST_SNAPSHOT_CACHE_SIZE = 256;
+    private static final int DEFAULT_DB_ADMISSION_TIMEOUT_MILLIS = 30_000;
+    private static final int DEFAULT_RESULT_QUEUE_CAPACITY = 1000;
+    private static final int DEFAULT_RESULT_BATCH_SIZE = 50;
+    private static final int DEFAULT_RESULT_MAX_ATTEMPTS = 10;
+    private static final String DEFAULT_RESULT_SPILL_FILE = "testerquiz-results.spill";
+    private static final int DEFAULT_LOGIN_THROTTLE_SIZE = 100_000;
+    private static final int DEFAULT_MAX_FAILURES_PER_USER = 5;
+    private static final int DEFAULT_MAX_FAILURES_PER_ADDRESS = 50;
+    private static final int DEFAULT_LOGIN_BLOCK_MINUTES = 10;
+    private static final int DEFAULT_BCRYPT_STRENGTH = 10;
+    private static final int DEFAULT_PASSWORD_QUEUE_CAPACITY = 64;
+    private static final int DEFAULT_AUTH_TOKEN_TTL_MINUTES = 480;
+    private static final int DEFAULT_EXAM_STATE_BATCH_SIZE = 100;
+    private static final int DEFAULT_EXAM_STATE_RETENTION_MINUTES = 60;
+    // Pool connections kept out of the request limiter, one each for the result writer and the exam state worker
+    private static final int BACKGROUND_CONNECTIONS = 2;
+
+    private ResultSubmissionService resultSubmissionService;
+    private PasswordHasher passwordHasher;
+    private ExamStateStore examStateStore;
 
     @Override
     public void contextInitialized(ServletContextEvent sce) {
@@ -38,13 +79,18 @@ public class ContextListener implements ServletContextListener {
         ValidatorUtil.init();
 
         ServletContext servletContext = sce.getServletContext();
+        HibernateSessionManager.setConnectionLimiter(new ConnectionLimiter(
+                Math.max(1, HibernateUtil.getMaxPoolSize() - BACKGROUND_CONNECTIONS),
+                getIntParameter(servletContext, "db.admissionTimeoutMillis", DEFAULT_DB_ADMISSION_TIMEOUT_MILLIS)));
 
         ObjectMapper objectMapper = new ObjectMapper();
         objectMapper.registerModule(new JavaTimeModule());
-        objectMapper.enable(SerializationFeature.INDENT_OUTPUT);
 
 
-        BCryptPasswordEncoder encoder = new BCryptPasswordEncoder();
+        passwordHasher = new PasswordHasher(
+                getIntParameter(servletContext, "password.bcryptStrength", DEFAULT_BCRYPT_STRENGTH),
+                getIntParameter(servletContext, "password.hashingThreads", Runtime.getRuntime().availableProcessors()),
+                getIntParameter(servletContext, "password.hashingQueueCapacity", DEFAULT_PASSWORD_QUEUE_CAPACITY));
         ValidatorUserService validatorUserService = new ValidatorUserService();
         ValidatorTestService validatorTestService = new ValidatorTestService();
         ValidatorTestRunnerService validatorTestRunnerService = new ValidatorTestRunnerService();
@@ -52,32 +98,110 @@ public class ContextListener implements ServletContextListener {
 
 
         AnswerMapper answerMapper = Mappers.getMapper(AnswerMapper.class);
-        QuestionMapper questionMapper = Mappers.getMapper(QuestionMapper.class);
         ResultMapper resultMapper = Mappers.getMapper(ResultMapper.class);
         TestMapper testMapper = Mappers.getMapper(TestMapper.class);
         UserMapper userMapper = Mappers.getMapper(UserMapper.class);
+        TestStatsMapper testStatsMapper = Mappers.getMapper(TestStatsMapper.class);
 
 
         TestDAOImpl testDAO = new TestDAOImpl();
         UserDAOImpl userDAO = new UserDAOImpl();
         ResultDAOImpl resultDAO = new ResultDAOImpl();
-
-
-        UserService userService = new UserServiceImpl(userDAO, encoder, validatorUserService, userMapper);
-        TestService testService = new TestServiceImpl(testDAO,userService, validatorTestService, testMapper, answerMapper);
-        ResultService resultService = new ResultServiceImpl(resultDAO, resultMapper,testService,userService,validatorResultService);
-        TestRunnerService testRunnerService = new TestRunnerServiceImpl(testDAO, resultService, validatorTestRunnerService, testMapper, questionMapper, resultMapper, userMapper);
+        TestStatsDAOImpl testStatsDAO = new TestStatsDAOImpl();
+
+        ScoringStrategy scoringStrategy = getScoringStrategy(servletContext);
+        TestSnapshotCache testSnapshotCache = new TestSnapshotCache(testDAO, testMapper,
+                getIntParameter(servletContext, "testSnapshotCache.maxEntries", DEFAULT_TEST_SNAPSHOT_CACHE_SIZE));
+
+        LoginThrottle loginThrottle = new LoginThrottle(
+                getIntParameter(servletContext, "loginThrottle.maxEntries", DEFAULT_LOGIN_THROTTLE_SIZE),
+                getIntParameter(servletContext, "loginThrottle.maxFailuresPerUser", DEFAULT_MAX_FAILURES_PER_USER),
+                getIntParameter(servletContext, "loginThrottle.maxFailuresPerAddress", DEFAULT_MAX_FAILURES_PER_ADDRESS),
+                TimeUnit.MINUTES.toMillis(getIntParameter(servletContext, "loginThrottle.blockMinutes", DEFAULT_LOGIN_BLOCK_MINUTES)));
+
+        UserService userService = new UserServiceImpl(userDAO, passwordHasher, validatorUserService, userMapper, loginThrottle);
+        TestService testService = new TestServiceImpl(testDAO,userService, validatorTestService, testMapper, answerMapper, testSnapshotCache);
+        ResultService resultService = new ResultServiceImpl(resultDAO, testStatsDAO, resultMapper, testStatsMapper, testService, userService, validatorResultService, getStatsSource(servletContext), testSnapshotCache, scoringStrategy);
+        TestRunnerService testRunnerService = new TestRunnerServiceImpl(validatorTestRunnerService, testSnapshotCache, scoringStrategy);
+        resultSubmissionService = new ResultSubmissionServiceImpl(resultService, HibernateUtil.getSessionFactory(),
+                getIntParameter(servletContext, "resultWriter.queueCapacity", DEFAULT_RESULT_QUEUE_CAPACITY),
+                getIntParameter(servletContext, "resultWriter.batchSize", DEFAULT_RESULT_BATCH_SIZE),
+                getIntParameter(servletContext, "resultWriter.maxAttempts", DEFAULT_RESULT_MAX_ATTEMPTS),
+                getSpillFile(servletContext));
+        resultSubmissionService.start();
+        examStateStore = getExamStateStore(servletContext);
+        examStateStore.start();
 
         servletContext.setAttribute("userService", userService);
         servletContext.setAttribute("testService", testService);
         servletContext.setAttribute("resultService", resultService);
         servletContext.setAttribute("objectMapper", objectMapper);
         servletContext.setAttribute("testRunnerService", testRunnerService);
+        servletContext.setAttribute("resultSubmissionService", resultSubmissionService);
+        servletContext.setAttribute("loginThrottle", loginThrottle);
+        servletContext.setAttribute("clientAddressResolver",
+                ClientAddressResolver.fromList(servletContext.getInitParameter("loginThrottle.trustedProxies")));
+        servletContext.setAttribute("authTokens", getAuthTokens(servletContext));
+        servletContext.setAttribute("examStateStore", examStateStore);
     }
 
     @Override
     public void contextDestroyed(ServletContextEvent sce) {
+        if (resultSubmissionService != null) {
+            resultSubmissionService.shutdown();
+        }
+        if (passwordHasher != null) {
+            passwordHasher.shutdown();
+        }
+        if (examStateStore != null) {
+            examStateStore.shutdown();
+        }
         ValidatorUtil.close();
         HibernateUtil.shutdown();
     }
+
+    private ScoringStrategy getScoringStrategy(ServletContext servletContext) {
+        String mode = servletContext.getInitParameter("scoring.mode");
+        return mode != null && !mode.isBlank() ? ScoringMode.valueOf(mode.trim()) : ScoringMode.ALL_OR_NOTHING;
+    }
+
+    private StatsSource getStatsSource(ServletContext servletContext) {
+        String source = servletContext.getInitParameter("stats.source");
+        return source != null && !source.isBlank() ? StatsSource.valueOf(source.trim()) : StatsSource.TABLE;
+    }
+
+    private ExamStateStore getExamStateStore(ServletContext servletContext) {
+        String storage = servletContext.getInitParameter("examState.storage");
+        Duration retention = Duration.ofMinutes(
+                getIntParameter(servletContext, "examState.retentionMinutes", DEFAULT_EXAM_STATE_RETENTION_MINUTES));
+        if (storage != null && !storage.isBlank() && ExamStateStorage.valueOf(storage.trim()) == ExamStateStorage.POSTGRES) {
+            return new PostgresExamStateStore(new ExamStateDAOImpl(), HibernateUtil.getSessionFactory(),
+                    getIntParameter(servletContext, "examState.batchSize", DEFAULT_EXAM_STATE_BATCH_SIZE), retention);
+        }
+        return new InMemoryExamStateStore(retention);
+    }
+
+    /**
+     * Stateless authentication is on when signing keys are given in AUTH_TOKEN_KEYS, otherwise the HTTP session is used.
+     */
+    private AuthTokens getAuthTokens(ServletContext servletContext) {
+        String keys = System.getenv("AUTH_TOKEN_KEYS");
+        if (keys == null || keys.isBlank()) {
+            return null;
+        }
+        return new AuthTokens(keys.trim(), Duration.ofMinutes(
+                getIntParameter(servletContext, "auth.tokenTtlMinutes", DEFAULT_AUTH_TOKEN_TTL_MINUTES)));
+    }
+
+    private Path getSpillFile(ServletContext servletContext) {
+        String file = servletContext.getInitParameter("resultWriter.spillFile");
+        return file != null && !file.isBlank()
+                ? Path.of(file.trim())
+                : Path.of(System.getProperty("java.io.tmpdir"), DEFAULT_RESULT_SPILL_FILE);
+    }
+
+    private int getIntParameter(ServletContext servletContext, String name, int defaultValue) {
+        String value = servletContext.getInitParameter(name);
+        return value != null && !value.isBlank() ? Integer.parseInt(value.trim()) : defaultValue;
+    }
 }
@@ -14,6 +14,7 @@ public interface ResultMapper {
 
     @Mapping(source = "userId", target = "user.id")
     @Mapping(source = "testId", target = "test.id")
+    @Mapping(target = "totalQuestions", ignore = true)
     Result toEntity(ResultDTO resultDTO);
 
     @Mapping(source = "user.id", target = "userId")
@@ -0,0 +1,17 @@
+package mappers;
+
+import dto.TestStatsDTO;
+import entity.TestStats;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+
+/**
+ * Mapper for the entity TestStats and its DTO TestStatsDTO.
+ */
+@Mapper(componentModel = "default")
+public interface TestStatsMapper {
+
+    @Mapping(source = "attempts", target = "totalPassed")
+    @Mapping(target = "avgScore", expression = "java(testStats.getAttempts() > 0 ? (double) testStats.getScoreSum() / testStats.getAttempts() : null)")
+    TestStatsDTO toDTO(TestStats testStats);
+}
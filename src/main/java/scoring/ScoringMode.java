@@ -0,0 +1,42 @@
+package scoring;
+
+/**
+ * Built-in scoring strategies, selected by the {@code scoring.mode} application setting.
+ */
+public enum ScoringMode implements ScoringStrategy {
+
+    /** Full credit only if exactly the correct answers are selected. */
+    ALL_OR_NOTHING {
+        @Override
+        public double score(long correctMask, long selectedMask) {
+            return (correctMask ^ selectedMask) == 0 ? 1 : 0;
+        }
+    },
+
+    /** Credit for each selected correct answer, reduced by each selected wrong one. */
+    PARTIAL_CREDIT {
+        @Override
+        public double score(long correctMask, long selectedMask) {
+            int correctCount = Long.bitCount(correctMask);
+            if (correctCount == 0) {
+                return selectedMask == 0 ? 1 : 0;
+            }
+            int hits = Long.bitCount(correctMask & selectedMask);
+            int misses = Long.bitCount(selectedMask & ~correctMask);
+            return Math.max(0, hits - misses) / (double) correctCount;
+        }
+    },
+
+    /** Full credit for an exactly correct answer, a penalty for a wrong one and nothing for a skipped one. */
+    NEGATIVE_MARKING {
+        @Override
+        public double score(long correctMask, long selectedMask) {
+            if ((correctMask ^ selectedMask) == 0) {
+                return 1;
+            }
+            return selectedMask == 0 ? 0 : -WRONG_ANSWER_PENALTY;
+        }
+    };
+
+    private static final double WRONG_ANSWER_PENALTY = 0.25;
+}
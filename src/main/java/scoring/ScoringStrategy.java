@@ -0,0 +1,17 @@
+package scoring;
+
+/**
+ * Scores the answer to a single question.
+ * Answers are given as bitmasks with one bit per answer of the question,
+ * so a strategy only compares two numbers and does not allocate.
+ */
+public interface ScoringStrategy {
+
+    /** Returns the credit for the question, where 1 is a fully correct answer. */
+    double score(long correctMask, long selectedMask);
+
+    /** Converts the credit summed over all questions into the score stored in a result. */
+    static int toScore(double credit) {
+        return (int) Math.max(0, Math.round(credit));
+    }
+}
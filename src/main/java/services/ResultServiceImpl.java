@@ -1,51 +1,58 @@
 package services;
 
+import cache.TestSnapshot;
+import cache.TestSnapshotCache;
+import constants.StatsSource;
 import dao.ResultDAO;
+import dao.TestStatsDAO;
 import dto.*;
 import entity.*;
 import exceptions.DataAccessException;
 import exceptions.SaveException;
 import exceptions.ValidationException;
 import mappers.ResultMapper;
+import mappers.TestStatsMapper;
+import scoring.ScoringStrategy;
 import services.interfaces.ResultService;
 import services.interfaces.TestService;
 import services.interfaces.UserService;
+import util.PageCursor;
 import validators.ValidatorResultService;
 
 import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
 import java.util.*;
 import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 public class ResultServiceImpl implements ResultService {
     private final ResultDAO resultDao;
+    private final TestStatsDAO testStatsDao;
     private final ResultMapper resultMapper;
+    private final TestStatsMapper testStatsMapper;
     private final UserService userService;
     private final TestService testService;
     private final ValidatorResultService validatorResultService;
+    private final StatsSource statsSource;
+    private final TestSnapshotCache testSnapshotCache;
+    private final ScoringStrategy scoringStrategy;
+    private static final int HISTORY_PAGE_SIZE = 20;
 
-    public ResultServiceImpl(ResultDAO resultDao, ResultMapper resultMapper, TestService testService, UserService userService, ValidatorResultService validatorResultService) {
+    public ResultServiceImpl(ResultDAO resultDao, TestStatsDAO testStatsDao, ResultMapper resultMapper, TestStatsMapper testStatsMapper, TestService testService, UserService userService, ValidatorResultService validatorResultService, StatsSource statsSource, TestSnapshotCache testSnapshotCache, ScoringStrategy scoringStrategy) {
         this.resultDao = resultDao;
+        this.testStatsDao = testStatsDao;
         this.resultMapper = resultMapper;
+        this.testStatsMapper = testStatsMapper;
         this.userService = userService;
         this.testService = testService;
         this.validatorResultService = validatorResultService;
+        this.statsSource = statsSource;
+        this.testSnapshotCache = testSnapshotCache;
+        this.scoringStrategy = scoringStrategy;
 
     }
 
-    /**
-     * Creates a test result object
-     */
-    public Result buildStartResultObject(Test test, User user, LocalDateTime startTime) {
-        return Result.builder()
-                .user(user)
-                .test(test)
-                .answersInResults(new ArrayList<>())
-                .date(startTime)
-                .testTitle(test.getTitle())
-                .build();
-    }
-
     /**
      * Saves the result of passing the test
      */
@@ -53,6 +60,7 @@ public class ResultServiceImpl implements ResultService {
         try {
             Result result = buildFinalResult(resultDTO);
             resultDao.save(result);
+            testStatsDao.recordResult(result);
         } catch (DataAccessException e) {
             throw new SaveException("Failed to save result", e);
         }
@@ -60,93 +68,105 @@ public class ResultServiceImpl implements ResultService {
 
 
     /**
-     * Calculates the final score for the test
+     * Scores the saved answers of the result again against the current answers of its test,
+     * e.g. after an answer has been marked as correct, and saves the new score.
+     * The masks are rebuilt from the saved answer ids, so answers and questions removed from the test no longer count.
      */
-    public Result calculateScoreResult(Result result) {
-        int score = 0;
-        List<AnswersInResult> answersInResults = result.getAnswersInResults();
-
-        for (AnswersInResult answersInResult : answersInResults) {
-            List<Answer> correctAnswers = answersInResult.getQuestion().getAnswers().stream()
-                    .filter(Answer::isCorrect)
+    public int regrade(UUID resultId) {
+        Result result = resultDao.findByIdWithDetails(resultId).orElseThrow(() -> new ValidationException("Result not found"));
+        TestSnapshot snapshot = testSnapshotCache.getCurrent(result.getTest().getId());
+        double credit = 0;
+        for (AnswersInResult answersInResult : result.getAnswersInResults()) {
+            int position = snapshot.getQuestionPosition(answersInResult.getQuestion().getId());
+            if (position < 0) {
+                continue;
+            }
+            List<UUID> selectedAnswerIds = answersInResult.getSelectedAnswers().stream()
+                    .map(Answer::getId)
                     .toList();
+            credit += scoringStrategy.score(snapshot.getCorrectMask(position), snapshot.toAnswerMask(position, selectedAnswerIds));
+        }
 
-            List<Answer> selectedAnswers = answersInResult.getSelectedAnswers();
-
-            if (new HashSet<>(selectedAnswers).equals(new HashSet<>(correctAnswers))) {
-                score++;
+        int score = ScoringStrategy.toScore(credit);
+        int previousScore = result.getScore() != null ? result.getScore() : 0;
+        if (score != previousScore) {
+            try {
+                result.setScore(score);
+                resultDao.update(result);
+                testStatsDao.changeScore(result.getTest().getId(), previousScore, score);
+            } catch (DataAccessException e) {
+                throw new SaveException("Failed to save regraded result", e);
             }
         }
+        return score;
+    }
 
-        result.setScore(score);
-        return result;
+    public Set<UUID> findSavedResultIds(Collection<UUID> resultIds) {
+        return resultDao.findExistingIds(resultIds);
     }
 
-    public List<ResultDTO> getAllResultsByUserId(UUID id) {
-        return resultDao.getAllResultsByUserId(id).stream()
-                .map(resultMapper::toDTO)
-                .sorted(Comparator.comparing(ResultDTO::getDate).reversed())
-                .toList();
+    public PageDTO<ResultSummaryDTO> getResultHistoryPage(UUID userId, String cursor) {
+        PageCursor after = PageCursor.decode(cursor);
+        LocalDateTime afterDate = after != null ? parseCursorDate(after.getValue()) : null;
+        UUID afterId = after != null ? after.getId() : null;
+
+        List<ResultSummaryDTO> results = resultDao.findHistoryPage(userId, afterDate, afterId, HISTORY_PAGE_SIZE + 1);
+        if (results.size() <= HISTORY_PAGE_SIZE) {
+            return new PageDTO<>(results, null);
+        }
+        List<ResultSummaryDTO> page = results.subList(0, HISTORY_PAGE_SIZE);
+        ResultSummaryDTO last = page.get(page.size() - 1);
+        return new PageDTO<>(List.copyOf(page), PageCursor.encode(last.getDate().toString(), last.getId()));
     }
 
     public List<TestStatsDTO> getStats() {
-        List<Result> allResults = resultDao.findAllWithDetails();
-
-        Map<String, List<Result>> resultsByTitle = allResults.stream()
-                .collect(Collectors.groupingBy(Result::getTestTitle));
+        return testStatsDao.findAllOrderedByAttempts().stream()
+                .map(testStatsMapper::toDTO)
+                .toList();
+    }
 
-        return resultsByTitle.entrySet().stream()
-                .map(entry -> buildStats(entry.getKey(), entry.getValue()))
-                .sorted(Comparator.comparing(TestStatsDTO::getTotalPassed).reversed())
-                .collect(Collectors.toList());
+    public TestStatsReportDTO getStatsReport() {
+        List<TestStatsDTO> stats = statsSource == StatsSource.QUERY ? resultDao.aggregateStats() : getStats();
+        long attempts = stats.stream()
+                .mapToLong(TestStatsDTO::getTotalPassed)
+                .sum();
+        return TestStatsReportDTO.builder()
+                .stats(stats)
+                .attempts(attempts)
+                .build();
     }
 
     public Long countAttempts() {
         return resultDao.getCount();
     }
 
+    @Override
+    public Stream<ResultExportDTO> streamResultsForExport() {
+        return resultDao.streamAllForExport();
+    }
+
     @Override
     public ResultDTO findByIdWithDetails(UUID resultId) {
        return resultMapper.toDTO(resultDao.findByIdWithDetails(resultId).orElseThrow(()-> new ValidationException("Result not found")));
     }
 
-    private TestStatsDTO buildStats(String testTitle, List<Result> results) {
-        int totalQuestions = results.stream()
-                .findFirst()
-                .flatMap(result -> result.getAnswersInResults().stream()
-                        .map(a -> a.getQuestion().getQuestionNumber())
-                        .max(Integer::compare))
-                .orElse(0);
-
-        long totalPassed = results.size();
-
-        int maxScore = results.stream()
-                .mapToInt(Result::getScore)
-                .max()
-                .orElse(0);
-
-        LocalDateTime lastPassed = results.stream()
-                .map(Result::getDate)
-                .max(LocalDateTime::compareTo)
-                .orElse(null);
-
-        return TestStatsDTO.builder()
-                .testTitle(testTitle)
-                .totalQuestions(totalQuestions)
-                .totalPassed(totalPassed)
-                .maxScore(maxScore)
-                .lastPassed(lastPassed)
-                .build();
+    private LocalDateTime parseCursorDate(String value) {
+        try {
+            return LocalDateTime.parse(value);
+        } catch (DateTimeParseException e) {
+            throw new ValidationException("Invalid page cursor.");
+        }
     }
 
     private Result buildFinalResult(ResultDTO resultDTO) {
-        User user = validatorResultService.requireNonNullOrValidation(userService.findUserById(resultDTO.getUserId()), "User not found");
+        User user = validatorResultService.requireNonNullOrValidation(userService.getUserReference(resultDTO.getUserId()), "User not found");
         Test test = validatorResultService.requireNonNullOrValidation(testService.findTestById(resultDTO.getTestId()), "Test not found");
         Result result = validatorResultService.requireNonNullOrValidation(resultMapper.toEntity(resultDTO), "Result mapping failed");
 
         result.setUser(user);
         result.setTest(test);
         result.setTestTitle(test.getTitle());
+        result.setTotalQuestions(test.getQuestions().size());
         result.setAnswersInResults(new ArrayList<>());
 
         fillAnswersInResults(result, resultDTO.getAnswersInResults());
@@ -0,0 +1,335 @@
+package services;
+
+import dto.ResultDTO;
+import exceptions.BusinessException;
+import exceptions.DataAccessException;
+import exceptions.SaveException;
+import exceptions.ServiceBusyException;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.SessionFactory;
+import services.interfaces.ResultService;
+import services.interfaces.ResultSubmissionService;
+import util.HibernateSessionManager;
+import util.ResultSubmissionCodec;
+import util.TimeOrderedUuid;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Write-behind saving of finished test results.
+ * Submitted results go to a bounded in-memory queue that a writer on a virtual thread drains in batches,
+ * saving each batch in one transaction. When the queue is full, or a result cannot be saved because of
+ * a database failure, the result is appended to a spill file, which the writer replays once it is idle.
+ * A result that can never be saved, because it fails business validation or breaks a database constraint,
+ * goes to a dead-letter file next to the spill file instead of being retried, and so does a result that
+ * still fails after maxAttempts tries. The attempt count travels with the record in the spill file, and the
+ * delay before a replay doubles after every failed round, so a database outage uses up the attempts slowly.
+ * Every result gets its id on submission and results whose id is already saved are skipped,
+ * so replaying a spill file that was partly saved before a crash does not save them twice.
+ */
+@Slf4j
+public class ResultSubmissionServiceImpl implements ResultSubmissionService {
+    private static final long POLL_TIMEOUT_MILLIS = 1000;
+    private static final long DEFAULT_RETRY_DELAY_MILLIS = 5000;
+    private static final int MAX_RETRY_BACKOFF_SHIFT = 6;
+    private static final String INTEGRITY_CONSTRAINT_VIOLATION = "23";
+    private static final long SHUTDOWN_TIMEOUT_MILLIS = 30_000;
+
+    private final ResultService resultService;
+    private final SessionFactory sessionFactory;
+    private final BlockingQueue<ResultDTO> queue;
+    private final int batchSize;
+    private final Path spillFile;
+    private final Path replayFile;
+    private final Path deadLetterFile;
+    private final int maxAttempts;
+    private final long retryDelayMillis;
+    private final Map<UUID, Integer> attempts = new ConcurrentHashMap<>();
+    private final ReentrantLock spillLock = new ReentrantLock();
+    private volatile boolean running;
+    private Thread writer;
+    private long retryAfter;
+    private int failedRounds;
+
+    public ResultSubmissionServiceImpl(ResultService resultService, SessionFactory sessionFactory, int queueCapacity, int batchSize,
+                                       int maxAttempts, Path spillFile) {
+        this(resultService, sessionFactory, queueCapacity, batchSize, maxAttempts, spillFile, DEFAULT_RETRY_DELAY_MILLIS);
+    }
+
+    ResultSubmissionServiceImpl(ResultService resultService, SessionFactory sessionFactory, int queueCapacity, int batchSize,
+                                int maxAttempts, Path spillFile, long retryDelayMillis) {
+        this.resultService = resultService;
+        this.sessionFactory = sessionFactory;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.spillFile = spillFile;
+        this.replayFile = spillFile.resolveSibling(spillFile.getFileName() + ".replay");
+        this.deadLetterFile = spillFile.resolveSibling(spillFile.getFileName() + ".dead");
+        this.retryDelayMillis = retryDelayMillis;
+    }
+
+    @Override
+    public void submit(ResultDTO resultDTO) {
+        if (resultDTO.getId() == null) {
+            resultDTO = resultDTO.toBuilder().id(TimeOrderedUuid.next()).build();
+        }
+        if (!running || !queue.offer(resultDTO)) {
+            log.warn("Result queue is not accepting results, spilling result {} of user {} to disk", resultDTO.getId(), resultDTO.getUserId());
+            append(spillFile, List.of(resultDTO));
+        }
+    }
+
+    @Override
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        writer = Thread.ofVirtual().name("result-writer").start(this::writeLoop);
+        log.info("Result writer started with queue capacity {} and spill file {}", queue.remainingCapacity(), spillFile);
+    }
+
+    @Override
+    public synchronized void shutdown() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        try {
+            writer.join(SHUTDOWN_TIMEOUT_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (writer.isAlive()) {
+            writer.interrupt();
+        }
+        List<ResultDTO> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        if (!remaining.isEmpty()) {
+            log.warn("Spilling {} unsaved results on shutdown", remaining.size());
+            append(spillFile, remaining);
+        }
+    }
+
+    private void writeLoop() {
+        List<ResultDTO> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                ResultDTO first = queue.poll(POLL_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+                if (first != null) {
+                    batch.add(first);
+                    queue.drainTo(batch, batchSize - 1);
+                    saveBatch(batch);
+                }
+                if (running && queue.isEmpty()) {
+                    replaySpill();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.error("Unexpected error in the result writer", e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void saveBatch(List<ResultDTO> batch) {
+        try {
+            HibernateSessionManager.runInTransaction(sessionFactory, () -> saveUnsaved(batch));
+            batch.forEach(resultDTO -> attempts.remove(resultDTO.getId()));
+            failedRounds = 0;
+            return;
+        } catch (RuntimeException e) {
+            if (batch.size() > 1) {
+                log.warn("Failed to save a batch of {} results, saving them one by one", batch.size(), e);
+            } else {
+                handleFailures(batch, List.of(e));
+                return;
+            }
+        }
+
+        List<ResultDTO> failed = new ArrayList<>();
+        List<RuntimeException> errors = new ArrayList<>();
+        for (ResultDTO resultDTO : batch) {
+            try {
+                HibernateSessionManager.runInTransaction(sessionFactory, () -> saveUnsaved(List.of(resultDTO)));
+                attempts.remove(resultDTO.getId());
+            } catch (RuntimeException e) {
+                failed.add(resultDTO);
+                errors.add(e);
+            }
+        }
+        handleFailures(failed, errors);
+    }
+
+    private void saveUnsaved(List<ResultDTO> batch) {
+        Set<UUID> savedIds = resultService.findSavedResultIds(batch.stream().map(ResultDTO::getId).toList());
+        for (ResultDTO resultDTO : batch) {
+            if (savedIds.contains(resultDTO.getId())) {
+                log.info("Skipping result {} of user {}, it has already been saved", resultDTO.getId(), resultDTO.getUserId());
+            } else {
+                resultService.buildAndSaveFinalResult(resultDTO);
+            }
+        }
+    }
+
+    private void handleFailures(List<ResultDTO> failed, List<RuntimeException> errors) {
+        List<ResultDTO> retry = new ArrayList<>();
+        List<ResultDTO> dead = new ArrayList<>();
+        for (int i = 0; i < failed.size(); i++) {
+            ResultDTO resultDTO = failed.get(i);
+            RuntimeException error = errors.get(i);
+            int attempt = attempts.merge(resultDTO.getId(), 1, Integer::sum);
+            if (isPermanent(error)) {
+                log.error("Result {} of user {} for test {} cannot be saved, moving it to the dead-letter file: {}",
+                        resultDTO.getId(), resultDTO.getUserId(), resultDTO.getTestId(), error.getMessage());
+                dead.add(resultDTO);
+            } else if (attempt >= maxAttempts) {
+                log.error("Result {} of user {} for test {} failed {} times, moving it to the dead-letter file",
+                        resultDTO.getId(), resultDTO.getUserId(), resultDTO.getTestId(), attempt, error);
+                dead.add(resultDTO);
+            } else {
+                log.warn("Failed to save the result of user {} for test {}, spilling it for a retry", resultDTO.getUserId(), resultDTO.getTestId(), error);
+                retry.add(resultDTO);
+            }
+        }
+        if (!dead.isEmpty()) {
+            try {
+                append(deadLetterFile, dead);
+            } catch (SaveException e) {
+                log.error("Lost {} results that could be neither saved nor moved to the dead-letter file", dead.size(), e);
+            }
+            dead.forEach(resultDTO -> attempts.remove(resultDTO.getId()));
+        }
+        if (!retry.isEmpty()) {
+            retryAfter = System.currentTimeMillis() + (retryDelayMillis << Math.min(failedRounds++, MAX_RETRY_BACKOFF_SHIFT));
+            try {
+                append(spillFile, retry);
+            } catch (SaveException e) {
+                log.error("Lost {} results that could be neither saved nor spilled", retry.size(), e);
+            }
+        }
+    }
+
+    private boolean isPermanent(RuntimeException error) {
+        return isConstraintViolation(error)
+                || (error instanceof BusinessException
+                && !(error instanceof ServiceBusyException)
+                && !(error.getCause() instanceof DataAccessException));
+    }
+
+    /**
+     * Checks whether a SQLException in the cause chain is an integrity constraint violation (SQLSTATE class 23),
+     * such as a foreign key to a deleted user, which fails the same way on every retry.
+     */
+    private static boolean isConstraintViolation(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLException sqlException && sqlException.getSQLState() != null
+                    && sqlException.getSQLState().startsWith(INTEGRITY_CONSTRAINT_VIOLATION)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Saves the results from the spill file. The file is first moved aside, so results spilled meanwhile
+     * go to a new file, and the moved file is deleted only after all its results are saved or spilled again.
+     */
+    private void replaySpill() {
+        if (System.currentTimeMillis() < retryAfter) {
+            return;
+        }
+        try {
+            spillLock.lock();
+            try {
+                if (!Files.exists(replayFile)) {
+                    if (!Files.exists(spillFile)) {
+                        return;
+                    }
+                    Files.move(spillFile, replayFile, StandardCopyOption.ATOMIC_MOVE);
+                }
+            } finally {
+                spillLock.unlock();
+            }
+            List<ResultDTO> results = readRecords(replayFile);
+            log.info("Replaying {} spilled results", results.size());
+            for (int from = 0; from < results.size(); from += batchSize) {
+                saveBatch(results.subList(from, Math.min(from + batchSize, results.size())));
+            }
+            Files.delete(replayFile);
+        } catch (IOException e) {
+            retryAfter = System.currentTimeMillis() + retryDelayMillis;
+            log.error("Failed to replay the spill file {}", spillFile, e);
+        }
+    }
+
+    /**
+     * Appends the results to the file, each record prefixed with its length and the number of failed attempts.
+     */
+    private void append(Path file, List<ResultDTO> results) {
+        spillLock.lock();
+        try (FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            for (ResultDTO resultDTO : results) {
+                byte[] record = ResultSubmissionCodec.encode(resultDTO);
+                ByteBuffer buffer = ByteBuffer.allocate(2 * Integer.BYTES + record.length);
+                buffer.putInt(record.length).putInt(attempts.getOrDefault(resultDTO.getId(), 0)).put(record).flip();
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+            }
+            channel.force(false);
+        } catch (IOException e) {
+            log.error("Failed to write {} results to {}", results.size(), file, e);
+            throw new SaveException("Failed to save result", e);
+        } finally {
+            spillLock.unlock();
+        }
+    }
+
+    private List<ResultDTO> readRecords(Path file) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file));
+        List<ResultDTO> results = new ArrayList<>();
+        while (buffer.remaining() >= 2 * Integer.BYTES) {
+            int length = buffer.getInt();
+            int attempt = buffer.getInt();
+            if (length < 0 || length > buffer.remaining()) {
+                log.warn("Ignoring a truncated record at the end of {}", file);
+                break;
+            }
+            byte[] record = new byte[length];
+            buffer.get(record);
+            try {
+                ResultDTO resultDTO = ResultSubmissionCodec.decode(record);
+                if (attempt > 0) {
+                    attempts.put(resultDTO.getId(), attempt);
+                }
+                results.add(resultDTO);
+            } catch (BusinessException e) {
+                log.error("Skipping a corrupted record in {}: {}", file, e.getMessage());
+            }
+        }
+        return results;
+    }
+}
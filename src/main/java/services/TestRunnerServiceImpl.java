@@ -1,67 +1,73 @@
 package services;
 
-import dao.TestDAO;
+import cache.TestSnapshot;
+import cache.TestSnapshotCache;
 import dto.*;
-import entity.Question;
-import entity.Result;
-import entity.Test;
-import entity.User;
 import exceptions.ValidationException;
-import mappers.QuestionMapper;
-import mappers.ResultMapper;
-import mappers.TestMapper;
-import mappers.UserMapper;
-import services.interfaces.ResultService;
+import scoring.ScoringStrategy;
 import services.interfaces.TestRunnerService;
 import validators.ValidatorTestRunnerService;
 
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Optional;
+import java.util.Objects;
 import java.util.UUID;
 
 public class TestRunnerServiceImpl implements TestRunnerService {
-    private final TestDAO testDao;
-    private final ResultService resultService;
     private final ValidatorTestRunnerService validatorTestRunnerService;
-    private final TestMapper testMapper;
-    private final QuestionMapper questionMapper;
-    private final ResultMapper resultMapper;
-    private final UserMapper userMapper;
+    private final TestSnapshotCache testSnapshotCache;
+    private final ScoringStrategy scoringStrategy;
     private static final int TEST_DURATION_IN_MINUTES = 10;
     private static final DateTimeFormatter ISO_FORMATTER = DateTimeFormatter.ISO_DATE_TIME;
 
-    public TestRunnerServiceImpl(TestDAO testDao, ResultService resultService, ValidatorTestRunnerService validatorTestRunnerService, TestMapper testMapper, QuestionMapper questionMapper, ResultMapper resultMapper, UserMapper userMapper) {
-        this.testDao = testDao;
-        this.resultService = resultService;
+    public TestRunnerServiceImpl(ValidatorTestRunnerService validatorTestRunnerService, TestSnapshotCache testSnapshotCache, ScoringStrategy scoringStrategy) {
         this.validatorTestRunnerService = validatorTestRunnerService;
-        this.testMapper = testMapper;
-        this.questionMapper = questionMapper;
-        this.resultMapper = resultMapper;
-        this.userMapper = userMapper;
+        this.testSnapshotCache = testSnapshotCache;
+        this.scoringStrategy = scoringStrategy;
     }
 
     public TestSessionDTO startTest(UUID testId, UserDTO userDTO) {
-        Test currentTest = testDao.findByIdWithDetails(testId).orElseThrow(() -> new ValidationException("Test not found"));
-        validatorTestRunnerService.validateTestSessionStart(currentTest, userDTO);
-        User user = userMapper.toEntity(userDTO);
-
-        LocalDateTime startTime = LocalDateTime.now();
-        LocalDateTime roundedEndTime = startTime.plusMinutes(TEST_DURATION_IN_MINUTES);
-        DateTimeFormatter formatter = DateTimeFormatter.ISO_DATE_TIME;
-        String roundedEndTime_formatted = roundedEndTime.format(formatter);
-
-        Result result = resultService.buildStartResultObject(currentTest, user, startTime);
-
-        Question currentQuestion = currentTest.getQuestions().stream().findFirst().orElseThrow(() -> new ValidationException("Test " + currentTest.getTitle() + " has no questions"));
-            return TestSessionDTO.builder()
-                    .currentQuestion(questionMapper.toDTO(currentQuestion))
-                    .roundedEndTime(roundedEndTime_formatted)
-                    .result(resultMapper.toDTO(result))
-                    .testTimeOut(false)
-                    .build();
+        TestSnapshot snapshot = testSnapshotCache.getCurrent(testId);
+        validatorTestRunnerService.validateTestSessionStart(snapshot, userDTO);
+        if (snapshot.getQuestionCount() == 0) {
+            throw new ValidationException("Test " + snapshot.getTest().getTitle() + " has no questions");
+        }
+
+        LocalDateTime startTime = LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+
+        ExamProgressDTO progress = ExamProgressDTO.builder()
+                .testId(snapshot.getTestId())
+                .testVersion(snapshot.getVersion())
+                .userId(userDTO.getId())
+                .startedAt(startTime)
+                .build();
+
+        return TestSessionDTO.builder()
+                .testTitle(snapshot.getTest().getTitle())
+                .questionCount(snapshot.getQuestionCount())
+                .currentQuestion(snapshot.getQuestion(0))
+                .roundedEndTime(formatEndTime(startTime))
+                .progress(progress)
+                .testTimeOut(false)
+                .build();
+    }
+
+    public TestSessionDTO resumeTest(ExamProgressDTO progress) {
+        TestSnapshot snapshot = getSnapshot(progress);
+        int position = Math.min(progress.getAnsweredCount(), snapshot.getQuestionCount() - 1);
+        String endTime = formatEndTime(progress.getStartedAt());
+        return TestSessionDTO.builder()
+                .testTitle(snapshot.getTest().getTitle())
+                .questionCount(snapshot.getQuestionCount())
+                .currentQuestion(snapshot.getQuestion(position))
+                .roundedEndTime(endTime)
+                .progress(progress)
+                .testTimeOut(checkTimeIsEnded(endTime))
+                .build();
     }
 
     public boolean checkTimeIsEnded(String endTime) {
@@ -74,61 +80,97 @@ public class TestRunnerServiceImpl implements TestRunnerService {
     public TestProgressDTO nextQuestion(TestProgressDTO testProgressDTO) {
         validatorTestRunnerService.validateTestProgressDTO(testProgressDTO);
 
-        ResultDTO resultDTO = testProgressDTO.getResult();
+        ExamProgressDTO progress = testProgressDTO.getProgress();
         QuestionDTO questionDTO = testProgressDTO.getQuestion();
-        List<String> answers = testProgressDTO.getAnswers();
 
-        Test test = testDao.findByIdWithDetails(resultDTO.getTestId()).orElseThrow(() -> new ValidationException("Test not found"));
-        validatorTestRunnerService.validateTest(test);
+        TestSnapshot snapshot = getSnapshot(progress);
+        int position = getQuestionPosition(snapshot, questionDTO);
+        if (progress.isFinished() || position != progress.getAnsweredCount()) {
+            throw new ValidationException("This question has already been answered.");
+        }
+
+        long mask = snapshot.toAnswerMask(position, toAnswerIds(testProgressDTO.getAnswers()));
+        long[] selectedAnswers = Arrays.copyOf(progress.getSelectedAnswers(), position + 1);
+        selectedAnswers[position] = mask;
+        ExamProgressDTO updatedProgress = progress.toBuilder()
+                .selectedAnswers(selectedAnswers)
+                .credit(progress.getCredit() + scoringStrategy.score(snapshot.getCorrectMask(position), mask))
+                .build();
 
-        AnswersInResultDTO answerInResultDTO = buildAnswerInResult(questionDTO, answers);
-        resultDTO.getAnswersInResults().add(answerInResultDTO);
+        return getTestProgressDTO(snapshot.getQuestionAfter(position).orElse(null), updatedProgress);
+    }
 
-        Optional<QuestionDTO> nextQuestionOptional = getNextQuestion(testMapper.toDTO(test), questionDTO);
+    public ResultDTO buildResult(ExamProgressDTO progress) {
+        if (progress == null || !progress.isFinished()) {
+            return null;
+        }
+        return toResultDTO(progress, getSnapshot(progress)).toBuilder()
+                .score(progress.getScore())
+                .build();
+    }
 
-        return getTestProgressDTO(nextQuestionOptional.orElse(null), testProgressDTO);
+    private String formatEndTime(LocalDateTime startTime) {
+        return startTime.plusMinutes(TEST_DURATION_IN_MINUTES).format(ISO_FORMATTER);
     }
 
-    private Optional<QuestionDTO> getNextQuestion(TestDTO currentTest, QuestionDTO currentQuestion) {
-        return currentTest.getQuestions().stream()
-                .filter(question -> question.getQuestionNumber() == currentQuestion.getQuestionNumber() + 1)
-                .findFirst();
+    private TestSnapshot getSnapshot(ExamProgressDTO progress) {
+        // The attempt may have been started on another node against a version this node has not cached yet
+        TestSnapshot snapshot = testSnapshotCache.get(progress.getTestId(), progress.getTestVersion());
+        validatorTestRunnerService.validateTest(snapshot);
+        if (!Objects.equals(snapshot.getVersion(), progress.getTestVersion())) {
+            throw new ValidationException("The test has been changed. Please start it again.");
+        }
+        return snapshot;
     }
 
-    private Optional<AnswerDTO> getAnswerByIdFromTest(QuestionDTO currentQuestion, UUID answerId) {
-        return currentQuestion.getAnswers().stream()
-                .filter(answer -> answer.getId().equals(answerId))
-                .findFirst();
+    private int getQuestionPosition(TestSnapshot currentTest, QuestionDTO currentQuestion) {
+        int position = currentTest.getQuestionPosition(currentQuestion.getId());
+        if (position < 0) {
+            throw new ValidationException("Question does not belong to this test.");
+        }
+        return position;
     }
 
-    private TestProgressDTO getTestProgressDTO(QuestionDTO nextQuestion, TestProgressDTO testProgressDTO) {
+    private TestProgressDTO getTestProgressDTO(QuestionDTO nextQuestion, ExamProgressDTO progress) {
         if (nextQuestion != null) {
             return TestProgressDTO.builder()
                     .question(nextQuestion)
-                    .result(testProgressDTO.getResult())
+                    .progress(progress)
                     .isTestFinished(false)
                     .build();
         } else {
-            ResultDTO finalResult = resultMapper.toDTO(resultService.calculateScoreResult(resultMapper.toEntity(testProgressDTO.getResult())));
             return TestProgressDTO.builder()
-                    .result(finalResult)
+                    .progress(progress.toBuilder().score(ScoringStrategy.toScore(progress.getCredit())).build())
                     .isTestFinished(true)
                     .build();
         }
     }
 
-    private AnswersInResultDTO buildAnswerInResult(QuestionDTO questionDTO, List<String> answers) {
-        List<AnswerDTO> selectedAnswersList = new ArrayList<>();
-        for (String selectedAnswer : answers) {
-            UUID answerId = UUID.fromString(selectedAnswer);
-            Optional<AnswerDTO> currentAnswer = getAnswerByIdFromTest(questionDTO, answerId);
-            currentAnswer.ifPresent(selectedAnswersList::add);
+    private ResultDTO toResultDTO(ExamProgressDTO progress, TestSnapshot snapshot) {
+        long[] masks = progress.getSelectedAnswers();
+        List<AnswersInResultDTO> answersInResults = new ArrayList<>(masks.length);
+        for (int position = 0; position < masks.length; position++) {
+            answersInResults.add(AnswersInResultDTO.builder()
+                    .question(snapshot.getQuestion(position))
+                    .selectedAnswers(snapshot.getAnswers(position, masks[position]))
+                    .build());
         }
-        return AnswersInResultDTO.builder()
-                .question(questionDTO)
-                .selectedAnswers(selectedAnswersList)
+        return ResultDTO.builder()
+                .userId(progress.getUserId())
+                .testId(progress.getTestId())
+                .testTitle(snapshot.getTest().getTitle())
+                .date(progress.getStartedAt())
+                .answersInResults(answersInResults)
                 .build();
     }
 
+    private List<UUID> toAnswerIds(List<String> answers) {
+        List<UUID> answerIds = new ArrayList<>(answers.size());
+        for (String selectedAnswer : answers) {
+            answerIds.add(UUID.fromString(selectedAnswer));
+        }
+        return answerIds;
+    }
+
 
 }
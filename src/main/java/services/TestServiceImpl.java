@@ -1,9 +1,13 @@
 package services;
 
+import cache.TestSnapshotCache;
+import constants.TestSort;
 import dao.TestDAO;
 import dto.AnswerDTO;
+import dto.PageDTO;
 import dto.QuestionDTO;
 import dto.TestDTO;
+import dto.TestSummaryDTO;
 import entity.Answer;
 import entity.Question;
 import entity.Test;
@@ -15,6 +19,7 @@ import mappers.AnswerMapper;
 import mappers.TestMapper;
 import services.interfaces.TestService;
 import services.interfaces.UserService;
+import util.PageCursor;
 import validators.ValidatorTestService;
 
 import java.util.*;
@@ -26,13 +31,16 @@ public class TestServiceImpl implements TestService {
     private final ValidatorTestService validatorTestService;
     private final TestMapper testMapper;
     private final AnswerMapper answerMapper;
+    private final TestSnapshotCache testSnapshotCache;
+    private static final int CATALOG_PAGE_SIZE = 50;
 
-    public TestServiceImpl(TestDAO testDao, UserService userService, ValidatorTestService validatorTestService, TestMapper testMapper, AnswerMapper answerMapper) {
+    public TestServiceImpl(TestDAO testDao, UserService userService, ValidatorTestService validatorTestService, TestMapper testMapper, AnswerMapper answerMapper, TestSnapshotCache testSnapshotCache) {
         this.testDao = testDao;
         this.userService = userService;
         this.validatorTestService = validatorTestService;
         this.testMapper = testMapper;
         this.answerMapper = answerMapper;
+        this.testSnapshotCache = testSnapshotCache;
     }
 
 
@@ -64,15 +72,34 @@ public class TestServiceImpl implements TestService {
         validatorTestService.validateTestId(testId);
         try {
             testDao.deleteById(testId);
+            testDao.incrementCatalogVersion();
         } catch (DataAccessException e) {
             throw new TestDeletionFailedException("Failed to delete test with id " + testId, e);
         }
+        testSnapshotCache.invalidateAfterCommit(testId);
     }
 
     public TestDTO findDTOById(UUID id) {
         return testMapper.toDTO(findTestByIdOrThrow(id));
     }
 
+    public TestDTO findCachedDTOById(UUID id) {
+        return testSnapshotCache.get(id).getTest();
+    }
+
+    public TestDTO findCachedDTOById(UUID id, Integer minVersion) {
+        return testSnapshotCache.get(id, minVersion).getTest();
+    }
+
+    public Integer findVersion(UUID id) {
+        validatorTestService.validateTestId(id);
+        return testDao.findVersion(id).orElseThrow(() -> new ValidationException("Test not found with id: " + id));
+    }
+
+    public String getCatalogVersion() {
+        return String.valueOf(testDao.findCatalogVersion());
+    }
+
     public Test findTestById(UUID id) {
         return findTestByIdOrThrow(id);
     }
@@ -85,6 +112,26 @@ public class TestServiceImpl implements TestService {
                 .collect(Collectors.toList());
     }
 
+    public PageDTO<TestSummaryDTO> findTestSummaryPage(String topic, String sort, String direction, String cursor) {
+        TestSort testSort = TestSort.fromParam(sort);
+        boolean descending = isDescending(direction);
+        PageCursor after = PageCursor.decode(cursor);
+
+        List<TestSummaryDTO> tests = testDao.findSummaryPage(topic, testSort, descending,
+                after != null ? after.getValue() : null, after != null ? after.getId() : null, CATALOG_PAGE_SIZE + 1);
+        if (tests.size() <= CATALOG_PAGE_SIZE) {
+            return new PageDTO<>(tests, null);
+        }
+        List<TestSummaryDTO> page = tests.subList(0, CATALOG_PAGE_SIZE);
+        TestSummaryDTO last = page.get(page.size() - 1);
+        String lastValue = testSort == TestSort.TOPIC ? last.getTopic() : last.getTitle();
+        return new PageDTO<>(List.copyOf(page), PageCursor.encode(lastValue, last.getId()));
+    }
+
+    public List<String> findTopics() {
+        return testDao.findTopics();
+    }
+
     public TestDTO updateQuestion(UUID testId, QuestionDTO questionDTO) {
         validatorTestService.validate(questionDTO);
         Test test = findTestByIdOrThrow(testId);
@@ -98,10 +145,13 @@ public class TestServiceImpl implements TestService {
         updateAnswersForQuestion(question, questionDTO.getAnswers());
 
         try {
+            testDao.incrementVersion(test);
             testDao.update(test);
+            testDao.incrementCatalogVersion();
         } catch (DataAccessException e) {
             throw new SaveException("Failed to update question in test.", e);
         }
+        testSnapshotCache.invalidateAfterCommit(testId);
         return testMapper.toDTO(findTestByIdOrThrow(testId));
     }
 
@@ -109,14 +159,18 @@ public class TestServiceImpl implements TestService {
         validatorTestService.validate(testDTO);
         validatorTestService.validateQuestions(testDTO.getQuestions());
         Test currentTest = testMapper.toEntity(testDTO);
-        currentTest.setCreator(validatorTestService.requireNonNullOrValidation(userService.findUserById(testDTO.getCreatorId()), "User not found"));
+        currentTest.setCreator(validatorTestService.requireNonNullOrValidation(userService.getUserReference(testDTO.getCreatorId()), "User not found"));
         linkQuestionsAndAnswers(currentTest);
 
+        Test savedTest;
         try {
-            testDao.update(currentTest);
+            // merge leaves the given entity untouched, so the id of a new test is only on the returned one
+            savedTest = testDao.update(currentTest);
+            testDao.incrementCatalogVersion();
         } catch (DataAccessException e) {
             throw new SaveException("Failed to save test.", e);
         }
+        testSnapshotCache.invalidateAfterCommit(savedTest.getId());
     }
 
     public TestDTO updateTestDetails(UUID testId, String newTitle, String newTopic) {
@@ -136,12 +190,24 @@ public class TestServiceImpl implements TestService {
 
         try {
             testDao.update(test);
+            testDao.incrementCatalogVersion();
         } catch (DataAccessException e) {
             throw new SaveException("Failed to save test.", e);
         }
+        testSnapshotCache.invalidateAfterCommit(testId);
         return testMapper.toDTO(findTestByIdOrThrow(testId));
     }
 
+    private boolean isDescending(String direction) {
+        if (direction == null || "asc".equalsIgnoreCase(direction)) {
+            return false;
+        }
+        if ("desc".equalsIgnoreCase(direction)) {
+            return true;
+        }
+        throw new ValidationException("Unsupported sort direction: " + direction);
+    }
+
     private Test findTestByIdOrThrow(UUID testId) {
         validatorTestService.validateTestId(testId);
         return testDao.findByIdWithDetails(testId).orElseThrow(() -> new ValidationException("Test not found with id: " + testId));
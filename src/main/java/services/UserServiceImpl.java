@@ -6,36 +6,49 @@ import mappers.UserMapper;
 import services.interfaces.UserService;
 import validators.ValidatorUserService;
 import dto.UserDTO;
+import dto.UserImportErrorDTO;
+import dto.UserImportReportDTO;
+import dto.UserImportRowDTO;
 import entity.User;
 import exceptions.AuthenticationException;
 import exceptions.DataAccessException;
 import exceptions.RegistrationException;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
-
-import java.util.Map;
+import exceptions.ServiceBusyException;
+import lombok.extern.slf4j.Slf4j;
+import util.HibernateSessionManager;
+import util.LoginThrottle;
+import util.PasswordHasher;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
-import java.util.concurrent.ConcurrentHashMap;
 
+@Slf4j
 public class UserServiceImpl implements UserService {
     private static final String USERNAME_ALREADY_EXISTS = "User with username '%s' already exists.";
     private static final String DEFAULT_ROLE = "USER";
 
-    private static final int MAX_FAILED_ATTEMPTS = 5;
-    private static final long BLOCK_TIME_MILLIS = 10 * 60 * 1000; // 10 minutes
-    private final Map<String, Integer> failedAttempts = new ConcurrentHashMap<>();
-    private final Map<String, Long> blockedUsers = new ConcurrentHashMap<>();
+    private static final String DUPLICATE_IN_IMPORT = "Username '%s' appears more than once in the import.";
+    private static final int IMPORT_CHUNK_SIZE = 500;
+    private static final String ACCOUNT_LOCKED = "Account is temporarily locked due to too many failed login attempts. Try again later.";
 
     private final UserDAO userDao;
-    private final BCryptPasswordEncoder passwordEncoder;
+    private final PasswordHasher passwordHasher;
     private final ValidatorUserService validatorUserService;
     private final UserMapper userMapper;
+    private final LoginThrottle loginThrottle;
 
-    public UserServiceImpl(UserDAO userDao, BCryptPasswordEncoder passwordEncoder, ValidatorUserService validatorUserService, UserMapper userMapper) {
+    public UserServiceImpl(UserDAO userDao, PasswordHasher passwordHasher, ValidatorUserService validatorUserService, UserMapper userMapper, LoginThrottle loginThrottle) {
         this.userDao = userDao;
-        this.passwordEncoder = passwordEncoder;
+        this.passwordHasher = passwordHasher;
         this.validatorUserService = validatorUserService;
         this.userMapper = userMapper;
+        this.loginThrottle = loginThrottle;
     }
 
     public UserDTO registerUser(UserDTO userDTO, String password) throws DataAccessException {
@@ -47,7 +60,7 @@ public class UserServiceImpl implements UserService {
 
         User userToSave = User.builder()
                 .username(username)
-                .password(passwordEncoder.encode(password))
+                .password(passwordHasher.encode(password))
                 .role(DEFAULT_ROLE)
                 .build();
 
@@ -59,17 +72,63 @@ public class UserServiceImpl implements UserService {
         }
     }
 
-    public UserDTO login(String username, String password) throws DataAccessException {
+    /**
+     * Imports the rows in chunks: each chunk is checked for taken usernames in one query,
+     * its passwords are hashed in parallel and the users are inserted in JDBC batches.
+     * Every chunk is committed in its own transaction, so a failure loses only the chunk it happened in.
+     * Invalid rows are reported and skipped; the rest of the import goes on.
+     */
+    public UserImportReportDTO importUsers(Iterator<UserImportRowDTO> rows) throws DataAccessException {
+        List<UserImportErrorDTO> errors = new ArrayList<>();
+        Set<String> seenUsernames = new HashSet<>();
+        List<UserImportRowDTO> chunk = new ArrayList<>(IMPORT_CHUNK_SIZE);
+        long total = 0;
+        long imported = 0;
+
+        while (rows.hasNext()) {
+            UserImportRowDTO row = rows.next();
+            total++;
+            String error = validateImportRow(row, seenUsernames);
+            if (error != null) {
+                errors.add(toImportError(row, error));
+                continue;
+            }
+            chunk.add(row);
+            if (chunk.size() == IMPORT_CHUNK_SIZE) {
+                imported += importChunk(chunk, errors);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            imported += importChunk(chunk, errors);
+        }
+
+        errors.sort(Comparator.comparingLong(UserImportErrorDTO::getRow));
+        return UserImportReportDTO.builder()
+                .total(total)
+                .imported(imported)
+                .errors(errors)
+                .build();
+    }
+
+    public UserDTO login(String username, String password, String clientAddress) throws DataAccessException {
         validatorUserService.validateUsernameAndPassword(username, password);
-        checkBlocked(username);
+        if (loginThrottle.isBlocked(username, clientAddress)) {
+            throw new AuthenticationException(ACCOUNT_LOCKED);
+        }
 
         Optional<User> userOptional = userDao.findByUsername(username);
 
-        if (userOptional.isPresent() && passwordEncoder.matches(password, userOptional.get().getPassword())) {
-            resetAttempts(username);
-            return userMapper.toDTO(userOptional.get());
+        if (userOptional.isPresent() && passwordHasher.matches(password, userOptional.get().getPassword())) {
+            loginThrottle.recordSuccess(username);
+            User user = userOptional.get();
+            if (passwordHasher.needsRehash(user.getPassword())) {
+                rehashPassword(user, password);
+            }
+            return userMapper.toDTO(user);
+        } else if (loginThrottle.recordFailure(username, clientAddress)) {
+            throw new AuthenticationException(ACCOUNT_LOCKED);
         } else {
-            recordFailedAttempt(username);
             throw new AuthenticationException("Invalid username or password");
         }
     }
@@ -79,26 +138,72 @@ public class UserServiceImpl implements UserService {
         return userDao.findById(userId).orElseThrow(() -> new ValidationException("User not found with id: " + userId));
     }
 
+    @Override
+    public User getUserReference(UUID userId) throws DataAccessException {
+        if (userId == null) {
+            throw new ValidationException("User not found");
+        }
+        return userDao.getReference(userId);
+    }
+
+    /**
+     * Stores the password hashed with the current cost factor.
+     * A busy hasher only postpones this to the next login, it does not fail the login.
+     */
+    private void rehashPassword(User user, String password) {
+        try {
+            user.setPassword(passwordHasher.encode(password));
+            userDao.update(user);
+            log.info("Password of user {} rehashed with the current cost factor", user.getId());
+        } catch (ServiceBusyException e) {
+            log.debug("Password rehash of user {} postponed: {}", user.getId(), e.getMessage());
+        }
+    }
 
-    private void checkBlocked(String username) {
-        Long blockedUntil = blockedUsers.get(username);
-        if (blockedUntil != null && blockedUntil > System.currentTimeMillis()) {
-            throw new AuthenticationException("Account is temporarily locked due to too many failed login attempts. Try again later.");
+    private String validateImportRow(UserImportRowDTO row, Set<String> seenUsernames) {
+        try {
+            validatorUserService.validateUserDto(UserDTO.builder().username(row.getUsername()).build());
+            validatorUserService.validatePassword(row.getPassword());
+        } catch (ValidationException e) {
+            return String.join(" ", e.getErrors());
         }
+        return seenUsernames.add(row.getUsername()) ? null : String.format(DUPLICATE_IN_IMPORT, row.getUsername());
     }
 
-    private void recordFailedAttempt(String username) {
-        int attempts = failedAttempts.getOrDefault(username, 0) + 1;
-        failedAttempts.put(username, attempts);
-        if (attempts >= MAX_FAILED_ATTEMPTS) {
-            blockedUsers.put(username, System.currentTimeMillis() + BLOCK_TIME_MILLIS);
-            failedAttempts.remove(username);
-            throw new AuthenticationException("Account is temporarily locked due to too many failed login attempts. Try again later.");
+    private int importChunk(List<UserImportRowDTO> chunk, List<UserImportErrorDTO> errors) {
+        Set<String> existingUsernames = userDao.findExistingUsernames(chunk.stream().map(UserImportRowDTO::getUsername).toList());
+        List<UserImportRowDTO> newRows = new ArrayList<>(chunk.size());
+        for (UserImportRowDTO row : chunk) {
+            if (existingUsernames.contains(row.getUsername())) {
+                errors.add(toImportError(row, String.format(USERNAME_ALREADY_EXISTS, row.getUsername())));
+            } else {
+                newRows.add(row);
+            }
+        }
+        if (newRows.isEmpty()) {
+            return 0;
         }
+
+        List<String> hashes = passwordHasher.encodeAll(newRows.stream().map(UserImportRowDTO::getPassword).toList());
+        List<User> users = new ArrayList<>(newRows.size());
+        for (int i = 0; i < newRows.size(); i++) {
+            users.add(User.builder()
+                    .username(newRows.get(i).getUsername())
+                    .password(hashes.get(i))
+                    .role(DEFAULT_ROLE)
+                    .build());
+        }
+        userDao.saveAll(users);
+        HibernateSessionManager.commitAndBegin();
+        log.info("Imported {} users", users.size());
+        return users.size();
     }
 
-    private void resetAttempts(String username) {
-        failedAttempts.remove(username);
-        blockedUsers.remove(username);
+    private UserImportErrorDTO toImportError(UserImportRowDTO row, String message) {
+        return UserImportErrorDTO.builder()
+                .row(row.getRow())
+                .username(row.getUsername())
+                .message(message)
+                .build();
     }
 }
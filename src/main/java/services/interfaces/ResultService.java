@@ -1,38 +1,47 @@
 package services.interfaces;
 
+import dto.PageDTO;
 import dto.ResultDTO;
+import dto.ResultExportDTO;
+import dto.ResultSummaryDTO;
 import dto.TestStatsDTO;
-import entity.Result;
-import entity.Test;
-import entity.User;
+import dto.TestStatsReportDTO;
 
-import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Set;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 /**
  * Service for managing and analyzing test results.
  */
 public interface ResultService {
 
-    /** Creates a preliminary Result entity when a user starts a test. */
-    Result buildStartResultObject(Test test, User user, LocalDateTime startTime);
-
     /** Builds the final Result entity from a DTO and persists it. */
     void buildAndSaveFinalResult(ResultDTO resultDTO);
 
-    /** Calculates and sets the final score for a given Result entity. */
-    Result calculateScoreResult(Result result);
+    /** Scores a saved result again with the current answers of its test and returns the new score. */
+    int regrade(UUID resultId);
+
+    /** Returns those of the result ids that are already saved. */
+    Set<UUID> findSavedResultIds(Collection<UUID> resultIds);
 
-    /** Gets all test results for a specific user, sorted by date descending. */
-    List<ResultDTO> getAllResultsByUserId(UUID id);
+    /** Gets a page of the user's results, newest first, starting after the given cursor. */
+    PageDTO<ResultSummaryDTO> getResultHistoryPage(UUID userId, String cursor);
 
     /** Gathers and calculates statistics across all tests. */
     List<TestStatsDTO> getStats();
 
+    /** Gathers the statistics of all tests together with the total number of attempts in one read. */
+    TestStatsReportDTO getStatsReport();
+
     /** Counts the total number of test attempts made across all tests. */
     Long countAttempts();
 
+    /** Streams all results for the admin export; the stream must be closed by the caller. */
+    Stream<ResultExportDTO> streamResultsForExport();
+
     /** Finds a single test result by ID, including detailed information. */
     ResultDTO findByIdWithDetails(UUID resultId);
 }
@@ -0,0 +1,18 @@
+package services.interfaces;
+
+import dto.ResultDTO;
+
+/**
+ * Service that accepts finished test results and saves them in the background.
+ */
+public interface ResultSubmissionService {
+
+    /** Accepts a finished result for saving; returns before the result reaches the database. */
+    void submit(ResultDTO resultDTO);
+
+    /** Starts the background writer and replays results left in the spill file. */
+    void start();
+
+    /** Stops the background writer, saving or spilling the results that are still queued. */
+    void shutdown();
+}
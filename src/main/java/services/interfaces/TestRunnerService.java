@@ -1,5 +1,7 @@
 package services.interfaces;
 
+import dto.ExamProgressDTO;
+import dto.ResultDTO;
 import dto.TestProgressDTO;
 import dto.TestSessionDTO;
 import dto.UserDTO;
@@ -14,9 +16,15 @@ public interface TestRunnerService {
     /** Starts a test session for a user, providing the first question and end time. */
     TestSessionDTO startTest(UUID id, UserDTO userDTO);
 
+    /** Rebuilds a running test from its stored progress: the current question, or the last one once finished, and the end time. */
+    TestSessionDTO resumeTest(ExamProgressDTO progress);
+
     /** Checks if the test time, provided as an ISO-formatted string, has ended. */
     boolean checkTimeIsEnded(String endTime);
 
     /** Processes the user's answers to the current question and provides the next one, or finishes the test. */
     TestProgressDTO nextQuestion(TestProgressDTO testProgressDTO);
+
+    /** Builds the result of a finished test from its progress, or returns null if the test is not finished. */
+    ResultDTO buildResult(ExamProgressDTO progress);
 }
@@ -1,7 +1,9 @@
 package services.interfaces;
 
+import dto.PageDTO;
 import dto.QuestionDTO;
 import dto.TestDTO;
+import dto.TestSummaryDTO;
 import entity.Test;
 
 import java.util.List;
@@ -24,12 +26,30 @@ public interface TestService {
     /** Finds a test by its ID and returns it as a DTO. */
     TestDTO findDTOById(UUID id);
 
+    /** Finds a test by its ID in the snapshot cache, loading it only on a miss. */
+    TestDTO findCachedDTOById(UUID id);
+
+    /** Finds a test in the snapshot cache in at least the given version, reloading an older cached one. */
+    TestDTO findCachedDTOById(UUID id, Integer minVersion);
+
+    /** Reads the current version of a test from the database. */
+    Integer findVersion(UUID id);
+
+    /** Returns a version of the test catalog, shared by all nodes, that changes whenever any test is created, changed or deleted. */
+    String getCatalogVersion();
+
     /** Finds a test entity by its ID. */
     Test findTestById(UUID id);
 
     /** Returns all tests as a list of DTOs. */
     List<TestDTO> findAllTestsDTO();
 
+    /** Returns a page of the catalog, optionally filtered by topic and sorted by title or topic. */
+    PageDTO<TestSummaryDTO> findTestSummaryPage(String topic, String sort, String direction, String cursor);
+
+    /** Returns the distinct topics of all tests. */
+    List<String> findTopics();
+
     /** Updates a question and its answers within a test. */
     TestDTO updateQuestion(UUID testId, QuestionDTO questionDTO);
 
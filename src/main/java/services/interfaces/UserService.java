@@ -1,11 +1,14 @@
 package services.interfaces;
 
 import dto.UserDTO;
+import dto.UserImportReportDTO;
+import dto.UserImportRowDTO;
 import entity.User;
 import exceptions.AuthenticationException;
 import exceptions.DataAccessException;
 import exceptions.RegistrationException;
 
+import java.util.Iterator;
 import java.util.UUID;
 
 /**
@@ -16,10 +19,16 @@ public interface UserService {
     /** Registers a new user in the system. */
     UserDTO registerUser(UserDTO userDTO, String password) throws RegistrationException, DataAccessException;
 
-    /** Authenticates a user by username and password. */
-    UserDTO login(String username, String password) throws AuthenticationException, DataAccessException;
+    /** Registers the users of a bulk import, reporting the rows that could not be imported. */
+    UserImportReportDTO importUsers(Iterator<UserImportRowDTO> rows) throws DataAccessException;
+
+    /** Authenticates a user by username and password, throttling failed attempts per username and client address. */
+    UserDTO login(String username, String password, String clientAddress) throws AuthenticationException, DataAccessException;
 
     /** Finds a user entity by its ID. */
     User findUserById(UUID userId) throws DataAccessException;
 
+    /** Returns a reference to a user entity for attaching it to another entity, without loading it. */
+    User getUserReference(UUID userId) throws DataAccessException;
+
 }
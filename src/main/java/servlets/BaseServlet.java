@@ -1,13 +1,18 @@
 package servlets;
 
+import examstate.ExamStateStore;
 import exceptions.ValidationException;
 import services.interfaces.ResultService;
+import services.interfaces.ResultSubmissionService;
 import services.interfaces.TestRunnerService;
 import services.interfaces.TestService;
 import services.interfaces.UserService;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import constants.ServletPaths;
 import dto.AnswerDTO;
+import dto.ExamProgressDTO;
 import dto.UserDTO;
 import jakarta.servlet.ServletConfig;
 import jakarta.servlet.ServletException;
@@ -15,10 +20,17 @@ import jakarta.servlet.http.HttpServlet;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import jakarta.servlet.http.HttpSession;
+import servlets.filter.AuthenticationFilter;
+import servlets.filter.ExamStateFilter;
+import util.AuthTokens;
+import util.ClientAddressResolver;
+import util.ExamProgressCodec;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.stream.Stream;
 
 public class BaseServlet extends HttpServlet {
     protected UserService userService;
@@ -26,7 +38,12 @@ public class BaseServlet extends HttpServlet {
     protected ObjectMapper objectMapper;
     protected ResultService resultService;
     protected TestRunnerService testRunnerService;
+    protected ResultSubmissionService resultSubmissionService;
+    protected AuthTokens authTokens;
+    protected ExamStateStore examStateStore;
+    protected ClientAddressResolver clientAddressResolver;
     private static final int MAX_ANSWERS_PER_QUESTION = 10;
+    private static final int JSON_STREAM_FLUSH_INTERVAL = 100;
 
     /**
      * Initializes the base servlet and gets services from the application context
@@ -39,14 +56,17 @@ public class BaseServlet extends HttpServlet {
         objectMapper = (ObjectMapper) config.getServletContext().getAttribute("objectMapper");
         resultService = (ResultService) config.getServletContext().getAttribute("resultService");
         testRunnerService = (TestRunnerService) config.getServletContext().getAttribute("testRunnerService");
+        resultSubmissionService = (ResultSubmissionService) config.getServletContext().getAttribute("resultSubmissionService");
+        authTokens = (AuthTokens) config.getServletContext().getAttribute("authTokens");
+        examStateStore = (ExamStateStore) config.getServletContext().getAttribute("examStateStore");
+        clientAddressResolver = (ClientAddressResolver) config.getServletContext().getAttribute("clientAddressResolver");
     }
 
     /**
-     * Gets the current user from the HTTP session
+     * Gets the current user resolved by {@link AuthenticationFilter}
      */
     protected UserDTO getCurrentUser(HttpServletRequest request) {
-        HttpSession session = request.getSession();
-        return (UserDTO) session.getAttribute("user");
+        return (UserDTO) request.getAttribute(AuthenticationFilter.USER_ATTRIBUTE);
     }
 
     /**
@@ -94,7 +114,52 @@ public class BaseServlet extends HttpServlet {
     protected void sendJsonResponse(HttpServletResponse response, Object data) throws IOException {
         response.setContentType("application/json");
         response.setCharacterEncoding("UTF-8");
-        objectMapper.writeValue(response.getWriter(), data);
+        objectMapper.writeValue(response.getOutputStream(), data);
+    }
+
+    /**
+     * Sends a JSON array to the client item by item, so that the response starts
+     * before all items are read and memory does not grow with their number.
+     * Closes the stream when done.
+     */
+    protected void sendJsonStream(HttpServletResponse response, Stream<?> items) throws IOException {
+        response.setContentType("application/json");
+        response.setCharacterEncoding("UTF-8");
+        try (Stream<?> stream = items;
+             JsonGenerator generator = objectMapper.createGenerator(response.getOutputStream(), JsonEncoding.UTF8)) {
+            generator.writeStartArray();
+            Iterator<?> iterator = stream.iterator();
+            int written = 0;
+            while (iterator.hasNext()) {
+                generator.writeObject(iterator.next());
+                if (++written % JSON_STREAM_FLUSH_INTERVAL == 0) {
+                    generator.flush();
+                }
+            }
+            generator.writeEndArray();
+        }
+    }
+
+    /**
+     * Sets the ETag and Cache-Control headers and answers with 304 Not Modified
+     * if the client already has this version of the response.
+     * Returns true if the response has been completed.
+     */
+    protected boolean checkNotModified(HttpServletRequest request, HttpServletResponse response, String etag) {
+        response.setHeader("ETag", etag);
+        response.setHeader("Cache-Control", "private, no-cache");
+        String ifNoneMatch = request.getHeader("If-None-Match");
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*") || tag.equals(etag) || tag.equals("W/" + etag)) {
+                response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+                return true;
+            }
+        }
+        return false;
     }
 
     /**
@@ -135,30 +200,83 @@ public class BaseServlet extends HttpServlet {
     }
 
     /**
-     * Sets the current user in the HTTP session
+     * Sets the current user in the signed cookie in stateless mode, otherwise in the HTTP session
      */
-    protected void setCurrentUser(HttpServletRequest request, UserDTO user) {
-        request.getSession().setAttribute("user", user);
+    protected void setCurrentUser(HttpServletRequest request, HttpServletResponse response, UserDTO user) {
+        if (authTokens != null) {
+            authTokens.writeCookie(request, response, user);
+        } else {
+            request.getSession().setAttribute(AuthenticationFilter.USER_ATTRIBUTE, user);
+        }
+        request.setAttribute(AuthenticationFilter.USER_ATTRIBUTE, user);
+    }
+
+    /**
+     * Logs the current user out and drops the HTTP session
+     */
+    protected void clearCurrentUser(HttpServletRequest request, HttpServletResponse response) {
+        if (authTokens != null) {
+            authTokens.clearCookie(request, response);
+        }
+        HttpSession session = request.getSession(false);
+        if (session != null) {
+            session.invalidate();
+        }
+        request.removeAttribute(AuthenticationFilter.USER_ATTRIBUTE);
     }
 
     /**
-     * Sets session attributes for passing a test
+     * Saves the progress of a started test to the exam state store and keeps it in the session.
+     * The pages of the test resolve the question from the snapshot, see {@link ExamStateFilter}
      */
     protected void setTestSessionAttributes(HttpServletRequest request, dto.TestSessionDTO sessionAttributes) {
-        HttpSession session = request.getSession();
-        session.setAttribute("timeForTest", sessionAttributes.getRoundedEndTime());
-        session.setAttribute("currentQuestion", sessionAttributes.getCurrentQuestion());
-        session.setAttribute("result", sessionAttributes.getResult());
+        saveTestProgress(request, sessionAttributes.getProgress());
     }
 
     /**
-     * Updates session attributes during a test
+     * Saves the progress during a test to the exam state store and keeps it in the session
      */
     protected void updateTestProgress(HttpServletRequest request, dto.TestProgressDTO testProgress) {
-        HttpSession session = request.getSession();
-        session.setAttribute("result", testProgress.getResult());
-        if (!testProgress.isTestFinished()) {
-            session.setAttribute("currentQuestion", testProgress.getQuestion());
+        saveTestProgress(request, testProgress.getProgress());
+    }
+
+    private void saveTestProgress(HttpServletRequest request, ExamProgressDTO progress) {
+        examStateStore.save(progress);
+        request.setAttribute(ExamStateFilter.PROGRESS_ATTRIBUTE, progress);
+        request.getSession().setAttribute("progress", ExamProgressCodec.encode(progress));
+    }
+
+    /**
+     * Gets the running test resolved by {@link ExamStateFilter}, or null if the user has none
+     */
+    protected dto.TestSessionDTO getTestSession(HttpServletRequest request) {
+        return (dto.TestSessionDTO) request.getAttribute(ExamStateFilter.TEST_SESSION_ATTRIBUTE);
+    }
+
+    /**
+     * Gets the progress of the test being passed, as loaded by {@link ExamStateFilter} or from the exam state store
+     */
+    protected ExamProgressDTO getTestProgress(HttpServletRequest request) {
+        ExamProgressDTO progress = (ExamProgressDTO) request.getAttribute(ExamStateFilter.PROGRESS_ATTRIBUTE);
+        if (progress != null) {
+            return progress;
+        }
+        UserDTO user = getCurrentUser(request);
+        return user != null ? examStateStore.find(user.getId()).orElse(null) : null;
+    }
+
+    /**
+     * Removes the progress of the test being passed from the exam state store and the session
+     */
+    protected void removeTestProgress(HttpServletRequest request) {
+        UserDTO user = getCurrentUser(request);
+        if (user != null) {
+            examStateStore.remove(user.getId());
+        }
+        request.removeAttribute(ExamStateFilter.PROGRESS_ATTRIBUTE);
+        HttpSession session = request.getSession(false);
+        if (session != null) {
+            session.removeAttribute("progress");
         }
     }
 
@@ -184,12 +302,13 @@ public class BaseServlet extends HttpServlet {
      */
     protected void clearSessionData(HttpServletRequest request) {
         HttpSession session = request.getSession(false);
+        // A test is shown in the session only while it runs, so other pages do not wait for the store
+        if (session != null && session.getAttribute("progress") != null) {
+            removeTestProgress(request);
+        }
         if (session != null) {
             session.removeAttribute("currentTest");
-            session.removeAttribute("currentQuestion");
-            session.removeAttribute("result");
-            session.removeAttribute("timeForTest");
-            session.removeAttribute("testTimeOut");
+            session.removeAttribute("progress");
         }
     }
 
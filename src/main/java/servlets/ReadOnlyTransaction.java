@@ -0,0 +1,18 @@
+package servlets;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a servlet handler method such as {@code doGet} that only reads from the database.
+ * The transaction filter runs such requests in a read-only session with manual flushing
+ * on a read-only JDBC connection, so loaded entities are neither snapshotted nor dirty-checked.
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ReadOnlyTransaction {
+}
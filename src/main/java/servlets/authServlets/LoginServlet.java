@@ -20,8 +20,8 @@ public class LoginServlet extends BaseServlet {
 
     @Override
     protected void doPost(HttpServletRequest req, HttpServletResponse resp) throws IOException {
-        UserDTO userDTO = userService.login(getParam(req, "username"), getParam(req, "password"));
-        setCurrentUser(req, userDTO);
+        UserDTO userDTO = userService.login(getParam(req, "username"), getParam(req, "password"), clientAddressResolver.resolve(req));
+        setCurrentUser(req, resp, userDTO);
         redirectTo(resp, ServletPaths.MENU_PATH);
     }
 }
@@ -13,7 +13,7 @@ import java.io.IOException;
 public class LogoutServlet extends BaseServlet {
     @Override
     protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
-        req.getSession().invalidate();
+        clearCurrentUser(req, resp);
         redirectTo(resp, ServletPaths.INDEX_JSP);
     }
 }
@@ -0,0 +1,35 @@
+package servlets.authServlets;
+
+import servlets.BaseServlet;
+import constants.ServletPaths;
+import dto.UserImportRowDTO;
+import jakarta.servlet.annotation.WebServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import util.UserImportReader;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+
+/**
+ * Registers a cohort of users from an uploaded body: a JSON array when sent as application/json,
+ * otherwise {@code username,password} CSV lines. Answers with the import report as JSON.
+ */
+@WebServlet(urlPatterns = ServletPaths.ADMIN_IMPORT_USERS_PATH)
+public class UserImportServlet extends BaseServlet {
+    @Override
+    protected void doPost(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+        Iterator<UserImportRowDTO> rows;
+        String contentType = req.getContentType();
+        if (contentType != null && contentType.startsWith("application/json")) {
+            rows = UserImportReader.fromJson(req.getInputStream(), objectMapper);
+        } else {
+            if (req.getCharacterEncoding() == null) {
+                req.setCharacterEncoding(StandardCharsets.UTF_8.name());
+            }
+            rows = UserImportReader.fromCsv(req.getReader());
+        }
+        sendJsonResponse(resp, userService.importUsers(rows));
+    }
+}
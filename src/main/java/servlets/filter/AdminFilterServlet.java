@@ -7,7 +7,6 @@ import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpFilter;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import jakarta.servlet.http.HttpSession;
 
 import java.io.IOException;
 
@@ -18,8 +17,7 @@ public class AdminFilterServlet extends HttpFilter {
     protected void doFilter(HttpServletRequest request, HttpServletResponse response, FilterChain chain) 
             throws IOException, ServletException {
         
-        HttpSession session = request.getSession(false);
-        UserDTO user = session != null ? (UserDTO) session.getAttribute("user") : null;
+        UserDTO user = (UserDTO) request.getAttribute(AuthenticationFilter.USER_ATTRIBUTE);
         
         if (user == null || !"ADMIN".equals(user.getRole())) {
             response.sendRedirect(request.getContextPath() + ServletPaths.MENU_PATH);
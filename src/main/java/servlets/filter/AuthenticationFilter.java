@@ -0,0 +1,45 @@
+package servlets.filter;
+
+import dto.UserDTO;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpFilter;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpSession;
+import util.AuthTokens;
+
+import java.io.IOException;
+
+/**
+ * Resolves the current user once per request and puts it into the "user" request attribute.
+ * The user comes from the signed cookie when stateless authentication is configured,
+ * otherwise from the HTTP session.
+ */
+public class AuthenticationFilter extends HttpFilter {
+    public static final String USER_ATTRIBUTE = "user";
+
+    private AuthTokens authTokens;
+
+    @Override
+    public void init() {
+        authTokens = (AuthTokens) getServletContext().getAttribute("authTokens");
+    }
+
+    @Override
+    protected void doFilter(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws IOException, ServletException {
+        UserDTO user;
+        if (authTokens != null) {
+            user = authTokens.readCookie(request, response).orElse(null);
+        } else {
+            HttpSession session = request.getSession(false);
+            user = session != null ? (UserDTO) session.getAttribute(USER_ATTRIBUTE) : null;
+        }
+
+        if (user != null) {
+            request.setAttribute(USER_ATTRIBUTE, user);
+        }
+        chain.doFilter(request, response);
+    }
+}
@@ -10,12 +10,17 @@ import lombok.extern.slf4j.Slf4j;
 import java.io.IOException;
 @Slf4j
 public class ErrorHandlingFilter extends HttpFilter {
-    
+    private static final String RETRY_AFTER_SECONDS = "1";
 
     @Override
     protected void doFilter(HttpServletRequest req, HttpServletResponse resp, FilterChain chain) throws IOException {
         try {
             chain.doFilter(req, resp);
+        } catch (ServiceBusyException e) {
+            log.warn("Rejected request {} under load: {}", req.getRequestURI(), e.getMessage());
+
+            resp.setHeader("Retry-After", RETRY_AFTER_SECONDS);
+            resp.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE, e.getMessage());
         } catch (AuthenticationException e) {
             log.warn("Authentication failed for request {}: {}", req.getRequestURI(), e.getMessage());
 
@@ -0,0 +1,63 @@
+package servlets.filter;
+
+import dto.ExamProgressDTO;
+import dto.UserDTO;
+import examstate.ExamStateStore;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpFilter;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpSession;
+import services.interfaces.TestRunnerService;
+import util.ExamProgressCodec;
+
+import java.io.IOException;
+import java.util.Optional;
+
+/**
+ * Loads the running test of the user before a test page or an answer is handled.
+ * The HTTP session holds only the compact progress record, which is written together with the exam state store,
+ * so it is served from the session and the store is only read when the session does not have it,
+ * e.g. after the user has been moved to another node. The test title, the current question and the
+ * end time are resolved from the shared test snapshot on every request and handed over as request attributes.
+ */
+public class ExamStateFilter extends HttpFilter {
+    public static final String PROGRESS_ATTRIBUTE = "examProgress";
+    public static final String TEST_SESSION_ATTRIBUTE = "testSession";
+
+    private ExamStateStore examStateStore;
+    private TestRunnerService testRunnerService;
+
+    @Override
+    public void init() {
+        examStateStore = (ExamStateStore) getServletContext().getAttribute("examStateStore");
+        testRunnerService = (TestRunnerService) getServletContext().getAttribute("testRunnerService");
+    }
+
+    @Override
+    protected void doFilter(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws IOException, ServletException {
+        UserDTO user = (UserDTO) request.getAttribute(AuthenticationFilter.USER_ATTRIBUTE);
+        if (user != null) {
+            findProgress(request, user).ifPresent(progress -> {
+                request.setAttribute(PROGRESS_ATTRIBUTE, progress);
+                request.setAttribute(TEST_SESSION_ATTRIBUTE, testRunnerService.resumeTest(progress));
+            });
+        }
+        chain.doFilter(request, response);
+    }
+
+    private Optional<ExamProgressDTO> findProgress(HttpServletRequest request, UserDTO user) {
+        HttpSession session = request.getSession(false);
+        if (session != null && session.getAttribute("progress") instanceof byte[] encoded) {
+            ExamProgressDTO progress = ExamProgressCodec.decode(encoded);
+            if (user.getId().equals(progress.getUserId())) {
+                return Optional.of(progress);
+            }
+        }
+        Optional<ExamProgressDTO> progress = examStateStore.find(user.getId());
+        progress.ifPresent(found -> request.getSession().setAttribute("progress", ExamProgressCodec.encode(found)));
+        return progress;
+    }
+}
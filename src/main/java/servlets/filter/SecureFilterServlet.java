@@ -5,7 +5,6 @@ import jakarta.servlet.*;
 import jakarta.servlet.http.HttpFilter;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import jakarta.servlet.http.HttpSession;
 
 import java.io.IOException;
 
@@ -15,8 +14,7 @@ public class SecureFilterServlet extends HttpFilter {
     protected void doFilter(HttpServletRequest request, HttpServletResponse response, FilterChain chain) 
             throws IOException, ServletException {
         
-        HttpSession session = request.getSession(false);
-        UserDTO user = session != null ? (UserDTO) session.getAttribute("user") : null;
+        UserDTO user = (UserDTO) request.getAttribute(AuthenticationFilter.USER_ATTRIBUTE);
         
         if (user == null) {
             response.sendRedirect(request.getContextPath() + ServletPaths.LOGIN_PATH);
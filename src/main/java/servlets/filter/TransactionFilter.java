@@ -2,18 +2,32 @@ package servlets.filter;
 
 import exceptions.BusinessException;
 import jakarta.servlet.*;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletMapping;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.extern.slf4j.Slf4j;
 import org.hibernate.Session;
 import org.hibernate.SessionFactory;
 import org.hibernate.Transaction;
+import servlets.ReadOnlyTransaction;
 import util.HibernateSessionManager;
 import util.HibernateUtil;
 
 import java.io.IOException;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * Runs every request in one Hibernate transaction.
+ * The session is opened only when the request first reaches the database.
+ * Requests handled by a servlet method marked with {@link ReadOnlyTransaction} get a read-only session.
+ */
 @Slf4j
 public class TransactionFilter implements Filter {
 
+    private final Map<String, Boolean> readOnlyHandlers = new ConcurrentHashMap<>();
     private SessionFactory sessionFactory;
 
     @Override
@@ -24,38 +38,78 @@ public class TransactionFilter implements Filter {
     @Override
     public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
             throws ServletException {
-        
-        Session session = null;
-        Transaction transaction = null;
 
-        try {
-            session = sessionFactory.openSession();
-            transaction = session.beginTransaction();
-
-            HibernateSessionManager.setSession(session);
+        HibernateSessionManager.bind(sessionFactory, isReadOnly(request));
 
+        try {
             chain.doFilter(request, response);
 
-            if (transaction != null && transaction.isActive()) {
+            Transaction transaction = getActiveTransaction();
+            if (transaction != null) {
                 transaction.commit();
             }
+            HibernateSessionManager.executeAfterCommitActions();
         } catch (BusinessException e) {
-            if (transaction != null && transaction.isActive()) {
-                transaction.rollback();
-            }
+            rollback();
             log.warn("A business exception occurred, rolling back transaction: {}", e.getMessage());
             throw e;
         } catch (Exception e) {
-            if (transaction != null && transaction.isActive()) {
-                transaction.rollback();
-            }
+            rollback();
             log.error("A critical error occurred, rolling back transaction", e);
             throw new ServletException("A critical error occurred during the transaction.", e);
         } finally {
-            if (session != null) {
-                HibernateSessionManager.clearSession();
-                session.close();
+            HibernateSessionManager.closeSession();
+        }
+    }
+
+    private boolean isReadOnly(ServletRequest request) {
+        if (!(request instanceof HttpServletRequest httpRequest)) {
+            return false;
+        }
+        HttpServletMapping mapping = httpRequest.getHttpServletMapping();
+        if (mapping == null || mapping.getServletName() == null) {
+            return false;
+        }
+        String method = "HEAD".equals(httpRequest.getMethod()) ? "GET" : httpRequest.getMethod();
+        return readOnlyHandlers.computeIfAbsent(mapping.getServletName() + " " + method,
+                key -> hasReadOnlyHandler(request.getServletContext(), mapping.getServletName(), method));
+    }
+
+    private boolean hasReadOnlyHandler(ServletContext servletContext, String servletName, String method) {
+        ServletRegistration registration = servletContext.getServletRegistration(servletName);
+        if (registration == null || registration.getClassName() == null) {
+            return false;
+        }
+        String handlerName = "do" + method.charAt(0) + method.substring(1).toLowerCase(Locale.ROOT);
+        try {
+            Class<?> servletClass = Class.forName(registration.getClassName(), false, servletContext.getClassLoader());
+            for (Class<?> type = servletClass; type != null && type != HttpServlet.class; type = type.getSuperclass()) {
+                try {
+                    return type.getDeclaredMethod(handlerName, HttpServletRequest.class, HttpServletResponse.class)
+                            .isAnnotationPresent(ReadOnlyTransaction.class);
+                } catch (NoSuchMethodException ignored) {
+                    // the handler is inherited from the superclass
+                }
             }
+        } catch (ClassNotFoundException e) {
+            log.warn("Servlet class {} could not be loaded", registration.getClassName());
+        }
+        return false;
+    }
+
+    private Transaction getActiveTransaction() {
+        Session session = HibernateSessionManager.getOpenSession();
+        if (session == null) {
+            return null;
+        }
+        Transaction transaction = session.getTransaction();
+        return transaction != null && transaction.isActive() ? transaction : null;
+    }
+
+    private void rollback() {
+        Transaction transaction = getActiveTransaction();
+        if (transaction != null) {
+            transaction.rollback();
         }
     }
 }
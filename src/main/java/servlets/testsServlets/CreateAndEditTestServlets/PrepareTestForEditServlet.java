@@ -1,6 +1,7 @@
 package servlets.testsServlets.CreateAndEditTestServlets;
 
 import servlets.BaseServlet;
+import servlets.ReadOnlyTransaction;
 import constants.ServletPaths;
 import dto.TestDTO;
 import jakarta.servlet.annotation.WebServlet;
@@ -14,6 +15,7 @@ import java.util.UUID;
 public class PrepareTestForEditServlet extends BaseServlet {
 
     @Override
+    @ReadOnlyTransaction
     protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws IOException {
         if (!checkAdminRightsAndSendError(req, resp)) {
             return;
@@ -1,50 +1,64 @@
 package servlets.testsServlets.CreateAndEditTestServlets;
 
 import servlets.BaseServlet;
+import servlets.ReadOnlyTransaction;
 import constants.ServletPaths;
+import dto.PageDTO;
 import dto.ResultDTO;
 import dto.TestDTO;
+import dto.TestSummaryDTO;
 import dto.UserDTO;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.annotation.WebServlet;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import jakarta.servlet.http.HttpSession;
 
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.List;
 import java.util.UUID;
 
 @WebServlet(urlPatterns = ServletPaths.TESTS_PATTERN_PATH)
 public class TestServlet extends BaseServlet {
     @Override
+    @ReadOnlyTransaction
     protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws IOException {
         String pathInfo = req.getPathInfo();
 
-        if (pathInfo == null || pathInfo.equals("/")) {
-            List<TestDTO> allTestsDTO = testService.findAllTestsDTO();
-            sendJsonResponse(resp, allTestsDTO);
+        if (pathInfo == null || pathInfo.equals("/") || pathInfo.equals("/topics")) {
+            // The version is read before the data, so a concurrent change can only make the ETag older than the body
+            if (checkNotModified(req, resp, "\"catalog-" + testService.getCatalogVersion() + "\"")) {
+                return;
+            }
+            if (pathInfo != null && pathInfo.equals("/topics")) {
+                sendJsonResponse(resp, testService.findTopics());
+                return;
+            }
+            PageDTO<TestSummaryDTO> page = testService.findTestSummaryPage(getParam(req, "topic"),
+                    getParam(req, "sort"), getParam(req, "dir"), getParam(req, "after"));
+            sendJsonResponse(resp, page);
             return;
         }
 
-        String id = pathInfo.substring(1).trim();
-        TestDTO testDTO = testService.findDTOById(UUID.fromString(id));
-        sendJsonResponse(resp, testDTO);
+        UUID testId = UUID.fromString(pathInfo.substring(1).trim());
+        Integer version = testService.findVersion(testId);
+        if (checkNotModified(req, resp, "\"test-" + testId + "-" + version + "\"")) {
+            return;
+        }
+        sendJsonResponse(resp, testService.findCachedDTOById(testId, version));
     }
 
     @Override
     protected void doPost(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
         String pathInfo = req.getPathInfo();
         if (pathInfo != null && pathInfo.endsWith("/submit")) {
-            HttpSession session = req.getSession();
-            ResultDTO resultDTO = (ResultDTO) session.getAttribute("result");
+            ResultDTO resultDTO = testRunnerService.buildResult(getTestProgress(req));
 
             if (resultDTO == null) {
                 forwardTo(req, resp, ServletPaths.MENU_PATH);
                 return;
             }
-            resultService.buildAndSaveFinalResult(resultDTO);
+            resultSubmissionService.submit(resultDTO);
+            removeTestProgress(req);
             setSessionSuccess(req, "Test submitted successfully!");
             redirectTo(resp, ServletPaths.MENU_PATH);
             return;
@@ -0,0 +1,24 @@
+package servlets.testsServlets;
+
+import servlets.BaseServlet;
+import servlets.ReadOnlyTransaction;
+import constants.ServletPaths;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.annotation.WebServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+
+/**
+ * Exports all test results as a JSON array, streamed row by row from the database.
+ */
+@WebServlet(urlPatterns = ServletPaths.ADMIN_EXPORT_RESULTS_PATH)
+public class ResultExportServlet extends BaseServlet {
+    @Override
+    @ReadOnlyTransaction
+    protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
+        resp.setHeader("Content-Disposition", "attachment; filename=\"results.json\"");
+        sendJsonStream(resp, resultService.streamResultsForExport());
+    }
+}
@@ -1,13 +1,15 @@
 package servlets.testsServlets;
 
 import servlets.BaseServlet;
+import servlets.ReadOnlyTransaction;
 import constants.ServletPaths;
+import dto.PageDTO;
 import dto.ResultDTO;
+import dto.ResultSummaryDTO;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.annotation.WebServlet;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import jakarta.servlet.http.HttpSession;
 
 import java.io.IOException;
 import java.util.*;
@@ -15,16 +17,19 @@ import java.util.*;
 @WebServlet(urlPatterns = ServletPaths.RESULTS_PATTERN_PATH)
 public class TestPassingHistoryServlet extends BaseServlet {
     @Override
+    @ReadOnlyTransaction
     protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
         if(!checkAuthenticationAndRedirect(req, resp)){
             return;
         }
-        HttpSession session = req.getSession();
         String pathInfo = req.getPathInfo();
         if (pathInfo == null || "/".equals(pathInfo) || pathInfo.isEmpty()) {
-            List<ResultDTO> results = resultService.getAllResultsByUserId(getCurrentUser(req).getId());
-            session.setAttribute("results", results);
-            redirectTo(resp, ServletPaths.TEST_HISTORY_JSP);
+            String cursor = getParam(req, "after");
+            PageDTO<ResultSummaryDTO> page = resultService.getResultHistoryPage(getCurrentUser(req).getId(), cursor);
+            req.setAttribute("results", page.getItems());
+            req.setAttribute("nextCursor", page.getNextCursor());
+            req.setAttribute("firstPage", cursor == null);
+            forwardTo(req, resp, ServletPaths.TEST_HISTORY_JSP);
         } else {
             String id = pathInfo.substring(1).trim();
             ResultDTO resultDTO = resultService.findByIdWithDetails(UUID.fromString(id));
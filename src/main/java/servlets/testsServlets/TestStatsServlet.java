@@ -1,24 +1,28 @@
 package servlets.testsServlets;
 
 import servlets.BaseServlet;
+import servlets.ReadOnlyTransaction;
 import constants.ServletPaths;
-import dto.TestStatsDTO;
+import dto.TestStatsReportDTO;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.annotation.WebServlet;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import util.HibernateUtil;
+import util.LoginThrottle;
 
 import java.io.IOException;
-import java.util.List;
 
 @WebServlet(urlPatterns = ServletPaths.ADMIN_STATS_PATH)
 public class TestStatsServlet extends BaseServlet {
     @Override
+    @ReadOnlyTransaction
     protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
-        List<TestStatsDTO> stats = resultService.getStats();
-        Long attempts = resultService.countAttempts();
-        req.setAttribute("stats", stats);
-        req.setAttribute("attempts", attempts);
+        TestStatsReportDTO report = resultService.getStatsReport();
+        req.setAttribute("stats", report.getStats());
+        req.setAttribute("attempts", report.getAttempts());
+        req.setAttribute("cacheStats", HibernateUtil.getCacheStats());
+        req.setAttribute("loginStats", ((LoginThrottle) getServletContext().getAttribute("loginThrottle")).getStats());
         forwardTo(req, resp, ServletPaths.ADMIN_STATS_JSP);
 
     }
@@ -2,51 +2,53 @@ package servlets.testsServlets.passingTestsServlet;
 
 import constants.ServletPaths;
 import dto.QuestionDTO;
-import dto.ResultDTO;
 import dto.TestProgressDTO;
+import dto.TestSessionDTO;
 import jakarta.servlet.annotation.WebServlet;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import jakarta.servlet.http.HttpSession;
 import servlets.BaseServlet;
 
 import java.io.IOException;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.UUID;
 
 @WebServlet(urlPatterns = ServletPaths.NEXT_QUESTION_PATH)
 public class NextQuestionServlet extends BaseServlet {
     @Override
     protected void doPost(HttpServletRequest req, HttpServletResponse resp) throws IOException {
-        HttpSession session = req.getSession();
-        String timeForTest = (String) session.getAttribute("timeForTest");
+        TestSessionDTO testSession = getTestSession(req);
 
-        if (testRunnerService.checkTimeIsEnded(timeForTest)) {
-            session.setAttribute("testTimeOut", true);
+        if (testSession == null) {
+            redirectTo(resp, ServletPaths.PASSING_TEST_JSP);
+        } else if (testSession.isTestTimeOut()) {
             setSessionError(req, "Time is out");
             redirectTo(resp, ServletPaths.PASSING_TEST_JSP);
         } else {
-                String[] selectedAnswers = req.getParameterValues("selectedAnswers");
+            String[] selectedAnswers = req.getParameterValues("selectedAnswers");
             List<String> selected = selectedAnswers != null ? Arrays.asList(selectedAnswers) : Collections.emptyList();
-                QuestionDTO currentQuestionDTO = (QuestionDTO) session.getAttribute("currentQuestion");
-                ResultDTO resultDTO = (ResultDTO) session.getAttribute("result");
-
-                TestProgressDTO testProgressDTOBuild = TestProgressDTO.builder()
-                        .result(resultDTO)
-                        .question(currentQuestionDTO)
-                        .answers(selected)
-                        .build();
+            // The form names the question it answers, so a resubmitted page is not taken for the next question
+            String questionId = getParam(req, "questionId");
+            QuestionDTO question = questionId != null
+                    ? QuestionDTO.builder().id(UUID.fromString(questionId)).build()
+                    : testSession.getCurrentQuestion();
+
+            TestProgressDTO testProgressDTOBuild = TestProgressDTO.builder()
+                    .progress(testSession.getProgress())
+                    .question(question)
+                    .answers(selected)
+                    .build();
             TestProgressDTO UpdatedTestProgressDTO = testRunnerService.nextQuestion(testProgressDTOBuild);
 
-                updateTestProgress(req, UpdatedTestProgressDTO);
-
-                if (UpdatedTestProgressDTO.isTestFinished()) {
-                    redirectTo(resp, ServletPaths.TEST_END_RESULT_JSP);
-                } else {
-                    redirectTo(resp, ServletPaths.PASSING_TEST_JSP);
-                }
+            updateTestProgress(req, UpdatedTestProgressDTO);
 
+            if (UpdatedTestProgressDTO.isTestFinished()) {
+                redirectTo(resp, ServletPaths.TEST_END_RESULT_JSP);
+            } else {
+                redirectTo(resp, ServletPaths.PASSING_TEST_JSP);
+            }
         }
     }
 }
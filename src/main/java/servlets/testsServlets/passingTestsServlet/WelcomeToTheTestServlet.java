@@ -1,6 +1,7 @@
 package servlets.testsServlets.passingTestsServlet;
 
 import servlets.BaseServlet;
+import servlets.ReadOnlyTransaction;
 import constants.ServletPaths;
 import dto.TestDTO;
 import jakarta.servlet.ServletException;
@@ -14,10 +15,11 @@ import java.util.UUID;
 @WebServlet(ServletPaths.WELCOME_TO_TEST_PATH)
 public class WelcomeToTheTestServlet extends BaseServlet {
     @Override
+    @ReadOnlyTransaction
     protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
         String id = getParam(req, "id");
         TestDTO currentTestDTO = testService.findDTOById(UUID.fromString(id));
-        setCurrentTest(req, currentTestDTO);
+        req.setAttribute("currentTest", currentTestDTO);
         forwardTo(req, resp, ServletPaths.TEST_WELCOME_PAGE_JSP);
     }
 }
@@ -0,0 +1,221 @@
+package util;
+
+import dto.UserDTO;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Stateless authentication: the user id, username, role and expiry travel in an HMAC-SHA256 signed cookie,
+ * so any node can authenticate a request without the HTTP session or the database.
+ * Every token names the key it was signed with. Several keys can be configured at once: tokens are signed
+ * with the first one and accepted with any of them, and a token signed with an older key is reissued.
+ * A token cannot be revoked; a changed role or a logout on another device takes effect when it expires.
+ */
+@Slf4j
+public class AuthTokens {
+    public static final String COOKIE_NAME = "AUTH";
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+    private static final byte FORMAT_VERSION = 1;
+    private static final int MAX_FIELD_BYTES = 0xFFFF;
+    private static final int MIN_KEY_BYTES = 32;
+    private static final Base64.Encoder BASE64 = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder BASE64_DECODER = Base64.getUrlDecoder();
+
+    private final Map<String, SecretKeySpec> keys;
+    private final String currentKeyId;
+    private final Duration ttl;
+
+    /**
+     * @param keySpec comma-separated {@code keyId:base64Secret} pairs, the first one signs new tokens
+     */
+    public AuthTokens(String keySpec, Duration ttl) {
+        this.keys = parseKeys(keySpec);
+        this.currentKeyId = keys.keySet().iterator().next();
+        this.ttl = ttl;
+    }
+
+    /**
+     * Sets the cookie with a fresh token for the user.
+     */
+    public void writeCookie(HttpServletRequest request, HttpServletResponse response, UserDTO user) {
+        response.addCookie(cookie(request, issue(user, Instant.now()), (int) ttl.toSeconds()));
+    }
+
+    public void clearCookie(HttpServletRequest request, HttpServletResponse response) {
+        response.addCookie(cookie(request, "", 0));
+    }
+
+    /**
+     * Returns the user of a valid token cookie. An invalid cookie is cleared, and a token past half
+     * of its lifetime or signed with an older key is reissued, so active users stay logged in.
+     */
+    public Optional<UserDTO> readCookie(HttpServletRequest request, HttpServletResponse response) {
+        String token = getCookieValue(request);
+        if (token == null) {
+            return Optional.empty();
+        }
+        Instant now = Instant.now();
+        Optional<Token> verified = verify(token, now);
+        if (verified.isEmpty()) {
+            clearCookie(request, response);
+            return Optional.empty();
+        }
+        Token parsed = verified.get();
+        if (!parsed.keyId.equals(currentKeyId) || parsed.expiresAt.isBefore(now.plus(ttl.dividedBy(2)))) {
+            writeCookie(request, response, parsed.user);
+        }
+        return Optional.of(parsed.user);
+    }
+
+    String issue(UserDTO user, Instant now) {
+        byte[] keyId = currentKeyId.getBytes(StandardCharsets.UTF_8);
+        byte[] username = user.getUsername().getBytes(StandardCharsets.UTF_8);
+        byte[] role = user.getRole().getBytes(StandardCharsets.UTF_8);
+        ByteBuffer payload = ByteBuffer.allocate(1 + 2 + keyId.length + 16 + 8 + 2 + role.length + 2 + username.length);
+        payload.put(FORMAT_VERSION);
+        putBytes(payload, keyId);
+        payload.putLong(user.getId().getMostSignificantBits());
+        payload.putLong(user.getId().getLeastSignificantBits());
+        payload.putLong(now.plus(ttl).getEpochSecond());
+        putBytes(payload, role);
+        putBytes(payload, username);
+
+        byte[] bytes = payload.array();
+        return BASE64.encodeToString(bytes) + "." + BASE64.encodeToString(sign(keys.get(currentKeyId), bytes));
+    }
+
+    Optional<Token> verify(String token, Instant now) {
+        int dot = token.indexOf('.');
+        if (dot < 0) {
+            return Optional.empty();
+        }
+        try {
+            byte[] payload = BASE64_DECODER.decode(token.substring(0, dot));
+            byte[] signature = BASE64_DECODER.decode(token.substring(dot + 1));
+            ByteBuffer buffer = ByteBuffer.wrap(payload);
+            if (buffer.get() != FORMAT_VERSION) {
+                return Optional.empty();
+            }
+            String keyId = getString(buffer);
+            SecretKeySpec key = keys.get(keyId);
+            if (key == null || !MessageDigest.isEqual(sign(key, payload), signature)) {
+                log.debug("Rejected an authentication token signed with key '{}'", keyId);
+                return Optional.empty();
+            }
+            UUID userId = new UUID(buffer.getLong(), buffer.getLong());
+            Instant expiresAt = Instant.ofEpochSecond(buffer.getLong());
+            String role = getString(buffer);
+            String username = getString(buffer);
+            if (!expiresAt.isAfter(now)) {
+                return Optional.empty();
+            }
+            UserDTO user = UserDTO.builder().id(userId).username(username).role(role).build();
+            return Optional.of(new Token(user, keyId, expiresAt));
+        } catch (IllegalArgumentException | BufferUnderflowException e) {
+            return Optional.empty();
+        }
+    }
+
+    private Cookie cookie(HttpServletRequest request, String value, int maxAgeSeconds) {
+        Cookie cookie = new Cookie(COOKIE_NAME, value);
+        cookie.setPath("/");
+        cookie.setHttpOnly(true);
+        cookie.setSecure(request.isSecure());
+        cookie.setMaxAge(maxAgeSeconds);
+        cookie.setAttribute("SameSite", "Lax");
+        return cookie;
+    }
+
+    private static String getCookieValue(HttpServletRequest request) {
+        Cookie[] cookies = request.getCookies();
+        if (cookies == null) {
+            return null;
+        }
+        for (Cookie cookie : cookies) {
+            if (COOKIE_NAME.equals(cookie.getName()) && !cookie.getValue().isEmpty()) {
+                return cookie.getValue();
+            }
+        }
+        return null;
+    }
+
+    private static byte[] sign(SecretKeySpec key, byte[] payload) {
+        try {
+            Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(key);
+            return mac.doFinal(payload);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Failed to sign the authentication token", e);
+        }
+    }
+
+    /**
+     * Writes the length as an unsigned short followed by the bytes; longer values are refused, not wrapped around.
+     */
+    private static void putBytes(ByteBuffer buffer, byte[] bytes) {
+        if (bytes.length > MAX_FIELD_BYTES) {
+            throw new IllegalArgumentException("Authentication token field is longer than " + MAX_FIELD_BYTES + " bytes");
+        }
+        buffer.putShort((short) bytes.length);
+        buffer.put(bytes);
+    }
+
+    /**
+     * Reads a value written by {@link #putBytes}.
+     */
+    private static String getString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getShort() & 0xFFFF];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static Map<String, SecretKeySpec> parseKeys(String keySpec) {
+        Map<String, SecretKeySpec> keys = new LinkedHashMap<>();
+        for (String entry : keySpec.split(",")) {
+            int colon = entry.indexOf(':');
+            if (colon <= 0) {
+                throw new IllegalArgumentException("Authentication keys must be given as keyId:base64Secret");
+            }
+            byte[] secret = Base64.getDecoder().decode(entry.substring(colon + 1).trim());
+            if (secret.length < MIN_KEY_BYTES) {
+                throw new IllegalArgumentException("Authentication key '" + entry.substring(0, colon).trim()
+                        + "' must be at least " + MIN_KEY_BYTES + " bytes long");
+            }
+            keys.put(entry.substring(0, colon).trim(), new SecretKeySpec(secret, HMAC_ALGORITHM));
+        }
+        return keys;
+    }
+
+    static final class Token {
+        private final UserDTO user;
+        private final String keyId;
+        private final Instant expiresAt;
+
+        private Token(UserDTO user, String keyId, Instant expiresAt) {
+            this.user = user;
+            this.keyId = keyId;
+            this.expiresAt = expiresAt;
+        }
+
+        UserDTO getUser() {
+            return user;
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package util;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Resolves the address of the client that sent a request.
+ * X-Forwarded-For is only read when the request comes from one of the configured trusted proxies, and then the
+ * right-most hop that is not a trusted proxy is taken, so a client cannot pick its own address by sending the header.
+ * With no trusted proxies the remote address of the connection is used as is.
+ */
+public class ClientAddressResolver {
+    private static final String FORWARDED_FOR_HEADER = "X-Forwarded-For";
+
+    private final Set<String> trustedProxies;
+
+    public ClientAddressResolver(Set<String> trustedProxies) {
+        this.trustedProxies = Set.copyOf(trustedProxies);
+    }
+
+    /**
+     * Creates a resolver from a comma separated list of proxy addresses; null or blank means no trusted proxies.
+     */
+    public static ClientAddressResolver fromList(String trustedProxies) {
+        if (trustedProxies == null || trustedProxies.isBlank()) {
+            return new ClientAddressResolver(Collections.emptySet());
+        }
+        return new ClientAddressResolver(Arrays.stream(trustedProxies.split(","))
+                .map(String::trim)
+                .filter(address -> !address.isEmpty())
+                .collect(Collectors.toSet()));
+    }
+
+    public String resolve(HttpServletRequest request) {
+        String remoteAddress = request.getRemoteAddr();
+        if (!trustedProxies.contains(remoteAddress)) {
+            return remoteAddress;
+        }
+        List<String> hops = forwardedHops(request);
+        for (int i = hops.size() - 1; i >= 0; i--) {
+            if (!trustedProxies.contains(hops.get(i))) {
+                return hops.get(i);
+            }
+        }
+        return hops.isEmpty() ? remoteAddress : hops.get(0);
+    }
+
+    private static List<String> forwardedHops(HttpServletRequest request) {
+        List<String> hops = new ArrayList<>();
+        Enumeration<String> headers = request.getHeaders(FORWARDED_FOR_HEADER);
+        while (headers != null && headers.hasMoreElements()) {
+            for (String hop : headers.nextElement().split(",")) {
+                if (!hop.isBlank()) {
+                    hops.add(hop.trim());
+                }
+            }
+        }
+        return hops;
+    }
+}
@@ -0,0 +1,44 @@
+package util;
+
+import exceptions.ServiceBusyException;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Admission limiter in front of the connection pool.
+ * It hands out as many permits as the pool has connections left after those reserved for background workers,
+ * so that requests beyond that wait on a fair semaphore, which parks a virtual thread cheaply,
+ * instead of queueing inside the pool and failing on its connection timeout.
+ */
+public class ConnectionLimiter {
+    private final Semaphore permits;
+    private final long timeoutMillis;
+
+    public ConnectionLimiter(int maxConcurrency, long timeoutMillis) {
+        this.permits = new Semaphore(maxConcurrency, true);
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    /**
+     * Waits for a permit, throwing {@link ServiceBusyException} if none becomes free in time.
+     */
+    public void acquire() {
+        try {
+            if (!permits.tryAcquire(timeoutMillis, TimeUnit.MILLISECONDS)) {
+                throw new ServiceBusyException("The server is busy. Please try again in a moment.");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServiceBusyException("Interrupted while waiting for a database connection.", e);
+        }
+    }
+
+    public void release() {
+        permits.release();
+    }
+
+    public int getAvailablePermits() {
+        return permits.availablePermits();
+    }
+}
@@ -0,0 +1,110 @@
+package util;
+
+import dto.ExamProgressDTO;
+import exceptions.ValidationException;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.UUID;
+
+/**
+ * Binary encoding of the exam progress kept in the HTTP session.
+ * Answer masks are written as variable-length numbers, so a question with up to seven answers takes one byte.
+ */
+public class ExamProgressCodec {
+
+    private static final byte FORMAT_VERSION = 1;
+    private static final int HEADER_SIZE = 1 + 16 + 16 + 4 + 8 + 8 + 4 + 4;
+    private static final int NO_VALUE = -1;
+
+    private ExamProgressCodec() {}
+
+    /**
+     * Encodes the progress into a byte array.
+     */
+    public static byte[] encode(ExamProgressDTO progress) {
+        long[] masks = progress.getSelectedAnswers();
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + masks.length * 10);
+        buffer.put(FORMAT_VERSION);
+        putUuid(buffer, progress.getTestId());
+        putUuid(buffer, progress.getUserId());
+        buffer.putInt(progress.getTestVersion() != null ? progress.getTestVersion() : NO_VALUE);
+        buffer.putLong(progress.getStartedAt().toInstant(ZoneOffset.UTC).toEpochMilli());
+        buffer.putDouble(progress.getCredit());
+        buffer.putInt(progress.getScore() != null ? progress.getScore() : NO_VALUE);
+        buffer.putInt(masks.length);
+        for (long mask : masks) {
+            putVarLong(buffer, mask);
+        }
+
+        byte[] encoded = new byte[buffer.position()];
+        buffer.flip().get(encoded);
+        return encoded;
+    }
+
+    /**
+     * Decodes the progress from a byte array produced by {@link #encode(ExamProgressDTO)}.
+     */
+    public static ExamProgressDTO decode(byte[] encoded) {
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(encoded);
+            if (buffer.get() != FORMAT_VERSION) {
+                throw new ValidationException("Unsupported test progress format.");
+            }
+            UUID testId = getUuid(buffer);
+            UUID userId = getUuid(buffer);
+            int testVersion = buffer.getInt();
+            long startedAt = buffer.getLong();
+            double credit = buffer.getDouble();
+            int score = buffer.getInt();
+            long[] masks = new long[buffer.getInt()];
+            for (int i = 0; i < masks.length; i++) {
+                masks[i] = getVarLong(buffer);
+            }
+
+            return ExamProgressDTO.builder()
+                    .testId(testId)
+                    .userId(userId)
+                    .testVersion(testVersion != NO_VALUE ? testVersion : null)
+                    .startedAt(LocalDateTime.ofInstant(Instant.ofEpochMilli(startedAt), ZoneOffset.UTC))
+                    .credit(credit)
+                    .score(score != NO_VALUE ? score : null)
+                    .selectedAnswers(masks)
+                    .build();
+        } catch (BufferUnderflowException | NegativeArraySizeException e) {
+            throw new ValidationException("Test progress is corrupted.");
+        }
+    }
+
+    private static void putUuid(ByteBuffer buffer, UUID uuid) {
+        buffer.putLong(uuid.getMostSignificantBits());
+        buffer.putLong(uuid.getLeastSignificantBits());
+    }
+
+    private static UUID getUuid(ByteBuffer buffer) {
+        return new UUID(buffer.getLong(), buffer.getLong());
+    }
+
+    private static void putVarLong(ByteBuffer buffer, long value) {
+        while ((value & ~0x7FL) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    private static long getVarLong(ByteBuffer buffer) {
+        long value = 0;
+        for (int shift = 0; shift < Long.SIZE; shift += 7) {
+            byte b = buffer.get();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new ValidationException("Test progress is corrupted.");
+    }
+}
@@ -1,24 +1,209 @@
 package util;
 
+import org.hibernate.CacheMode;
+import org.hibernate.FlushMode;
 import org.hibernate.Session;
+import org.hibernate.SessionFactory;
 
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Holds the Hibernate session of the current request.
+ * The session and its transaction are opened lazily on the first {@link #getSession()} call,
+ * so requests that never reach the database do not take a connection from the pool.
+ * All per-request state lives in a single thread-local context that is removed when the request ends,
+ * which keeps it cheap for request threads that are virtual and never reused.
+ * Only request sessions take a permit of the connection limiter. Background workers run in
+ * {@link #runInTransaction} on connections reserved for them, because requests wait for those workers
+ * while holding a permit, and workers waiting for a permit in turn could stall each other for good.
+ */
 public class HibernateSessionManager {
 
-    private static final ThreadLocal<Session> sessionThreadLocal = new ThreadLocal<>();
+    private static final ThreadLocal<RequestContext> contextThreadLocal = new ThreadLocal<>();
+    private static volatile ConnectionLimiter connectionLimiter;
+
+    private static final class RequestContext {
+        private SessionFactory sessionFactory;
+        private boolean readOnly;
+        private boolean limited;
+        private Session session;
+        private ConnectionLimiter heldPermit;
+        private List<Runnable> afterCommitActions;
+    }
+
+    /**
+     * Limits the number of sessions open at the same time; with no limiter every session opens at once.
+     */
+    public static void setConnectionLimiter(ConnectionLimiter limiter) {
+        connectionLimiter = limiter;
+    }
 
+    /**
+     * Returns the session of the current request, opening it and beginning a transaction on first use.
+     * Opening a request session waits for a permit of the connection limiter, if one is set.
+     */
     public static Session getSession() {
-        Session session = sessionThreadLocal.get();
-        if (session == null) {
+        RequestContext context = contextThreadLocal.get();
+        if (context != null && context.session != null) {
+            return context.session;
+        }
+        if (context == null || context.sessionFactory == null) {
             throw new IllegalStateException("Session not found.");
         }
+        ConnectionLimiter limiter = connectionLimiter;
+        if (limiter != null && context.limited && context.heldPermit == null) {
+            limiter.acquire();
+            context.heldPermit = limiter;
+        }
+        Session session = context.sessionFactory.openSession();
+        context.session = session;
+        if (context.readOnly) {
+            session.setCacheMode(CacheMode.GET);
+            session.setDefaultReadOnly(true);
+            session.setHibernateFlushMode(FlushMode.MANUAL);
+            session.doWork(connection -> connection.setReadOnly(true));
+        }
+        session.beginTransaction();
         return session;
     }
 
+    /**
+     * Returns the session of the current request if it has already been opened, otherwise null.
+     */
+    public static Session getOpenSession() {
+        RequestContext context = contextThreadLocal.get();
+        return context != null ? context.session : null;
+    }
+
+    /**
+     * Binds a session factory to the current request without opening a session yet.
+     * Sessions of read-only requests load entities as read-only, never flush
+     * and mark the JDBC connection read-only before the transaction begins.
+     * They read from the second-level cache but never put into it, as their data may come from a lagging replica.
+     */
+    public static void bind(SessionFactory sessionFactory, boolean readOnly) {
+        bind(sessionFactory, readOnly, true);
+    }
+
+    private static void bind(SessionFactory sessionFactory, boolean readOnly, boolean limited) {
+        RequestContext context = new RequestContext();
+        context.sessionFactory = sessionFactory;
+        context.readOnly = readOnly;
+        context.limited = limited;
+        contextThreadLocal.set(context);
+    }
+
+    /**
+     * Checks whether the current request runs in a read-only transaction.
+     */
+    public static boolean isReadOnly() {
+        RequestContext context = contextThreadLocal.get();
+        return context != null && context.readOnly;
+    }
+
+    /**
+     * Runs the work in its own read-write transaction on the current thread,
+     * for work that happens outside of an HTTP request. It does not wait for the connection limiter.
+     * Commits and runs the after-commit actions on success, rolls back and rethrows on failure.
+     */
+    public static void runInTransaction(SessionFactory sessionFactory, Runnable work) {
+        bind(sessionFactory, false, false);
+        try {
+            work.run();
+            Session session = getOpenSession();
+            if (session != null && session.getTransaction().isActive()) {
+                session.getTransaction().commit();
+            }
+            executeAfterCommitActions();
+        } catch (RuntimeException e) {
+            Session session = getOpenSession();
+            if (session != null && session.getTransaction().isActive()) {
+                session.getTransaction().rollback();
+            }
+            throw e;
+        } finally {
+            closeSession();
+        }
+    }
+
+    /**
+     * Commits the transaction of the current session and begins a new one on the same session,
+     * so a long request can keep the work it has done so far if a later part of it fails.
+     * Runs the after-commit actions and clears the persistence context. Does nothing if no session is open.
+     */
+    public static void commitAndBegin() {
+        Session session = getOpenSession();
+        if (session == null || !session.getTransaction().isActive()) {
+            return;
+        }
+        session.getTransaction().commit();
+        executeAfterCommitActions();
+        session.clear();
+        session.beginTransaction();
+    }
+
     public static void setSession(Session session) {
-        sessionThreadLocal.set(session);
+        RequestContext context = contextThreadLocal.get();
+        if (context == null) {
+            context = new RequestContext();
+            contextThreadLocal.set(context);
+        }
+        context.session = session;
+    }
+
+    /**
+     * Closes the session of the current request, if it was opened, and clears the request context.
+     */
+    public static void closeSession() {
+        Session session = getOpenSession();
+        try {
+            if (session != null) {
+                session.close();
+            }
+        } finally {
+            clearSession();
+        }
     }
 
+    /**
+     * Forgets the session of the current request and returns its permit to the connection limiter.
+     * Closing the session is left to the caller.
+     */
     public static void clearSession() {
-        sessionThreadLocal.remove();
+        RequestContext context = contextThreadLocal.get();
+        contextThreadLocal.remove();
+        if (context != null && context.heldPermit != null) {
+            context.heldPermit.release();
+        }
+    }
+
+    /**
+     * Registers an action to run once the current transaction has been committed.
+     * Runs the action immediately when no session is open on the current thread.
+     */
+    public static void runAfterCommit(Runnable action) {
+        RequestContext context = contextThreadLocal.get();
+        if (context == null || context.session == null) {
+            action.run();
+            return;
+        }
+        if (context.afterCommitActions == null) {
+            context.afterCommitActions = new ArrayList<>();
+        }
+        context.afterCommitActions.add(action);
+    }
+
+    /**
+     * Runs and clears the actions registered for the committed transaction.
+     */
+    public static void executeAfterCommitActions() {
+        RequestContext context = contextThreadLocal.get();
+        if (context == null || context.afterCommitActions == null) {
+            return;
+        }
+        List<Runnable> actions = context.afterCommitActions;
+        context.afterCommitActions = null;
+        actions.forEach(Runnable::run);
     }
 }
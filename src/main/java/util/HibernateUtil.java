@@ -1,22 +1,35 @@
 package util;
 
+import dto.CacheStatsDTO;
 import lombok.extern.slf4j.Slf4j;
 import org.hibernate.SessionFactory;
 import org.hibernate.boot.Metadata;
 import org.hibernate.boot.MetadataSources;
 import org.hibernate.boot.registry.StandardServiceRegistry;
 import org.hibernate.boot.registry.StandardServiceRegistryBuilder;
+import org.hibernate.stat.Statistics;
+
+import java.util.HashMap;
+import java.util.Map;
 
 @Slf4j
 public class HibernateUtil {
 
+    private static final String REPLICA_SETTINGS_PREFIX = "hibernate.hikari.replica.dataSource.";
+
+    private static final int DEFAULT_MAX_POOL_SIZE = 10;
+
     private static SessionFactory sessionFactory;
+    private static int maxPoolSize = DEFAULT_MAX_POOL_SIZE;
 
     public static void init() {
         try {
-            StandardServiceRegistry standardRegistry = new StandardServiceRegistryBuilder()
-                    .configure("hibernate.cfg.xml")
-                    .build();
+            StandardServiceRegistryBuilder registryBuilder = new StandardServiceRegistryBuilder()
+                    .configure("hibernate.cfg.xml");
+            applyReplicaSettings(registryBuilder);
+            applyStatisticsSetting(registryBuilder);
+            maxPoolSize = readMaxPoolSize(registryBuilder.getSettings());
+            StandardServiceRegistry standardRegistry = registryBuilder.build();
 
             Metadata metadata = new MetadataSources(standardRegistry)
                     .getMetadataBuilder()
@@ -34,6 +47,49 @@ public class HibernateUtil {
 
     private HibernateUtil() {}
 
+    /**
+     * Routes read-only requests to a replica pool when DB_REPLICA_HOST is set.
+     * Port, database name, user and password of the replica default to the primary ones.
+     */
+    private static void applyReplicaSettings(StandardServiceRegistryBuilder registryBuilder) {
+        String replicaHost = System.getenv("DB_REPLICA_HOST");
+        if (replicaHost == null || replicaHost.isBlank()) {
+            return;
+        }
+        Map<String, String> settings = new HashMap<>();
+        settings.put("hibernate.connection.provider_class", RoutingConnectionProvider.class.getName());
+        settings.put(REPLICA_SETTINGS_PREFIX + "serverName", replicaHost);
+        putIfSet(settings, REPLICA_SETTINGS_PREFIX + "portNumber", System.getenv("DB_REPLICA_PORT"));
+        putIfSet(settings, REPLICA_SETTINGS_PREFIX + "databaseName", System.getenv("DB_REPLICA_NAME"));
+        putIfSet(settings, REPLICA_SETTINGS_PREFIX + "user", System.getenv("DB_REPLICA_USER"));
+        putIfSet(settings, REPLICA_SETTINGS_PREFIX + "password", System.getenv("DB_REPLICA_PASSWORD"));
+        registryBuilder.applySettings(settings);
+        log.info("Read-only requests are routed to the replica at {}.", replicaHost);
+    }
+
+    /**
+     * Collects the statistics behind {@link #getCacheStats()} only when HIBERNATE_STATISTICS is true,
+     * as counting every statement and cache access adds work to each request.
+     */
+    private static void applyStatisticsSetting(StandardServiceRegistryBuilder registryBuilder) {
+        boolean enabled = Boolean.parseBoolean(System.getenv("HIBERNATE_STATISTICS"));
+        registryBuilder.applySetting("hibernate.generate_statistics", enabled);
+        if (enabled) {
+            log.info("Hibernate statistics are collected.");
+        }
+    }
+
+    private static int readMaxPoolSize(Map<String, Object> settings) {
+        Object value = settings.get("hibernate.hikari.maximumPoolSize");
+        return value != null ? Integer.parseInt(value.toString().trim()) : DEFAULT_MAX_POOL_SIZE;
+    }
+
+    private static void putIfSet(Map<String, String> settings, String key, String value) {
+        if (value != null && !value.isBlank()) {
+            settings.put(key, value);
+        }
+    }
+
     public static SessionFactory getSessionFactory() {
         if (sessionFactory == null) {
             throw new IllegalStateException("SessionFactory has not been initialized. Please call HibernateUtil.init() from your ContextListener first.");
@@ -41,6 +97,30 @@ public class HibernateUtil {
         return sessionFactory;
     }
 
+    /**
+     * Returns the maximum size of the connection pool from hibernate.cfg.xml.
+     */
+    public static int getMaxPoolSize() {
+        return maxPoolSize;
+    }
+
+    /**
+     * Returns the counters of the second-level and query caches, or null if statistics are not collected.
+     */
+    public static CacheStatsDTO getCacheStats() {
+        Statistics statistics = getSessionFactory().getStatistics();
+        if (!statistics.isStatisticsEnabled()) {
+            return null;
+        }
+        return CacheStatsDTO.builder()
+                .entityHits(statistics.getSecondLevelCacheHitCount())
+                .entityMisses(statistics.getSecondLevelCacheMissCount())
+                .entityPuts(statistics.getSecondLevelCachePutCount())
+                .queryHits(statistics.getQueryCacheHitCount())
+                .queryMisses(statistics.getQueryCacheMissCount())
+                .build();
+    }
+
     public static void shutdown() {
         if (sessionFactory != null && !sessionFactory.isClosed()) {
             sessionFactory.close();
@@ -0,0 +1,194 @@
+package util;
+
+import dto.LoginThrottleStatsDTO;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Counts failed logins per username and per client address and locks a key out after too many of them.
+ * Every entry carries its own expiry time and is dropped lazily by a periodic sweep on the write path.
+ * Once the store is full, the unlocked keys that failed least recently are evicted to make room, so a run of random
+ * usernames keeps the memory flat while the attacker's address, failing on every attempt, and the locked keys stay tracked.
+ * If every tracked key is locked, a failure for a new key is treated as a lockout rather than ignored.
+ */
+@Slf4j
+public class LoginThrottle {
+    private static final String USER_KEY_PREFIX = "user:";
+    private static final String ADDRESS_KEY_PREFIX = "ip:";
+    private static final long SWEEP_INTERVAL_MILLIS = 30_000;
+    private static final int EVICTION_DIVISOR = 10;
+
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+    private final int maxEntries;
+    private final int maxFailuresPerUser;
+    private final int maxFailuresPerAddress;
+    private final long blockMillis;
+    private final LongSupplier clock;
+    private final AtomicLong nextSweepAt = new AtomicLong();
+
+    private final LongAdder failedAttempts = new LongAdder();
+    private final LongAdder lockouts = new LongAdder();
+    private final LongAdder rejectedAttempts = new LongAdder();
+    private final LongAdder evictedKeys = new LongAdder();
+    private final LongAdder refusedFailures = new LongAdder();
+
+    public LoginThrottle(int maxEntries, int maxFailuresPerUser, int maxFailuresPerAddress, long blockMillis) {
+        this(maxEntries, maxFailuresPerUser, maxFailuresPerAddress, blockMillis, System::currentTimeMillis);
+    }
+
+    LoginThrottle(int maxEntries, int maxFailuresPerUser, int maxFailuresPerAddress, long blockMillis, LongSupplier clock) {
+        this.maxEntries = maxEntries;
+        this.maxFailuresPerUser = maxFailuresPerUser;
+        this.maxFailuresPerAddress = maxFailuresPerAddress;
+        this.blockMillis = blockMillis;
+        this.clock = clock;
+    }
+
+    /**
+     * Returns true if the username or the client address is locked out.
+     */
+    public boolean isBlocked(String username, String address) {
+        long now = clock.getAsLong();
+        if (isBlocked(userKey(username), now) || isBlocked(addressKey(address), now)) {
+            rejectedAttempts.increment();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Counts a failed login for the username and the client address.
+     * Returns true if either of them is locked out after this failure.
+     */
+    public boolean recordFailure(String username, String address) {
+        long now = clock.getAsLong();
+        failedAttempts.increment();
+        sweepIfDue(now);
+        boolean userBlocked = recordFailure(userKey(username), maxFailuresPerUser, now);
+        boolean addressBlocked = recordFailure(addressKey(address), maxFailuresPerAddress, now);
+        return userBlocked || addressBlocked;
+    }
+
+    /**
+     * Forgets the failures of the username after a successful login.
+     * The address keeps its count, so one valid account does not reset a guessing run from the same address.
+     */
+    public void recordSuccess(String username) {
+        String key = userKey(username);
+        if (key != null) {
+            entries.remove(key);
+        }
+    }
+
+    public LoginThrottleStatsDTO getStats() {
+        return LoginThrottleStatsDTO.builder()
+                .trackedKeys(entries.size())
+                .failedAttempts(failedAttempts.sum())
+                .lockouts(lockouts.sum())
+                .rejectedAttempts(rejectedAttempts.sum())
+                .evictedKeys(evictedKeys.sum())
+                .refusedFailures(refusedFailures.sum())
+                .build();
+    }
+
+    private boolean isBlocked(String key, long now) {
+        if (key == null) {
+            return false;
+        }
+        Entry entry = entries.get(key);
+        return entry != null && entry.blocked && !entry.isExpired(now);
+    }
+
+    private boolean recordFailure(String key, int maxFailures, long now) {
+        if (key == null) {
+            return false;
+        }
+        if (!entries.containsKey(key) && entries.size() >= maxEntries && !makeRoom(now)) {
+            refusedFailures.increment();
+            return true;
+        }
+        Entry entry = entries.compute(key, (k, current) -> {
+            if (current != null && current.blocked && !current.isExpired(now)) {
+                return current;
+            }
+            int failures = current == null || current.isExpired(now) ? 1 : current.failures + 1;
+            if (failures >= maxFailures) {
+                lockouts.increment();
+                return new Entry(failures, now + blockMillis, now, true);
+            }
+            long expiresAt = current == null || current.isExpired(now) ? now + blockMillis : current.expiresAt;
+            return new Entry(failures, expiresAt, now, false);
+        });
+        return entry.blocked;
+    }
+
+    private void sweepIfDue(long now) {
+        long sweepAt = nextSweepAt.get();
+        if (now < sweepAt || !nextSweepAt.compareAndSet(sweepAt, now + SWEEP_INTERVAL_MILLIS)) {
+            return;
+        }
+        int before = entries.size();
+        entries.values().removeIf(entry -> entry.isExpired(now));
+        log.debug("Login throttle sweep removed {} expired entries", before - entries.size());
+    }
+
+    /**
+     * Drops the expired entries and, if the store is still full, evicts a tenth of it,
+     * the unlocked keys that failed least recently first.
+     * Evicting in a batch keeps the scan off most failures while the store is under a flood of new keys.
+     * Returns false if nothing could be evicted because every tracked key is locked.
+     */
+    private synchronized boolean makeRoom(long now) {
+        if (entries.size() < maxEntries) {
+            return true;
+        }
+        entries.values().removeIf(entry -> entry.isExpired(now));
+        if (entries.size() < maxEntries) {
+            return true;
+        }
+        List<Map.Entry<String, Entry>> oldest = entries.entrySet().stream()
+                .filter(e -> !e.getValue().blocked)
+                .sorted(Comparator.comparingLong(e -> e.getValue().lastFailureAt))
+                .limit(maxEntries / EVICTION_DIVISOR + 1)
+                .toList();
+        for (Map.Entry<String, Entry> e : oldest) {
+            if (entries.remove(e.getKey(), e.getValue())) {
+                evictedKeys.increment();
+            }
+        }
+        return entries.size() < maxEntries;
+    }
+
+    private static String userKey(String username) {
+        return username != null ? USER_KEY_PREFIX + username : null;
+    }
+
+    private static String addressKey(String address) {
+        return address != null ? ADDRESS_KEY_PREFIX + address : null;
+    }
+
+    private static final class Entry {
+        private final int failures;
+        private final long expiresAt;
+        private final long lastFailureAt;
+        private final boolean blocked;
+
+        private Entry(int failures, long expiresAt, long lastFailureAt, boolean blocked) {
+            this.failures = failures;
+            this.expiresAt = expiresAt;
+            this.lastFailureAt = lastFailureAt;
+            this.blocked = blocked;
+        }
+
+        private boolean isExpired(long now) {
+            return now >= expiresAt;
+        }
+    }
+}
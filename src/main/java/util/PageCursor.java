@@ -0,0 +1,46 @@
+package util;
+
+import exceptions.ValidationException;
+import lombok.Getter;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Position in a keyset-paginated listing: the sort value and the id of the last item of a page,
+ * encoded into an opaque URL-safe string.
+ */
+@Getter
+public final class PageCursor {
+    private static final char SEPARATOR = '|';
+
+    private final String value;
+    private final UUID id;
+
+    private PageCursor(String value, UUID id) {
+        this.value = value;
+        this.id = id;
+    }
+
+    public static String encode(String value, UUID id) {
+        String raw = (value != null ? value : "") + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodes a cursor from the request, or returns null if there is none.
+     */
+    public static PageCursor decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor.trim()), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf(SEPARATOR);
+            return new PageCursor(raw.substring(0, separator), UUID.fromString(raw.substring(separator + 1)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            throw new ValidationException("Invalid page cursor.");
+        }
+    }
+}
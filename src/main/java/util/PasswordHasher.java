@@ -0,0 +1,144 @@
+package util;
+
+import exceptions.ServiceBusyException;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Runs BCrypt hashing and verification on a fixed pool of platform threads sized to the cores.
+ * Request threads only wait for the result, so a login storm cannot take more CPU than the pool has,
+ * and once its bounded queue is full new requests are answered with 503 instead of piling up.
+ */
+public class PasswordHasher {
+    private static final Pattern BCRYPT_COST = Pattern.compile("^\\$2[aby]?\\$(\\d\\d)\\$");
+    private static final long QUEUE_RETRY_MILLIS = 10;
+
+    private final BCryptPasswordEncoder encoder;
+    private final int strength;
+    private final ThreadPoolExecutor executor;
+
+    public PasswordHasher(int strength, int threads, int queueCapacity) {
+        this.encoder = new BCryptPasswordEncoder(strength);
+        this.strength = strength;
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                task -> {
+                    Thread thread = new Thread(task, "password-hasher-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * Hashes the password with the configured cost factor.
+     */
+    public String encode(String rawPassword) {
+        return call(() -> encoder.encode(rawPassword));
+    }
+
+    /**
+     * Hashes the passwords in parallel, in the order given.
+     * At most one password per pool thread is queued at a time, so logins arriving meanwhile
+     * wait behind a single hash instead of behind the whole list.
+     * When the queue is full the bulk caller waits for room instead of failing, leaving the 503 to logins.
+     */
+    public List<String> encodeAll(List<String> rawPasswords) {
+        int parallelism = executor.getCorePoolSize();
+        List<Future<String>> futures = new ArrayList<>(rawPasswords.size());
+        List<String> encoded = new ArrayList<>(rawPasswords.size());
+        try {
+            for (int i = 0; i < rawPasswords.size(); i++) {
+                if (i >= parallelism) {
+                    encoded.add(await(futures.get(i - parallelism)));
+                }
+                String rawPassword = rawPasswords.get(i);
+                futures.add(submitWhenQueued(() -> encoder.encode(rawPassword)));
+            }
+            for (int i = encoded.size(); i < futures.size(); i++) {
+                encoded.add(await(futures.get(i)));
+            }
+        } catch (RuntimeException e) {
+            futures.forEach(future -> future.cancel(true));
+            throw e;
+        }
+        return encoded;
+    }
+
+    /**
+     * Checks the password against a BCrypt hash of any cost factor.
+     */
+    public boolean matches(String rawPassword, String encodedPassword) {
+        return call(() -> encoder.matches(rawPassword, encodedPassword));
+    }
+
+    /**
+     * Returns true if the hash was made with a cost factor other than the configured one.
+     */
+    public boolean needsRehash(String encodedPassword) {
+        Matcher matcher = BCRYPT_COST.matcher(encodedPassword != null ? encodedPassword : "");
+        return matcher.find() && Integer.parseInt(matcher.group(1)) != strength;
+    }
+
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private <T> T call(Callable<T> task) {
+        return await(submit(task));
+    }
+
+    private <T> Future<T> submit(Callable<T> task) {
+        try {
+            return executor.submit(task);
+        } catch (RejectedExecutionException e) {
+            throw new ServiceBusyException("Too many logins at the moment. Please try again in a moment.", e);
+        }
+    }
+
+    private <T> Future<T> submitWhenQueued(Callable<T> task) {
+        while (true) {
+            try {
+                return executor.submit(task);
+            } catch (RejectedExecutionException e) {
+                if (executor.isShutdown()) {
+                    throw new ServiceBusyException("Password hashing has been stopped.", e);
+                }
+            }
+            try {
+                Thread.sleep(QUEUE_RETRY_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new ServiceBusyException("Interrupted while waiting to hash the password.", e);
+            }
+        }
+    }
+
+    private <T> T await(Future<T> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new ServiceBusyException("Interrupted while checking the password.", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("Password hashing failed", e.getCause());
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package util;
+
+import dto.AnswerDTO;
+import dto.AnswersInResultDTO;
+import dto.QuestionDTO;
+import dto.ResultDTO;
+import exceptions.ValidationException;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Binary encoding of a submitted result for the write-behind spill file.
+ * Only the ids needed to save the result are kept, questions and answers are written by id.
+ * The result's own id is written too, so a replayed result can be recognized once it has been saved.
+ */
+public class ResultSubmissionCodec {
+
+    private static final byte FORMAT_VERSION = 1;
+    private static final int UUID_SIZE = 16;
+    private static final int NO_VALUE = -1;
+
+    private ResultSubmissionCodec() {}
+
+    /**
+     * Encodes the result into a byte array.
+     */
+    public static byte[] encode(ResultDTO result) {
+        byte[] title = result.getTestTitle() != null ? result.getTestTitle().getBytes(StandardCharsets.UTF_8) : new byte[0];
+        List<AnswersInResultDTO> answersInResults = result.getAnswersInResults();
+        int size = 1 + 3 * UUID_SIZE + 4 + 8 + 4 + title.length + 4;
+        for (AnswersInResultDTO answersInResult : answersInResults) {
+            size += UUID_SIZE + 4 + answersInResult.getSelectedAnswers().size() * UUID_SIZE;
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        buffer.put(FORMAT_VERSION);
+        putUuid(buffer, result.getId());
+        putUuid(buffer, result.getUserId());
+        putUuid(buffer, result.getTestId());
+        buffer.putInt(result.getScore() != null ? result.getScore() : NO_VALUE);
+        buffer.putLong(result.getDate().toInstant(ZoneOffset.UTC).toEpochMilli());
+        buffer.putInt(title.length);
+        buffer.put(title);
+        buffer.putInt(answersInResults.size());
+        for (AnswersInResultDTO answersInResult : answersInResults) {
+            putUuid(buffer, answersInResult.getQuestion().getId());
+            buffer.putInt(answersInResult.getSelectedAnswers().size());
+            for (AnswerDTO answer : answersInResult.getSelectedAnswers()) {
+                putUuid(buffer, answer.getId());
+            }
+        }
+        return buffer.array();
+    }
+
+    /**
+     * Decodes a result from a byte array produced by {@link #encode(ResultDTO)}.
+     */
+    public static ResultDTO decode(byte[] encoded) {
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(encoded);
+            if (buffer.get() != FORMAT_VERSION) {
+                throw new ValidationException("Unsupported result submission format.");
+            }
+            UUID id = getUuid(buffer);
+            UUID userId = getUuid(buffer);
+            UUID testId = getUuid(buffer);
+            int score = buffer.getInt();
+            long date = buffer.getLong();
+            byte[] title = new byte[buffer.getInt()];
+            buffer.get(title);
+            int questionCount = buffer.getInt();
+            List<AnswersInResultDTO> answersInResults = new ArrayList<>();
+            for (int i = 0; i < questionCount; i++) {
+                UUID questionId = getUuid(buffer);
+                int answerCount = buffer.getInt();
+                List<AnswerDTO> selectedAnswers = new ArrayList<>();
+                for (int j = 0; j < answerCount; j++) {
+                    selectedAnswers.add(AnswerDTO.builder().id(getUuid(buffer)).build());
+                }
+                answersInResults.add(AnswersInResultDTO.builder()
+                        .question(QuestionDTO.builder().id(questionId).build())
+                        .selectedAnswers(selectedAnswers)
+                        .build());
+            }
+
+            return ResultDTO.builder()
+                    .id(id)
+                    .userId(userId)
+                    .testId(testId)
+                    .score(score != NO_VALUE ? score : null)
+                    .date(LocalDateTime.ofInstant(Instant.ofEpochMilli(date), ZoneOffset.UTC))
+                    .testTitle(new String(title, StandardCharsets.UTF_8))
+                    .answersInResults(answersInResults)
+                    .build();
+        } catch (BufferUnderflowException | NegativeArraySizeException e) {
+            throw new ValidationException("Result submission is corrupted.");
+        }
+    }
+
+    private static void putUuid(ByteBuffer buffer, UUID uuid) {
+        buffer.putLong(uuid.getMostSignificantBits());
+        buffer.putLong(uuid.getLeastSignificantBits());
+    }
+
+    private static UUID getUuid(ByteBuffer buffer) {
+        return new UUID(buffer.getLong(), buffer.getLong());
+    }
+}
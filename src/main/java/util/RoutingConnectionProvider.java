@@ -0,0 +1,104 @@
+package util;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.engine.jdbc.connections.spi.ConnectionProvider;
+import org.hibernate.service.spi.Configurable;
+import org.hibernate.service.spi.Stoppable;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Connection provider with a primary and a replica Hikari pool.
+ * Sessions of read-only requests take their connections from the replica, all others from the primary.
+ * The primary pool is configured by the {@code hibernate.hikari.*} settings; the replica pool starts
+ * from the same settings and overrides them with the {@code hibernate.hikari.replica.*} ones.
+ */
+@Slf4j
+public class RoutingConnectionProvider implements ConnectionProvider, Configurable, Stoppable {
+
+    private static final String HIKARI_PREFIX = "hibernate.hikari.";
+    private static final String REPLICA_PREFIX = "replica.";
+
+    private HikariDataSource primary;
+    private HikariDataSource replica;
+
+    @Override
+    public void configure(Map<String, Object> configurationValues) {
+        Properties primaryProperties = new Properties();
+        Properties replicaOverrides = new Properties();
+        configurationValues.forEach((key, value) -> {
+            if (!key.startsWith(HIKARI_PREFIX) || value == null) {
+                return;
+            }
+            String name = key.substring(HIKARI_PREFIX.length());
+            if (name.startsWith(REPLICA_PREFIX)) {
+                replicaOverrides.setProperty(name.substring(REPLICA_PREFIX.length()), value.toString());
+            } else {
+                primaryProperties.setProperty(name, value.toString());
+            }
+        });
+
+        Properties replicaProperties = new Properties();
+        replicaProperties.putAll(primaryProperties);
+        replicaProperties.putAll(replicaOverrides);
+
+        primary = createPool(primaryProperties, "primary", false);
+        replica = createPool(replicaProperties, "replica", true);
+        log.info("Routing connection provider started with a primary and a replica pool.");
+    }
+
+    private HikariDataSource createPool(Properties properties, String name, boolean readOnly) {
+        HikariConfig config = new HikariConfig(properties);
+        config.setPoolName(name);
+        config.setReadOnly(readOnly);
+        return new HikariDataSource(config);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return HibernateSessionManager.isReadOnly() ? replica.getConnection() : primary.getConnection();
+    }
+
+    @Override
+    public void closeConnection(Connection connection) throws SQLException {
+        connection.close();
+    }
+
+    @Override
+    public boolean supportsAggressiveRelease() {
+        return false;
+    }
+
+    @Override
+    public boolean isUnwrappableAs(Class<?> unwrapType) {
+        return unwrapType.isAssignableFrom(getClass()) || unwrapType.isAssignableFrom(DataSource.class);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T unwrap(Class<T> unwrapType) {
+        if (unwrapType.isAssignableFrom(getClass())) {
+            return (T) this;
+        }
+        if (unwrapType.isAssignableFrom(DataSource.class)) {
+            return (T) primary;
+        }
+        throw new IllegalArgumentException("Cannot unwrap to " + unwrapType.getName());
+    }
+
+    @Override
+    public void stop() {
+        if (replica != null) {
+            replica.close();
+        }
+        if (primary != null) {
+            primary.close();
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package util;
+
+import java.security.SecureRandom;
+import java.util.UUID;
+
+/**
+ * Creates version 7 UUIDs: a millisecond timestamp followed by random bits.
+ * They sort by creation time, so rows keyed by them are appended to the end of the primary key index.
+ */
+public class TimeOrderedUuid {
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private TimeOrderedUuid() {}
+
+    public static UUID next() {
+        long mostSignificantBits = (System.currentTimeMillis() << 16) | 0x7000L | (RANDOM.nextInt() & 0x0FFFL);
+        long leastSignificantBits = (RANDOM.nextLong() & 0x3FFFFFFFFFFFFFFFL) | 0x8000000000000000L;
+        return new UUID(mostSignificantBits, leastSignificantBits);
+    }
+}
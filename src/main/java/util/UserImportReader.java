@@ -0,0 +1,114 @@
+package util;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dto.UserImportRowDTO;
+import exceptions.ValidationException;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Reads the users of a bulk import one row at a time, so an upload is never held in memory as a whole.
+ */
+public class UserImportReader {
+
+    private static final String CSV_HEADER = "username,password";
+
+    private UserImportReader() {}
+
+    /**
+     * Reads {@code username,password} lines. The first line may be that header, blank lines are skipped.
+     * Values are not quoted; everything after the first comma is the password.
+     */
+    public static Iterator<UserImportRowDTO> fromCsv(Reader reader) {
+        BufferedReader lines = new BufferedReader(reader);
+        return new Iterator<>() {
+            private long lineNumber;
+            private UserImportRowDTO next;
+
+            @Override
+            public boolean hasNext() {
+                if (next == null) {
+                    next = readRow();
+                }
+                return next != null;
+            }
+
+            @Override
+            public UserImportRowDTO next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                UserImportRowDTO row = next;
+                next = null;
+                return row;
+            }
+
+            private UserImportRowDTO readRow() {
+                try {
+                    String line;
+                    while ((line = lines.readLine()) != null) {
+                        lineNumber++;
+                        if (line.isBlank() || (lineNumber == 1 && CSV_HEADER.equalsIgnoreCase(line.trim()))) {
+                            continue;
+                        }
+                        int comma = line.indexOf(',');
+                        return UserImportRowDTO.builder()
+                                .row(lineNumber)
+                                .username(comma >= 0 ? line.substring(0, comma).trim() : line.trim())
+                                .password(comma >= 0 ? line.substring(comma + 1) : null)
+                                .build();
+                    }
+                    return null;
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Failed to read the user import", e);
+                }
+            }
+        };
+    }
+
+    /**
+     * Reads a JSON array of {@code {"username": ..., "password": ...}} objects element by element.
+     */
+    public static Iterator<UserImportRowDTO> fromJson(InputStream inputStream, ObjectMapper objectMapper) {
+        MappingIterator<JsonNode> nodes;
+        try {
+            nodes = objectMapper.readerFor(JsonNode.class).readValues(inputStream);
+        } catch (IOException e) {
+            throw new ValidationException("The user import is not valid JSON.");
+        }
+        return new Iterator<>() {
+            private long row;
+
+            @Override
+            public boolean hasNext() {
+                try {
+                    return nodes.hasNextValue();
+                } catch (IOException e) {
+                    throw new ValidationException("The user import is not valid JSON after row " + row + ".");
+                }
+            }
+
+            @Override
+            public UserImportRowDTO next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                JsonNode node = nodes.next();
+                row++;
+                return UserImportRowDTO.builder()
+                        .row(row)
+                        .username(node.path("username").isTextual() ? node.get("username").asText() : null)
+                        .password(node.path("password").isTextual() ? node.get("password").asText() : null)
+                        .build();
+            }
+        };
+    }
+}
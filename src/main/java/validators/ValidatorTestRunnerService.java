@@ -1,13 +1,13 @@
 package validators;
 
+import cache.TestSnapshot;
 import dto.TestProgressDTO;
 import dto.UserDTO;
-import entity.Test;
 import exceptions.ValidationException;
 import util.ValidatorUtil;
 
 public class ValidatorTestRunnerService extends ValidatorServiceBase {
-    public void validateTestSessionStart(Test currentTest, UserDTO userDTO) {
+    public void validateTestSessionStart(TestSnapshot currentTest, UserDTO userDTO) {
         if (currentTest == null) {
             throw new ValidationException("Test not found");
         }
@@ -20,11 +20,11 @@ public class ValidatorTestRunnerService extends ValidatorServiceBase {
         ValidatorUtil.validate(testProgressDTO);
     }
 
-    public void validateTest(Test test) {
+    public void validateTest(TestSnapshot test) {
         if (test == null) {
             throw new ValidationException("Test not found");
         }
-        if (test.getQuestions() == null || test.getQuestions().isEmpty()) {
+        if (test.getQuestions().isEmpty()) {
             throw new ValidationException("Test is empty");
         }
     }
@@ -12,10 +12,27 @@
     <div class="attempts-info">
         Total Attempts: <span class="attempts-number">${attempts}</span>
     </div>
+    <c:if test="${not empty cacheStats}">
+        <div class="attempts-info">
+            Cache hits / misses: <span class="attempts-number">${cacheStats.entityHits} / ${cacheStats.entityMisses}</span>,
+            query cache hits / misses: <span class="attempts-number">${cacheStats.queryHits} / ${cacheStats.queryMisses}</span>
+        </div>
+    </c:if>
+    <div class="attempts-info">
+        Failed logins: <span class="attempts-number">${loginStats.failedAttempts}</span>,
+        lockouts: <span class="attempts-number">${loginStats.lockouts}</span>,
+        rejected while locked: <span class="attempts-number">${loginStats.rejectedAttempts}</span>,
+        tracked keys: <span class="attempts-number">${loginStats.trackedKeys}</span>
+        (<span class="attempts-number">${loginStats.evictedKeys}</span> evicted,
+        <span class="attempts-number">${loginStats.refusedFailures}</span> refused while the store was full of locked keys)
+    </div>
     <div class="main-menu-button">
         <form action="/secure/menu" method="get">
             <button type="submit" class="btn btn--primary">Return to Menu</button>
         </form>
+        <form action="/secure/admin/export/results" method="get">
+            <button type="submit" class="btn btn--secondary">Export Results (JSON)</button>
+        </form>
     </div>
     <div class="table-container">
 
@@ -26,6 +43,7 @@
                 <th>Total Passed</th>
                 <th>Max Possible Score</th>
                 <th>Max User Score</th>
+                <th>Average Score</th>
                 <th>Last Passed</th>
             </tr>
             </thead>
@@ -38,6 +56,7 @@
                             <td><c:out value="${stat.totalPassed}"/></td>
                             <td><c:out value="${stat.totalQuestions}"/></td>
                             <td><c:out value="${stat.maxScore}"/></td>
+                            <td><fmt:formatNumber value="${stat.avgScore}" maxFractionDigits="1"/></td>
                             <td>
                                 <c:choose>
                                     <c:when test="${not empty stat.lastPassed}">
@@ -52,7 +71,7 @@
                 </c:when>
                 <c:otherwise>
                     <tr>
-                        <td colspan="5">No data to display</td>
+                        <td colspan="6">No data to display</td>
                     </tr>
                 </c:otherwise>
             </c:choose>
@@ -1,7 +1,7 @@
 <%@ taglib prefix="c" uri="http://java.sun.com/jsp/jstl/core" %>
 <%@ page contentType="text/html;charset=UTF-8" %>
 
-<c:set var="user" value="${sessionScope.user}" />
+<c:set var="user" value="${requestScope.user}" />
 <c:set var="role" value="${not empty user and not empty user.role ? user.role : ''}" />
 <c:set var="isAdmin" value="${role == 'ADMIN'}" />
 
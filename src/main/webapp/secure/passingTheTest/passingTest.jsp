@@ -21,17 +21,17 @@
     <div class="alert alert--success"><c:out value="${sessionScope.success}"/></div>
     <c:remove var="success" scope="session"/>
   </c:if>
-  <c:if test="${sessionScope.testTimeOut == true}">
+  <c:set var="testSession" value="${requestScope.testSession}" />
+  <c:if test="${testSession.testTimeOut == true}">
     <div class="alert alert--info">
       The test has ended because the allotted time has expired. Please return to the test menu.
     </div>
     <a href="/secure/tests.jsp" class="btn btn--primary">Go to Test Menu</a>
   </c:if>
 
-  <c:if test="${not empty sessionScope.currentQuestion and not empty sessionScope.currentTest and sessionScope.testTimeOut != true}">
-    <c:set var="timeForTest" value="${sessionScope.timeForTest}"/>
-    <c:set var="currentQuestion" value="${sessionScope.currentQuestion}" />
-    <c:set var="currentTest" value="${sessionScope.currentTest}" />
+  <c:if test="${not empty testSession and testSession.testTimeOut != true}">
+    <c:set var="timeForTest" value="${testSession.roundedEndTime}"/>
+    <c:set var="currentQuestion" value="${testSession.currentQuestion}" />
 
     <div class="timeForTest">
       <h2>Please complete the test by: <c:out value="${timeForTest}"/></h2>
@@ -44,12 +44,13 @@
     </div>
 
     <div class="test-info">
-      <h3>Test: <c:out value="${currentTest.title}" /></h3>
+      <h3>Test: <c:out value="${testSession.testTitle}" /></h3>
       <p><strong>Question number:</strong> <c:out value="${currentQuestion.questionNumber}" /></p>
       <p><strong>Question text:</strong> <c:out value="${currentQuestion.questionText}" /></p>
     </div>
 
     <form action="/secure/nextQuestion" method="post">
+      <input type="hidden" name="questionId" value="${currentQuestion.id}">
       <div class="answers">
         <c:forEach var="answer" items="${currentQuestion.answers}" varStatus="status">
           <div class="answer-option">
@@ -65,7 +66,7 @@
     </form>
   </c:if>
 
-  <c:if test="${empty sessionScope.currentQuestion or empty sessionScope.currentTest}">
+  <c:if test="${empty testSession}">
     <p>No test found. <a href="/secure/tests.jsp">Go to Tests</a></p>
   </c:if>
 
@@ -25,23 +25,23 @@
     </c:if>
 
 
-    <c:if test="${not empty sessionScope.currentQuestion and not empty sessionScope.result}">
+    <c:set var="testSession" value="${requestScope.testSession}" />
+    <c:if test="${not empty testSession and testSession.progress.finished}">
 
-        <c:set var="currentTest" value="${sessionScope.currentTest}" />
-        <c:set var="result" value="${sessionScope.result}" />
+        <c:set var="score" value="${testSession.progress.score}" />
 
 
         <div class="test-stats">
-            <h3>Test: <c:out value="${currentTest.title}" /></h3>
-            <p><strong>Questions :</strong> <c:out value="${fn:length(currentTest.questions)}" /></p>
-            <p><strong>Correct answers :</strong> <c:out value="${result.score}" /></p>
+            <h3>Test: <c:out value="${testSession.testTitle}" /></h3>
+            <p><strong>Questions :</strong> <c:out value="${testSession.questionCount}" /></p>
+            <p><strong>Correct answers :</strong> <c:out value="${score}" /></p>
             <p><strong>Success Rate :</strong>
-                <fmt:formatNumber value="${(result.score / fn:length(currentTest.questions)) * 100}" maxFractionDigits="1"/>%
+                <fmt:formatNumber value="${(score / testSession.questionCount) * 100}" maxFractionDigits="1"/>%
             </p>
         </div>
 
         <div class="main-menu-button">
-            <form action="/secure/tests/${currentTest.id}/submit" method="post">
+            <form action="/secure/tests/${testSession.progress.testId}/submit" method="post">
                 <button type="submit" class="btn btn--primary">Save result</button>
             </form>
         </div>
@@ -52,7 +52,7 @@
         </div>
     </c:if>
 
-    <c:if test="${empty sessionScope.currentQuestion or empty sessionScope.currentTest}">
+    <c:if test="${empty testSession or not testSession.progress.finished}">
         <p>No test found. <a href="/secure/tests.jsp">Go to Tests</a></p>
     </c:if>
 
@@ -23,8 +23,8 @@
         <c:remove var="success" scope="session"/>
     </c:if>
     <c:choose>
-        <c:when test="${not empty sessionScope.currentTest}">
-            <c:set var="currentTest" value="${sessionScope.currentTest}" />
+        <c:when test="${not empty requestScope.currentTest}">
+            <c:set var="currentTest" value="${requestScope.currentTest}" />
 
             <div class="test-info">
                 <h3>Test: <c:out value="${currentTest.title}" /></h3>
@@ -38,13 +38,14 @@
 
             <div>
                 <form action="/secure/startTest" method="post" class="start-test-button">
+                    <input type="hidden" name="testId" value="${currentTest.id}">
                     <button type="submit" class="btn btn--primary btn--full">Start Test</button>
                 </form>
             </div>
         </c:when>
         <c:otherwise>
             <div class="error">
-                <p>No test found in session. Please select a test first.</p>
+                <p>No test found. Please select a test first.</p>
             </div>
         </c:otherwise>
     </c:choose>
@@ -19,14 +19,13 @@
             <button type="submit" class="btn btn--primary">Return to Menu</button>
         </form>
     </div>
-    <c:if test="${empty sessionScope.results}">
+    <c:if test="${empty requestScope.results}">
         <div class="alert alert--info">No results found.</div>
     </c:if>
-    <c:if test="${not empty sessionScope.results}">
+    <c:if test="${not empty requestScope.results}">
         <table id="testsTable">
             <thead>
                 <tr>
-                    <th>#</th>
                     <th>Test Name</th>
                     <th>Score</th>
                     <th>Success Rate</th>
@@ -35,14 +34,13 @@
                 </tr>
             </thead>
             <tbody>
-                <c:forEach var="result" items="${sessionScope.results}" varStatus="status">
+                <c:forEach var="result" items="${requestScope.results}">
                     <tr>
-                        <td>${status.index + 1}</td>
                         <td>${result.testTitle}</td>
                         <td>${result.score}</td>
                         <td> <c:choose>
-                            <c:when test="${fn:length(result.answersInResults) > 0}">
-                                <fmt:formatNumber value="${(result.score * 100.0) / fn:length(result.answersInResults)}" type="number" maxFractionDigits="1" />%
+                            <c:when test="${result.totalQuestions > 0}">
+                                <fmt:formatNumber value="${(result.score * 100.0) / result.totalQuestions}" type="number" maxFractionDigits="1" />%
                             </c:when>
                             <c:otherwise>0%</c:otherwise>
                         </c:choose></td>
@@ -60,6 +58,19 @@
             </tbody>
         </table>
     </c:if>
+    <div class="main-menu-button">
+        <c:if test="${not requestScope.firstPage}">
+            <form action="/secure/results" method="get">
+                <button type="submit" class="btn btn--primary">Newest results</button>
+            </form>
+        </c:if>
+        <c:if test="${not empty requestScope.nextCursor}">
+            <form action="/secure/results" method="get">
+                <input type="hidden" name="after" value="${requestScope.nextCursor}">
+                <button type="submit" class="btn btn--primary">Older results</button>
+            </form>
+        </c:if>
+    </div>
     <div class="page-footer">
         <div class="footer">
             © 2025 TesterQuiz
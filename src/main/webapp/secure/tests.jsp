@@ -1,7 +1,7 @@
 <%@ taglib prefix="c" uri="http://java.sun.com/jsp/jstl/core" %>
 <%@ page contentType="text/html;charset=UTF-8" %>
 
-<c:set var="user" value="${sessionScope.user}" />
+<c:set var="user" value="${requestScope.user}" />
 <c:set var="role" value="${not empty user and not empty user.role ? user.role : ''}" />
 <c:set var="isAdmin" value="${role == 'ADMIN'}" />
 
@@ -34,6 +34,11 @@
         <select id="topicSelect" onchange="filterTestsByTopic()">
             <option value="">All Topics</option>
         </select>
+        <label for="sortSelect">Sort by:</label>
+        <select id="sortSelect" onchange="reloadTests()">
+            <option value="title">Title</option>
+            <option value="topic">Topic</option>
+        </select>
     </div>
 
     <table id="testsTable">
@@ -49,19 +54,32 @@
         </tbody>
     </table>
 
+    <div class="main-menu-button">
+        <button id="loadMoreButton" class="btn btn--primary" style="display: none" onclick="loadTests()">Load more</button>
+    </div>
+
     <script>
         var isAdmin = ${isAdmin};
-        var allTests = [];
+        var nextCursor = null;
 
         function loadTests() {
-            fetch('/secure/tests')
+            var params = new URLSearchParams();
+            var topic = document.getElementById('topicSelect').value;
+            if (topic !== '') {
+                params.append('topic', topic);
+            }
+            params.append('sort', document.getElementById('sortSelect').value);
+            if (nextCursor !== null) {
+                params.append('after', nextCursor);
+            }
+            fetch('/secure/tests?' + params.toString())
                 .then(function (response) {
                     return response.json();
                 })
-                .then(function (tests) {
-                    allTests = tests; //
-                    displayTests(allTests);
-                    populateTopicFilter(allTests);
+                .then(function (page) {
+                    appendTests(page.items);
+                    nextCursor = page.nextCursor;
+                    document.getElementById('loadMoreButton').style.display = page.hasNext ? '' : 'none';
                 })
                 .catch(function (error) {
                     console.error('Error:', error);
@@ -69,16 +87,24 @@
                 });
         }
 
-        function displayTests(tests) {
+        function loadTopics() {
+            fetch('/secure/tests/topics')
+                .then(function (response) {
+                    return response.json();
+                })
+                .then(populateTopicFilter)
+                .catch(function (error) {
+                    console.error('Error:', error);
+                });
+        }
+
+        function appendTests(tests) {
             var tbody = document.querySelector('#testsTable tbody');
-            tbody.innerHTML = '';
 
             for (var i = 0; i < tests.length; i++) {
                 var test = tests[i];
                 var row = document.createElement('tr');
 
-                var questionCount = test.questions ? test.questions.length : 0;
-
                 var actionsHTML = '<div class="test-actions">' +
                     '<form class="action-form" action="/secure/welcomeToTest" method="get">' +
                     '<input type="hidden" name="id" value="' + test.id + '">' +
@@ -102,30 +128,31 @@
                 row.innerHTML =
                     '<td>' + escapeHTML(test.title) + '</td>' +
                     '<td>' + escapeHTML(test.topic) + '</td>' +
-                    '<td>' + questionCount + '</td>' +
+                    '<td>' + test.questionCount + '</td>' +
                     '<td>' + actionsHTML + '</td>';
 
                 tbody.appendChild(row);
             }
         }
 
-        function populateTopicFilter(tests) {
+        function populateTopicFilter(topics) {
             var topicSelect = document.getElementById('topicSelect');
-            var topics = new Set(tests.map(test => test.topic));
             topics.forEach(function (topic) {
                 var option = document.createElement('option');
                 option.value = topic;
-                option.textContent = escapeHTML(topic);
+                option.textContent = topic;
                 topicSelect.appendChild(option);
             });
         }
 
+        function reloadTests() {
+            nextCursor = null;
+            document.querySelector('#testsTable tbody').innerHTML = '';
+            loadTests();
+        }
+
         function filterTestsByTopic() {
-            var selectedTopic = document.getElementById('topicSelect').value;
-            var filteredTests = allTests.filter(function (test) {
-                return selectedTopic === "" || test.topic === selectedTopic;
-            });
-            displayTests(filteredTests);
+            reloadTests();
         }
 
         function escapeHTML(str) {
@@ -134,6 +161,7 @@
             return div.innerHTML;
         }
 
+        loadTopics();
         loadTests();
     </script>
 
@@ -0,0 +1,90 @@
+package benchmark;
+
+import exceptions.ServiceBusyException;
+import util.PasswordHasher;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Measures password checks per second through {@link PasswordHasher} for a range of BCrypt cost factors,
+ * with more concurrent callers than there are cores, the way a login storm looks.
+ * It does not need a database and is started manually, for example:
+ * {@code mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=benchmark.LoginThroughputBenchmark}
+ */
+public class LoginThroughputBenchmark {
+
+    private static final int MIN_COST = 8;
+    private static final int MAX_COST = 13;
+    private static final int CALLERS_PER_CORE = 4;
+    private static final int QUEUE_CAPACITY = 64;
+    private static final long WARMUP_MILLIS = 1_000;
+    private static final long MEASURED_MILLIS = 5_000;
+
+    public static void main(String[] args) throws Exception {
+        int cores = Runtime.getRuntime().availableProcessors();
+        int callers = cores * CALLERS_PER_CORE;
+        System.out.printf("%d cores, %d callers, queue capacity %d%n", cores, callers, QUEUE_CAPACITY);
+        System.out.printf("%-6s %12s %14s %12s%n", "cost", "logins/s", "avg ms/login", "rejected");
+
+        for (int cost = MIN_COST; cost <= MAX_COST; cost++) {
+            PasswordHasher passwordHasher = new PasswordHasher(cost, cores, QUEUE_CAPACITY);
+            try {
+                String hash = passwordHasher.encode("password");
+                run(passwordHasher, hash, callers, WARMUP_MILLIS);
+                Counters counters = run(passwordHasher, hash, callers, MEASURED_MILLIS);
+
+                long logins = counters.logins.sum();
+                System.out.printf("%-6d %12.1f %14.2f %12d%n", cost,
+                        logins * 1000.0 / MEASURED_MILLIS,
+                        logins > 0 ? counters.nanos.sum() / 1_000_000.0 / logins : 0.0,
+                        counters.rejected.sum());
+            } finally {
+                passwordHasher.shutdown();
+            }
+        }
+    }
+
+    private static Counters run(PasswordHasher passwordHasher, String hash, int callers, long durationMillis) throws Exception {
+        Counters counters = new Counters();
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(durationMillis);
+        ExecutorService executor = Executors.newFixedThreadPool(callers);
+        try {
+            List<Future<?>> futures = new ArrayList<>(callers);
+            for (int i = 0; i < callers; i++) {
+                futures.add(executor.submit(() -> {
+                    while (System.nanoTime() < deadline) {
+                        long start = System.nanoTime();
+                        try {
+                            if (!passwordHasher.matches("password", hash)) {
+                                throw new IllegalStateException("Password does not match");
+                            }
+                            counters.logins.increment();
+                            counters.nanos.add(System.nanoTime() - start);
+                        } catch (ServiceBusyException e) {
+                            counters.rejected.increment();
+                            Thread.onSpinWait();
+                        }
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        return counters;
+    }
+
+    private static class Counters {
+        private final LongAdder logins = new LongAdder();
+        private final LongAdder nanos = new LongAdder();
+        private final LongAdder rejected = new LongAdder();
+    }
+}
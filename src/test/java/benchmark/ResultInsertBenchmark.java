@@ -0,0 +1,156 @@
+package benchmark;
+
+import entity.Answer;
+import entity.AnswersInResult;
+import entity.Question;
+import entity.Result;
+import entity.Test;
+import entity.User;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.Transaction;
+import org.hibernate.boot.MetadataSources;
+import org.hibernate.boot.registry.StandardServiceRegistry;
+import org.hibernate.boot.registry.StandardServiceRegistryBuilder;
+import org.hibernate.stat.Statistics;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Compares persisting the result of a 100-question test with and without JDBC batching.
+ * Runs against the database configured in hibernate.cfg.xml and rolls everything back.
+ * It is not a unit test and is started manually, for example:
+ * {@code mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=benchmark.ResultInsertBenchmark}
+ */
+public class ResultInsertBenchmark {
+
+    private static final int QUESTIONS = 100;
+    private static final int ANSWERS_PER_QUESTION = 4;
+    private static final int SELECTED_PER_QUESTION = 2;
+    private static final int WARMUP_ROUNDS = 20;
+    private static final int MEASURED_ROUNDS = 200;
+
+    public static void main(String[] args) {
+        StandardServiceRegistry registry = new StandardServiceRegistryBuilder()
+                .configure("hibernate.cfg.xml")
+                .applySetting("hibernate.generate_statistics", "true")
+                .build();
+        try (SessionFactory sessionFactory = new MetadataSources(registry)
+                .getMetadataBuilder()
+                .build()
+                .getSessionFactoryBuilder()
+                .build()) {
+            run(sessionFactory, "without batching", 1);
+            run(sessionFactory, "with batching", null);
+        }
+    }
+
+    private static void run(SessionFactory sessionFactory, String label, Integer batchSize) {
+        Statistics statistics = sessionFactory.getStatistics();
+        try (Session session = sessionFactory.openSession()) {
+            session.setJdbcBatchSize(batchSize);
+            Transaction transaction = session.beginTransaction();
+            try {
+                Fixture fixture = createFixture(session);
+
+                for (int i = 0; i < WARMUP_ROUNDS; i++) {
+                    saveResult(session, fixture);
+                }
+
+                statistics.clear();
+                long started = System.nanoTime();
+                for (int i = 0; i < MEASURED_ROUNDS; i++) {
+                    saveResult(session, fixture);
+                }
+                long elapsed = System.nanoTime() - started;
+
+                System.out.printf("%-17s %8.3f ms per result, %6.1f statements per result%n",
+                        label,
+                        elapsed / 1_000_000.0 / MEASURED_ROUNDS,
+                        (double) statistics.getPrepareStatementCount() / MEASURED_ROUNDS);
+            } finally {
+                transaction.rollback();
+            }
+        }
+    }
+
+    private static void saveResult(Session session, Fixture fixture) {
+        List<AnswersInResult> answersInResults = new ArrayList<>(QUESTIONS);
+        Result result = Result.builder()
+                .user(session.getReference(User.class, fixture.userId))
+                .test(session.getReference(Test.class, fixture.testId))
+                .testTitle("Benchmark")
+                .score(0)
+                .date(LocalDateTime.now())
+                .answersInResults(answersInResults)
+                .build();
+        for (int q = 0; q < QUESTIONS; q++) {
+            List<Answer> selectedAnswers = new ArrayList<>(SELECTED_PER_QUESTION);
+            for (int a = 0; a < SELECTED_PER_QUESTION; a++) {
+                selectedAnswers.add(session.getReference(Answer.class, fixture.answerIds[q][a]));
+            }
+            answersInResults.add(AnswersInResult.builder()
+                    .result(result)
+                    .question(session.getReference(Question.class, fixture.questionIds[q]))
+                    .selectedAnswers(selectedAnswers)
+                    .build());
+        }
+        session.persist(result);
+        session.flush();
+        session.clear();
+    }
+
+    private static Fixture createFixture(Session session) {
+        User user = User.builder()
+                .username("benchmark-" + UUID.randomUUID())
+                .password("benchmark")
+                .role("USER")
+                .build();
+        session.persist(user);
+
+        Test test = Test.builder()
+                .title("Benchmark " + UUID.randomUUID())
+                .topic("Benchmark")
+                .creator(user)
+                .build();
+        session.persist(test);
+
+        Fixture fixture = new Fixture(user.getId(), test.getId());
+        for (int q = 0; q < QUESTIONS; q++) {
+            Question question = Question.builder()
+                    .test(test)
+                    .questionNumber(q + 1)
+                    .questionText("Question " + (q + 1))
+                    .build();
+            session.persist(question);
+            fixture.questionIds[q] = question.getId();
+            for (int a = 0; a < ANSWERS_PER_QUESTION; a++) {
+                Answer answer = Answer.builder()
+                        .question(question)
+                        .answerText("Answer " + (a + 1))
+                        .correct(a == 0)
+                        .build();
+                session.persist(answer);
+                fixture.answerIds[q][a] = answer.getId();
+            }
+        }
+        session.flush();
+        session.clear();
+        return fixture;
+    }
+
+    private static final class Fixture {
+        private final UUID userId;
+        private final UUID testId;
+        private final UUID[] questionIds = new UUID[QUESTIONS];
+        private final UUID[][] answerIds = new UUID[QUESTIONS][ANSWERS_PER_QUESTION];
+
+        private Fixture(UUID userId, UUID testId) {
+            this.userId = userId;
+            this.testId = testId;
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package cache;
+
+import dao.TestDAO;
+import dto.QuestionDTO;
+import dto.TestDTO;
+import mappers.TestMapper;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import services.TestDataBuilders;
+import util.HibernateSessionManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class TestSnapshotCacheTest {
+    @Mock
+    private TestDAO testDao;
+    @Mock
+    private TestMapper testMapper;
+    @Mock
+    private SessionFactory sessionFactory;
+
+    private TestSnapshotCache cache;
+    private final UUID testId = UUID.randomUUID();
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        cache = new TestSnapshotCache(testDao, testMapper, 16);
+        entity.Test test = TestDataBuilders.test();
+        when(testDao.findByIdWithDetails(testId)).thenReturn(Optional.of(test));
+        when(testMapper.toDTO(test)).thenReturn(TestDTO.builder().id(testId).version(1).questions(List.of()).build());
+    }
+
+    @AfterEach
+    void tearDown() {
+        HibernateSessionManager.clearSession();
+    }
+
+    @Test
+    @DisplayName("snapshot loaded in a read-only request is returned but not cached")
+    void get_doesNotCacheReplicaSnapshot() {
+        // ARRANGE
+        HibernateSessionManager.bind(sessionFactory, true);
+        // ACT
+        TestSnapshot snapshot = cache.get(testId);
+        // ASSERT
+        assertEquals(testId, snapshot.getTestId());
+        assertNull(cache.getIfPresent(testId));
+    }
+
+    @Test
+    @DisplayName("shared snapshot cannot be changed through the test it exposes")
+    void get_exposesUnmodifiableTest() {
+        // ARRANGE
+        QuestionDTO question = TestDataBuilders.questionDTO(UUID.randomUUID(), 1).toBuilder()
+                .answers(new ArrayList<>(List.of(TestDataBuilders.answerDTO(UUID.randomUUID())))).build();
+        entity.Test test = TestDataBuilders.test();
+        when(testDao.findByIdWithDetails(testId)).thenReturn(Optional.of(test));
+        when(testMapper.toDTO(test)).thenReturn(TestDTO.builder().id(testId).version(1)
+                .questions(new ArrayList<>(List.of(question))).build());
+        // ACT
+        TestSnapshot snapshot = cache.get(testId);
+        // ASSERT
+        assertThrows(UnsupportedOperationException.class, () -> snapshot.getTest().getQuestions().clear());
+        assertThrows(UnsupportedOperationException.class, () -> snapshot.getQuestion(0).getAnswers().clear());
+    }
+
+    @Test
+    @DisplayName("snapshot loaded in a read-write request is cached")
+    void get_cachesPrimarySnapshot() {
+        // ARRANGE
+        HibernateSessionManager.bind(sessionFactory, false);
+        // ACT
+        TestSnapshot snapshot = cache.get(testId);
+        // ASSERT
+        assertSame(snapshot, cache.getIfPresent(testId));
+    }
+}
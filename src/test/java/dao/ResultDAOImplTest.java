@@ -0,0 +1,96 @@
+package dao;
+
+import dao.impl.ResultDAOImpl;
+import entity.AnswersInResult;
+import entity.Question;
+import entity.Result;
+import org.hibernate.Session;
+import org.hibernate.query.Query;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import util.HibernateSessionManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Checks which queries the DAO builds. The session is mocked, so the number of SQL statements
+ * and lazy loads in the mapper are not covered here.
+ */
+class ResultDAOImplTest {
+    @Mock
+    private Session session;
+    @Mock
+    private Query<Result> resultQuery;
+    @Mock
+    private Query<AnswersInResult> answersInResultQuery;
+    @Mock
+    private Query<Question> questionQuery;
+
+    private ResultDAOImpl resultDao;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        HibernateSessionManager.setSession(session);
+        resultDao = new ResultDAOImpl();
+        when(session.createQuery(anyString(), eq(Result.class))).thenReturn(resultQuery);
+        when(session.createQuery(anyString(), eq(AnswersInResult.class))).thenReturn(answersInResultQuery);
+        when(session.createQuery(anyString(), eq(Question.class))).thenReturn(questionQuery);
+        when(resultQuery.setParameter(anyString(), any())).thenReturn(resultQuery);
+        when(answersInResultQuery.setParameter(anyString(), any())).thenReturn(answersInResultQuery);
+        when(questionQuery.setParameter(anyString(), any())).thenReturn(questionQuery);
+    }
+
+    @AfterEach
+    void tearDown() {
+        HibernateSessionManager.clearSession();
+    }
+
+    @Test
+    @DisplayName("findByIdWithDetails creates one query per level, however many questions the result has")
+    void findByIdWithDetails_createsOneQueryPerLevel() {
+        // ARRANGE
+        List<AnswersInResult> answersInResults = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            answersInResults.add(AnswersInResult.builder().id(UUID.randomUUID()).build());
+        }
+        Result result = Result.builder().id(UUID.randomUUID()).answersInResults(answersInResults).build();
+        when(resultQuery.uniqueResult()).thenReturn(result);
+
+        // ACT
+        Optional<Result> found = resultDao.findByIdWithDetails(result.getId());
+
+        // ASSERT
+        assertTrue(found.isPresent());
+        verify(session, times(3)).createQuery(anyString(), any());
+        verify(answersInResultQuery, times(1)).list();
+        verify(questionQuery, times(1)).list();
+    }
+
+    @Test
+    @DisplayName("findByIdWithDetails creates no further queries if the result is not found")
+    void findByIdWithDetails_stopsIfNotFound() {
+        // ARRANGE
+        when(resultQuery.uniqueResult()).thenReturn(null);
+
+        // ACT
+        Optional<Result> found = resultDao.findByIdWithDetails(UUID.randomUUID());
+
+        // ASSERT
+        assertTrue(found.isEmpty());
+        verify(session, times(1)).createQuery(anyString(), any());
+    }
+}
@@ -0,0 +1,226 @@
+package examstate;
+
+import dao.ExamStateDAO;
+import dto.ExamProgressDTO;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.Transaction;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import util.ConnectionLimiter;
+import util.ExamProgressCodec;
+import util.HibernateSessionManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class PostgresExamStateStoreTest {
+    private static final UUID BLOCKING_USER_ID = UUID.randomUUID();
+
+    @Mock
+    private ExamStateDAO examStateDAO;
+    @Mock
+    private SessionFactory sessionFactory;
+    @Mock
+    private Session session;
+    @Mock
+    private Transaction transaction;
+
+    private PostgresExamStateStore store;
+    // The exam_state table, written and read by the DAO mock
+    private final Map<UUID, byte[]> table = new ConcurrentHashMap<>();
+    private final List<Map<UUID, byte[]>> upserts = new CopyOnWriteArrayList<>();
+    private final CountDownLatch workerBlocked = new CountDownLatch(1);
+    private final CountDownLatch releaseWorker = new CountDownLatch(1);
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(sessionFactory.openSession()).thenReturn(session);
+        when(session.getTransaction()).thenReturn(transaction);
+        // Like the real DAO, every statement opens the session of the current thread
+        doAnswer(invocation -> {
+            HibernateSessionManager.getSession();
+            Map<UUID, byte[]> progressByUserId = invocation.getArgument(0);
+            if (progressByUserId.containsKey(BLOCKING_USER_ID)) {
+                workerBlocked.countDown();
+                releaseWorker.await(5, TimeUnit.SECONDS);
+            }
+            upserts.add(new HashMap<>(progressByUserId));
+            table.putAll(progressByUserId);
+            return null;
+        }).when(examStateDAO).upsertAll(any(), any());
+        doAnswer(invocation -> {
+            HibernateSessionManager.getSession();
+            Collection<UUID> userIds = invocation.getArgument(0);
+            userIds.forEach(table::remove);
+            return null;
+        }).when(examStateDAO).deleteAll(any());
+        doAnswer(invocation -> {
+            HibernateSessionManager.getSession();
+            Collection<UUID> userIds = invocation.getArgument(0);
+            Map<UUID, byte[]> found = new HashMap<>();
+            userIds.stream().filter(table::containsKey).forEach(userId -> found.put(userId, table.get(userId)));
+            return found;
+        }).when(examStateDAO).findProgress(any());
+        store = new PostgresExamStateStore(examStateDAO, sessionFactory, 10, Duration.ofHours(1));
+    }
+
+    @AfterEach
+    void tearDown() {
+        store.shutdown();
+        HibernateSessionManager.setConnectionLimiter(null);
+    }
+
+    @Test
+    @DisplayName("requests holding every connection permit do not stall the exam state worker they wait for")
+    void fullLimiterDoesNotStallWorker() {
+        // ARRANGE
+        HibernateSessionManager.setConnectionLimiter(new ConnectionLimiter(1, 500));
+        store.start();
+        ExamProgressDTO progress = ExamProgressDTO.builder()
+                .testId(UUID.randomUUID())
+                .userId(UUID.randomUUID())
+                .startedAt(LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS))
+                .build();
+        HibernateSessionManager.bind(sessionFactory, false);
+        try {
+            HibernateSessionManager.getSession();
+
+            // ACT & ASSERT
+            assertDoesNotThrow(() -> store.save(progress));
+            assertDoesNotThrow(() -> store.find(progress.getUserId()));
+        } finally {
+            HibernateSessionManager.closeSession();
+        }
+        verify(examStateDAO).upsertAll(any(), any());
+    }
+
+    @Test
+    @DisplayName("operations queued while the worker is busy are written in one transaction")
+    void batchesQueuedOperations() throws InterruptedException {
+        // ARRANGE
+        store.start();
+        Thread blocking = blockWorker();
+        ExamProgressDTO first = progress(UUID.randomUUID(), 1);
+        ExamProgressDTO second = progress(UUID.randomUUID(), 2);
+        AtomicReference<Optional<ExamProgressDTO>> read = new AtomicReference<>();
+        // ACT
+        List<Thread> queued = List.of(
+                enqueue(() -> store.save(first)),
+                enqueue(() -> store.save(second)),
+                enqueue(() -> read.set(store.find(first.getUserId()))));
+        releaseWorker.countDown();
+        join(blocking, queued);
+        // ASSERT
+        assertEquals(2, upserts.size());
+        assertEquals(Set.of(first.getUserId(), second.getUserId()), upserts.get(1).keySet());
+        assertEquals(1, read.get().orElseThrow().getAnsweredCount());
+        verify(examStateDAO, times(1)).findProgress(any());
+    }
+
+    @Test
+    @DisplayName("of several saves for a user in one batch the last one is written and read back")
+    void lastSaveWins() throws InterruptedException {
+        // ARRANGE
+        store.start();
+        Thread blocking = blockWorker();
+        UUID userId = UUID.randomUUID();
+        AtomicReference<Optional<ExamProgressDTO>> read = new AtomicReference<>();
+        // ACT
+        List<Thread> queued = List.of(
+                enqueue(() -> store.save(progress(userId, 1))),
+                enqueue(() -> store.save(progress(userId, 2))),
+                enqueue(() -> read.set(store.find(userId))));
+        releaseWorker.countDown();
+        join(blocking, queued);
+        // ASSERT
+        assertEquals(2, ExamProgressCodec.decode(upserts.get(1).get(userId)).getAnsweredCount());
+        assertEquals(2, read.get().orElseThrow().getAnsweredCount());
+        assertEquals(2, store.find(userId).orElseThrow().getAnsweredCount());
+    }
+
+    @Test
+    @DisplayName("a remove queued after a save in the same batch leaves no progress, a save after a remove keeps it")
+    void appliesSaveAndRemoveInOrder() throws InterruptedException {
+        // ARRANGE
+        store.start();
+        Thread blocking = blockWorker();
+        UUID finishedUserId = UUID.randomUUID();
+        UUID restartedUserId = UUID.randomUUID();
+        // ACT
+        List<Thread> queued = List.of(
+                enqueue(() -> store.save(progress(finishedUserId, 1))),
+                enqueue(() -> store.remove(finishedUserId)),
+                enqueue(() -> store.remove(restartedUserId)),
+                enqueue(() -> store.save(progress(restartedUserId, 0))));
+        releaseWorker.countDown();
+        join(blocking, queued);
+        // ASSERT
+        assertFalse(upserts.get(1).containsKey(finishedUserId));
+        assertTrue(store.find(finishedUserId).isEmpty());
+        assertTrue(store.find(restartedUserId).isPresent());
+    }
+
+    private static ExamProgressDTO progress(UUID userId, int answeredCount) {
+        return ExamProgressDTO.builder()
+                .testId(UUID.randomUUID())
+                .userId(userId)
+                .startedAt(LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS))
+                .selectedAnswers(new long[answeredCount])
+                .build();
+    }
+
+    /**
+     * Keeps the worker inside a transaction until {@link #releaseWorker} is counted down,
+     * so the operations queued meanwhile make up the next batch.
+     */
+    private Thread blockWorker() throws InterruptedException {
+        Thread blocking = new Thread(() -> store.save(progress(BLOCKING_USER_ID, 0)));
+        blocking.start();
+        assertTrue(workerBlocked.await(5, TimeUnit.SECONDS));
+        return blocking;
+    }
+
+    /**
+     * Runs the operation on its own thread and returns once the operation is queued, so operations keep their order.
+     */
+    private static Thread enqueue(Runnable operation) throws InterruptedException {
+        Thread thread = new Thread(operation);
+        thread.start();
+        long deadline = System.currentTimeMillis() + 5000;
+        while (thread.getState() != Thread.State.TIMED_WAITING && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(Thread.State.TIMED_WAITING, thread.getState());
+        return thread;
+    }
+
+    private static void join(Thread blocking, List<Thread> queued) throws InterruptedException {
+        blocking.join(5000);
+        for (Thread thread : queued) {
+            thread.join(5000);
+        }
+    }
+}
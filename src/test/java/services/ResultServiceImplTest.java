@@ -1,28 +1,35 @@
 package services;
 
+import cache.TestSnapshot;
+import cache.TestSnapshotCache;
+import constants.StatsSource;
 import dao.ResultDAO;
+import dao.TestStatsDAO;
 import dto.*;
-import entity.User;
 import entity.Answer;
-import entity.Question;
 import entity.AnswersInResult;
+import entity.Question;
 import entity.Result;
+import entity.TestStats;
 import exceptions.DataAccessException;
 import exceptions.SaveException;
 import exceptions.ValidationException;
 import mappers.ResultMapper;
+import mappers.TestStatsMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.DisplayName;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import scoring.ScoringMode;
 import services.interfaces.TestService;
 import services.interfaces.UserService;
 import validators.ValidatorResultService;
 
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -31,11 +38,17 @@ class ResultServiceImplTest {
     @Mock
     private ResultDAO resultDao;
     @Mock
+    private TestStatsDAO testStatsDao;
+    @Mock
     private ResultMapper resultMapper;
     @Mock
+    private TestStatsMapper testStatsMapper;
+    @Mock
     private UserService userService;
     @Mock
     private TestService testService;
+    @Mock
+    private TestSnapshotCache testSnapshotCache;
 
 
     @InjectMocks
@@ -45,49 +58,59 @@ class ResultServiceImplTest {
     void setUp() {
         MockitoAnnotations.openMocks(this);
         ValidatorResultService validatorResultService = new ValidatorResultService();
-        resultService = new ResultServiceImpl(resultDao, resultMapper, testService, userService, validatorResultService);
+        resultService = new ResultServiceImpl(resultDao, testStatsDao, resultMapper, testStatsMapper, testService, userService, validatorResultService, StatsSource.TABLE, testSnapshotCache, ScoringMode.ALL_OR_NOTHING);
     }
 
     @Test
-    @DisplayName("buildStartResultObject creates Result with correct fields")
-    void buildStartResultObject_createsResultWithCorrectFields() {
+    @DisplayName("buildAndSaveFinalResult saves result successfully")
+    void buildAndSaveFinalResult_savesResult() {
         // ARRANGE
-        User user = TestDataBuilders.user();
+        ResultDTO resultDTO = mock(ResultDTO.class);
+        Result result = mock(Result.class);
         entity.Test test = TestDataBuilders.test();
-        LocalDateTime now = LocalDateTime.now();
+        Question question = TestDataBuilders.question(new ArrayList<>(), 1);
+        test.setQuestions(List.of(question));
+        when(userService.getUserReference(any())).thenReturn(TestDataBuilders.user());
+        when(testService.findTestById(any())).thenReturn(test);
+        when(resultMapper.toEntity(resultDTO)).thenReturn(result);
+        when(result.getTest()).thenReturn(test);
+        when(result.getAnswersInResults()).thenReturn(new ArrayList<>());
 
         // ACT
-        Result result = resultService.buildStartResultObject(test, user, now);
+        resultService.buildAndSaveFinalResult(resultDTO);
 
         // ASSERT
-        assertEquals(user, result.getUser());
-        assertEquals(test, result.getTest());
-        assertEquals(now, result.getDate());
-        assertEquals("Sample Test", result.getTestTitle());
-        assertNotNull(result.getAnswersInResults());
-        assertTrue(result.getAnswersInResults().isEmpty());
+        verify(resultDao, times(1)).save(any(Result.class));
+        verify(testStatsDao, times(1)).recordResult(result);
+        verify(userService, never()).findUserById(any());
     }
 
     @Test
-    @DisplayName("buildAndSaveFinalResult saves result successfully")
-    void buildAndSaveFinalResult_savesResult() {
+    @DisplayName("buildAndSaveFinalResult saves and records the question count of the test, not the answered count")
+    void buildAndSaveFinalResult_recordsQuestionCountOfTest() {
         // ARRANGE
         ResultDTO resultDTO = mock(ResultDTO.class);
-        Result result = mock(Result.class);
+        Result result = Result.builder().build();
         entity.Test test = TestDataBuilders.test();
-        Question question = TestDataBuilders.question(new ArrayList<>(), 1);
-        test.setQuestions(List.of(question));
-        when(userService.findUserById(any())).thenReturn(TestDataBuilders.user());
+        Question answered = TestDataBuilders.question(new ArrayList<>(), 1);
+        test.setQuestions(List.of(answered, TestDataBuilders.question(new ArrayList<>(), 2),
+                TestDataBuilders.question(new ArrayList<>(), 3)));
+        when(userService.getUserReference(any())).thenReturn(TestDataBuilders.user());
         when(testService.findTestById(any())).thenReturn(test);
         when(resultMapper.toEntity(resultDTO)).thenReturn(result);
-        when(result.getTest()).thenReturn(test);
-        when(result.getAnswersInResults()).thenReturn(new ArrayList<>());
+        when(resultDTO.getAnswersInResults()).thenReturn(List.of(AnswersInResultDTO.builder()
+                .question(QuestionDTO.builder().id(answered.getId()).build())
+                .selectedAnswers(List.of())
+                .build()));
 
         // ACT
         resultService.buildAndSaveFinalResult(resultDTO);
 
         // ASSERT
-        verify(resultDao, times(1)).save(any(Result.class));
+        assertEquals(1, result.getAnswersInResults().size());
+        assertEquals(3, result.getTotalQuestions());
+        verify(resultDao, times(1)).save(result);
+        verify(testStatsDao, times(1)).recordResult(result);
     }
 
     @Test
@@ -99,7 +122,7 @@ class ResultServiceImplTest {
         entity.Test test = TestDataBuilders.test();
         Question question = TestDataBuilders.question(new ArrayList<>(), 1);
         test.setQuestions(List.of(question));
-        when(userService.findUserById(any())).thenReturn(TestDataBuilders.user());
+        when(userService.getUserReference(any())).thenReturn(TestDataBuilders.user());
         when(testService.findTestById(any())).thenReturn(test);
         when(resultMapper.toEntity(resultDTO)).thenReturn(result);
         when(result.getTest()).thenReturn(test);
@@ -108,68 +131,118 @@ class ResultServiceImplTest {
 
         // ACT & ASSERT
         assertThrows(SaveException.class, () -> resultService.buildAndSaveFinalResult(resultDTO));
+        verify(testStatsDao, never()).recordResult(any());
     }
 
     @Test
-    @DisplayName("calculateScoreResult counts correct answers")
-    void calculateScoreResult_countsCorrectAnswers() {
+    @DisplayName("getResultHistoryPage returns the last page without a cursor")
+    void getResultHistoryPage_lastPage() {
         // ARRANGE
-        Answer correct = TestDataBuilders.answer(true);
-        Answer wrong = TestDataBuilders.answer(false);
-        Question question = TestDataBuilders.question(List.of(correct, wrong), 1);
-        AnswersInResult air = TestDataBuilders.answersInResult(question, List.of(correct));
-        Result result = TestDataBuilders.result(List.of(air));
+        UUID userId = UUID.randomUUID();
+        ResultSummaryDTO summary = ResultSummaryDTO.builder().id(UUID.randomUUID()).date(LocalDateTime.now()).build();
+        when(resultDao.findHistoryPage(userId, null, null, 21)).thenReturn(List.of(summary));
 
         // ACT
-        Result scored = resultService.calculateScoreResult(result);
+        PageDTO<ResultSummaryDTO> page = resultService.getResultHistoryPage(userId, null);
 
         // ASSERT
-        assertEquals(1, scored.getScore());
+        assertEquals(List.of(summary), page.getItems());
+        assertNull(page.getNextCursor());
+        assertFalse(page.isHasNext());
     }
 
     @Test
-    @DisplayName("getAllResultsByUserId returns sorted ResultDTOs by date")
-    void getAllResultsByUserId_returnsSortedDTOs() {
+    @DisplayName("getResultHistoryPage returns a cursor that continues after the last item")
+    void getResultHistoryPage_cursorContinuesAfterLastItem() {
         // ARRANGE
         UUID userId = UUID.randomUUID();
-        Result result1 = TestDataBuilders.result(new ArrayList<>());
-        result1.setDate(LocalDateTime.now().minusDays(1));
-        Result result2 = TestDataBuilders.result(new ArrayList<>());
-        result2.setDate(LocalDateTime.now());
-        when(resultDao.getAllResultsByUserId(userId)).thenReturn(List.of(result1, result2));
-        ResultDTO dto1 = mock(ResultDTO.class);
-        ResultDTO dto2 = mock(ResultDTO.class);
-        when(resultMapper.toDTO(result1)).thenReturn(dto1);
-        when(resultMapper.toDTO(result2)).thenReturn(dto2);
-        when(dto1.getDate()).thenReturn(result1.getDate());
-        when(dto2.getDate()).thenReturn(result2.getDate());
+        LocalDateTime now = LocalDateTime.now();
+        List<ResultSummaryDTO> rows = new ArrayList<>();
+        for (int i = 0; i < 21; i++) {
+            rows.add(ResultSummaryDTO.builder().id(UUID.randomUUID()).date(now.minusMinutes(i)).build());
+        }
+        ResultSummaryDTO last = rows.get(19);
+        when(resultDao.findHistoryPage(userId, null, null, 21)).thenReturn(rows);
+        when(resultDao.findHistoryPage(userId, last.getDate(), last.getId(), 21)).thenReturn(List.of(rows.get(20)));
 
         // ACT
-        List<ResultDTO> result = resultService.getAllResultsByUserId(userId);
+        PageDTO<ResultSummaryDTO> first = resultService.getResultHistoryPage(userId, null);
+        PageDTO<ResultSummaryDTO> second = resultService.getResultHistoryPage(userId, first.getNextCursor());
 
         // ASSERT
-        assertEquals(List.of(dto2, dto1), result);
+        assertEquals(20, first.getItems().size());
+        assertTrue(first.isHasNext());
+        assertEquals(List.of(rows.get(20)), second.getItems());
+        assertFalse(second.isHasNext());
+    }
+
+    @Test
+    @DisplayName("getResultHistoryPage throws on a malformed cursor")
+    void getResultHistoryPage_throwsOnInvalidCursor() {
+        // ACT & ASSERT
+        assertThrows(ValidationException.class, () -> resultService.getResultHistoryPage(UUID.randomUUID(), "not-a-cursor"));
     }
 
     @Test
     @DisplayName("getStats returns statistics list for tests")
     void getStats_returnsStatsList() {
         // ARRANGE
-        Result result = TestDataBuilders.result(new ArrayList<>());
-        result.setTestTitle("Test1");
-        result.setScore(5);
-        result.setDate(LocalDateTime.now());
-        Question q = TestDataBuilders.question(new ArrayList<>(), 1);
-        AnswersInResult air = TestDataBuilders.answersInResult(q, new ArrayList<>());
-        result.setAnswersInResults(List.of(air));
-        when(resultDao.findAllWithDetails()).thenReturn(List.of(result));
+        TestStats testStats = TestStats.builder()
+                .testId(UUID.randomUUID())
+                .testTitle("Test1")
+                .attempts(2)
+                .scoreSum(7)
+                .maxScore(5)
+                .build();
+        TestStatsDTO dto = TestStatsDTO.builder().testTitle("Test1").build();
+        when(testStatsDao.findAllOrderedByAttempts()).thenReturn(List.of(testStats));
+        when(testStatsMapper.toDTO(testStats)).thenReturn(dto);
 
         // ACT
         List<TestStatsDTO> stats = resultService.getStats();
 
         // ASSERT
-        assertEquals(1, stats.size());
-        assertEquals("Test1", stats.get(0).getTestTitle());
+        assertEquals(List.of(dto), stats);
+    }
+
+    @Test
+    @DisplayName("getStatsReport sums attempts from the stats table")
+    void getStatsReport_fromTable() {
+        // ARRANGE
+        TestStats stats1 = TestStats.builder().testId(UUID.randomUUID()).attempts(3).build();
+        TestStats stats2 = TestStats.builder().testId(UUID.randomUUID()).attempts(2).build();
+        TestStatsDTO dto1 = TestStatsDTO.builder().totalPassed(3L).build();
+        TestStatsDTO dto2 = TestStatsDTO.builder().totalPassed(2L).build();
+        when(testStatsDao.findAllOrderedByAttempts()).thenReturn(List.of(stats1, stats2));
+        when(testStatsMapper.toDTO(stats1)).thenReturn(dto1);
+        when(testStatsMapper.toDTO(stats2)).thenReturn(dto2);
+
+        // ACT
+        TestStatsReportDTO report = resultService.getStatsReport();
+
+        // ASSERT
+        assertEquals(List.of(dto1, dto2), report.getStats());
+        assertEquals(5, report.getAttempts());
+        verify(resultDao, never()).getCount();
+        verify(resultDao, never()).aggregateStats();
+    }
+
+    @Test
+    @DisplayName("getStatsReport aggregates results on the database when configured")
+    void getStatsReport_fromQuery() {
+        // ARRANGE
+        resultService = new ResultServiceImpl(resultDao, testStatsDao, resultMapper, testStatsMapper, testService, userService, new ValidatorResultService(), StatsSource.QUERY, testSnapshotCache, ScoringMode.ALL_OR_NOTHING);
+        TestStatsDTO dto = TestStatsDTO.builder().testTitle("Test1").totalPassed(4L).build();
+        when(resultDao.aggregateStats()).thenReturn(List.of(dto));
+
+        // ACT
+        TestStatsReportDTO report = resultService.getStatsReport();
+
+        // ASSERT
+        assertEquals(List.of(dto), report.getStats());
+        assertEquals(4, report.getAttempts());
+        verify(resultDao, never()).getCount();
+        verify(testStatsDao, never()).findAllOrderedByAttempts();
     }
 
     @Test
@@ -182,6 +255,23 @@ class ResultServiceImplTest {
         assertEquals(42L, resultService.countAttempts());
     }
 
+    @Test
+    @DisplayName("streamResultsForExport returns the DAO cursor stream")
+    void streamResultsForExport_returnsDaoStream() {
+        // ARRANGE
+        ResultExportDTO row = ResultExportDTO.builder().id(UUID.randomUUID()).username("user").score(3).build();
+        when(resultDao.streamAllForExport()).thenReturn(Stream.of(row));
+
+        // ACT
+        List<ResultExportDTO> exported;
+        try (Stream<ResultExportDTO> stream = resultService.streamResultsForExport()) {
+            exported = stream.toList();
+        }
+
+        // ASSERT
+        assertEquals(List.of(row), exported);
+    }
+
     @Test
     @DisplayName("findByIdWithDetails returns ResultDTO if found")
     void findByIdWithDetails_returnsDTO() {
@@ -211,7 +301,7 @@ class ResultServiceImplTest {
     void buildAndSaveFinalResult_throwsValidationExceptionIfUserNotFound() {
         // ARRANGE
         ResultDTO resultDTO = mock(ResultDTO.class);
-        when(userService.findUserById(any())).thenReturn(null);
+        when(userService.getUserReference(any())).thenReturn(null);
         // ACT & ASSERT
         assertThrows(ValidationException.class, () -> resultService.buildAndSaveFinalResult(resultDTO));
     }
@@ -221,7 +311,7 @@ class ResultServiceImplTest {
     void buildAndSaveFinalResult_throwsValidationExceptionIfTestNotFound() {
         // ARRANGE
         ResultDTO resultDTO = mock(ResultDTO.class);
-        when(userService.findUserById(any())).thenReturn(TestDataBuilders.user());
+        when(userService.getUserReference(any())).thenReturn(TestDataBuilders.user());
         when(testService.findTestById(any())).thenReturn(null);
         // ACT & ASSERT
         assertThrows(ValidationException.class, () -> resultService.buildAndSaveFinalResult(resultDTO));
@@ -232,7 +322,7 @@ class ResultServiceImplTest {
     void buildAndSaveFinalResult_throwsValidationExceptionIfResultMappingFailed() {
         // ARRANGE
         ResultDTO resultDTO = mock(ResultDTO.class);
-        when(userService.findUserById(any())).thenReturn(TestDataBuilders.user());
+        when(userService.getUserReference(any())).thenReturn(TestDataBuilders.user());
         when(testService.findTestById(any())).thenReturn(TestDataBuilders.test());
         when(resultMapper.toEntity(resultDTO)).thenReturn(null);
         // ACT & ASSERT
@@ -244,7 +334,7 @@ class ResultServiceImplTest {
     void buildAndSaveFinalResult_throwsSaveExceptionIfQuestionNotFound() {
         // ARRANGE
         ResultDTO resultDTO = mock(ResultDTO.class);
-        when(userService.findUserById(any())).thenReturn(TestDataBuilders.user());
+        when(userService.getUserReference(any())).thenReturn(TestDataBuilders.user());
         entity.Test test = TestDataBuilders.test();
         test.setQuestions(new ArrayList<>());
         when(testService.findTestById(any())).thenReturn(test);
@@ -267,7 +357,7 @@ class ResultServiceImplTest {
     void buildAndSaveFinalResult_throwsSaveExceptionIfAnswerNotFound() {
         // ARRANGE
         ResultDTO resultDTO = mock(ResultDTO.class);
-        when(userService.findUserById(any())).thenReturn(TestDataBuilders.user());
+        when(userService.getUserReference(any())).thenReturn(TestDataBuilders.user());
         entity.Test test = TestDataBuilders.test();
         // Вопрос с пустым списком ответов
         Question question = TestDataBuilders.question(new ArrayList<>(), 1);
@@ -290,4 +380,95 @@ class ResultServiceImplTest {
         assertThrows(SaveException.class, () -> resultService.buildAndSaveFinalResult(resultDTO));
     }
 
+
+    @Test
+    @DisplayName("regrade scores against the corrected answers, skips removed questions and keeps an unchanged score")
+    void regrade_rescoresWithCurrentAnswers() {
+        // ARRANGE
+        Answer firstCorrect = TestDataBuilders.answer(true);
+        Answer firstWrong = TestDataBuilders.answer(false);
+        Answer secondFormerlyCorrect = TestDataBuilders.answer(true);
+        Answer secondFormerlyWrong = TestDataBuilders.answer(false);
+        Question first = TestDataBuilders.question(List.of(firstCorrect, firstWrong), 1);
+        Question second = TestDataBuilders.question(List.of(secondFormerlyCorrect, secondFormerlyWrong), 2);
+        Question removed = TestDataBuilders.question(List.of(TestDataBuilders.answer(true)), 3);
+        entity.Test test = TestDataBuilders.test();
+        List<AnswersInResult> answersInResults = List.of(
+                TestDataBuilders.answersInResult(first, List.of(firstCorrect)),
+                TestDataBuilders.answersInResult(second, List.of(secondFormerlyWrong)),
+                TestDataBuilders.answersInResult(removed, removed.getAnswers()));
+        Result result = TestDataBuilders.result(answersInResults);
+        result.setId(UUID.randomUUID());
+        result.setTest(test);
+        result.setScore(2);
+        // The answers of the second question have been corrected since, and the third question removed
+        TestSnapshot snapshot = TestSnapshot.of(TestDTO.builder().id(test.getId()).version(2).questions(List.of(
+                questionDTO(first, firstCorrect.getId()),
+                questionDTO(second, secondFormerlyWrong.getId()))).build());
+        when(resultDao.findByIdWithDetails(result.getId())).thenReturn(Optional.of(result));
+        when(testSnapshotCache.getCurrent(test.getId())).thenReturn(snapshot);
+
+        // ACT
+        int score = resultService.regrade(result.getId());
+
+        // ASSERT
+        assertEquals(2, score);
+        assertEquals(2, result.getScore());
+        verify(resultDao, never()).update(any());
+        verify(testStatsDao, never()).changeScore(any(), anyInt(), anyInt());
+    }
+
+    @Test
+    @DisplayName("regrade saves a changed score and moves it in the test statistics")
+    void regrade_savesChangedScore() {
+        // ARRANGE
+        Answer correct = TestDataBuilders.answer(true);
+        Answer formerlyWrong = TestDataBuilders.answer(false);
+        Question question = TestDataBuilders.question(List.of(correct, formerlyWrong), 1);
+        entity.Test test = TestDataBuilders.test();
+        Result result = TestDataBuilders.result(List.of(TestDataBuilders.answersInResult(question, List.of(formerlyWrong))));
+        result.setId(UUID.randomUUID());
+        result.setTest(test);
+        result.setScore(0);
+        TestSnapshot snapshot = TestSnapshot.of(TestDTO.builder().id(test.getId()).version(2)
+                .questions(List.of(questionDTO(question, formerlyWrong.getId()))).build());
+        when(resultDao.findByIdWithDetails(result.getId())).thenReturn(Optional.of(result));
+        when(testSnapshotCache.getCurrent(test.getId())).thenReturn(snapshot);
+
+        // ACT
+        int score = resultService.regrade(result.getId());
+
+        // ASSERT
+        assertEquals(1, score);
+        assertEquals(1, result.getScore());
+        verify(resultDao, times(1)).update(result);
+        verify(testStatsDao, times(1)).changeScore(test.getId(), 0, 1);
+    }
+
+    @Test
+    @DisplayName("regrade throws ValidationException if the result is not found")
+    void regrade_throwsIfNotFound() {
+        // ARRANGE
+        when(resultDao.findByIdWithDetails(any())).thenReturn(Optional.empty());
+
+        // ACT & ASSERT
+        assertThrows(ValidationException.class, () -> resultService.regrade(UUID.randomUUID()));
+        verifyNoInteractions(testSnapshotCache);
+    }
+
+    /**
+     * Maps the question with the given answer as the only correct one.
+     */
+    private static QuestionDTO questionDTO(Question question, UUID correctAnswerId) {
+        return QuestionDTO.builder()
+                .id(question.getId())
+                .questionNumber(question.getQuestionNumber())
+                .answers(question.getAnswers().stream()
+                        .map(answer -> AnswerDTO.builder()
+                                .id(answer.getId())
+                                .correct(answer.getId().equals(correctAnswerId))
+                                .build())
+                        .toList())
+                .build();
+    }
 }
@@ -0,0 +1,208 @@
+package services;
+
+import dto.AnswerDTO;
+import dto.AnswersInResultDTO;
+import dto.QuestionDTO;
+import dto.ResultDTO;
+import exceptions.DataAccessException;
+import exceptions.ValidationException;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import services.interfaces.ResultService;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class ResultSubmissionServiceImplTest {
+    @Mock
+    private ResultService resultService;
+    @Mock
+    private SessionFactory sessionFactory;
+
+    private static final int MAX_ATTEMPTS = 3;
+
+    private Path spillFile;
+    private Path deadLetterFile;
+    private ResultSubmissionServiceImpl resultSubmissionService;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        MockitoAnnotations.openMocks(this);
+        spillFile = Files.createTempDirectory("results").resolve("results.spill");
+        deadLetterFile = spillFile.resolveSibling(spillFile.getFileName() + ".dead");
+        resultSubmissionService = new ResultSubmissionServiceImpl(resultService, sessionFactory, 10, 5, MAX_ATTEMPTS, spillFile, 10);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        resultSubmissionService.shutdown();
+        Files.deleteIfExists(spillFile);
+        Files.deleteIfExists(spillFile.resolveSibling(spillFile.getFileName() + ".replay"));
+        Files.deleteIfExists(deadLetterFile);
+        Files.deleteIfExists(spillFile.getParent());
+    }
+
+    @Test
+    @DisplayName("submit saves the result in the background")
+    void submit_savesResultInBackground() {
+        // ARRANGE
+        ResultDTO resultDTO = result();
+        resultSubmissionService.start();
+
+        // ACT
+        resultSubmissionService.submit(resultDTO);
+
+        // ASSERT
+        ArgumentCaptor<ResultDTO> captor = ArgumentCaptor.forClass(ResultDTO.class);
+        verify(resultService, timeout(2000)).buildAndSaveFinalResult(captor.capture());
+        assertNotNull(captor.getValue().getId());
+        assertEquals(resultDTO.getUserId(), captor.getValue().getUserId());
+    }
+
+    @Test
+    @DisplayName("submit spills the result when the writer is not running and start replays it")
+    void submit_spillsWhenStoppedAndReplaysOnStart() {
+        // ARRANGE
+        ResultDTO resultDTO = result().toBuilder().id(UUID.randomUUID()).build();
+
+        // ACT
+        resultSubmissionService.submit(resultDTO);
+        assertTrue(Files.exists(spillFile));
+        resultSubmissionService.start();
+
+        // ASSERT
+        ArgumentCaptor<ResultDTO> captor = ArgumentCaptor.forClass(ResultDTO.class);
+        verify(resultService, timeout(5000)).buildAndSaveFinalResult(captor.capture());
+        ResultDTO replayed = captor.getValue();
+        assertEquals(resultDTO.getId(), replayed.getId());
+        assertEquals(resultDTO.getUserId(), replayed.getUserId());
+        assertEquals(resultDTO.getTestId(), replayed.getTestId());
+        assertEquals(resultDTO.getScore(), replayed.getScore());
+        assertEquals(resultDTO.getDate(), replayed.getDate());
+        assertEquals(resultDTO.getTestTitle(), replayed.getTestTitle());
+        assertEquals(resultDTO.getAnswersInResults().get(0).getQuestion().getId(),
+                replayed.getAnswersInResults().get(0).getQuestion().getId());
+        assertEquals(resultDTO.getAnswersInResults().get(0).getSelectedAnswers().get(0).getId(),
+                replayed.getAnswersInResults().get(0).getSelectedAnswers().get(0).getId());
+    }
+
+    @Test
+    @DisplayName("replaying the spill file skips results that were saved before a crash")
+    void start_skipsAlreadySavedResultsOnReplay() throws InterruptedException {
+        // ARRANGE
+        ResultDTO saved = result().toBuilder().id(UUID.randomUUID()).build();
+        ResultDTO unsaved = result().toBuilder().id(UUID.randomUUID()).build();
+        when(resultService.findSavedResultIds(any())).thenReturn(Set.of(saved.getId()));
+        resultSubmissionService.submit(saved);
+        resultSubmissionService.submit(unsaved);
+
+        // ACT
+        resultSubmissionService.start();
+
+        // ASSERT
+        ArgumentCaptor<ResultDTO> captor = ArgumentCaptor.forClass(ResultDTO.class);
+        verify(resultService, timeout(5000)).buildAndSaveFinalResult(captor.capture());
+        assertEquals(unsaved.getId(), captor.getValue().getId());
+        awaitReplayed();
+        verify(resultService, times(1)).buildAndSaveFinalResult(any());
+    }
+
+    @Test
+    @DisplayName("a result that fails validation goes to the dead-letter file instead of being spilled")
+    void submit_deadLettersResultFailingValidation() {
+        // ARRANGE
+        doThrow(new ValidationException("Test not found")).when(resultService).buildAndSaveFinalResult(any());
+        resultSubmissionService.start();
+
+        // ACT
+        resultSubmissionService.submit(result());
+        verify(resultService, timeout(2000)).buildAndSaveFinalResult(any());
+        resultSubmissionService.shutdown();
+
+        // ASSERT
+        assertFalse(Files.exists(spillFile));
+        assertTrue(Files.exists(deadLetterFile));
+    }
+
+    @Test
+    @DisplayName("a result breaking a database constraint on commit goes to the dead-letter file without a retry")
+    void submit_deadLettersConstraintViolation() throws InterruptedException {
+        // ARRANGE
+        doThrow(new DataAccessException("Failed to save result", new SQLException("violates foreign key constraint", "23503")))
+                .when(resultService).buildAndSaveFinalResult(any());
+        resultSubmissionService.start();
+
+        // ACT
+        resultSubmissionService.submit(result());
+
+        // ASSERT
+        awaitFile(deadLetterFile);
+        awaitReplayed();
+        verify(resultService, times(1)).buildAndSaveFinalResult(any());
+        assertFalse(Files.exists(spillFile));
+    }
+
+    @Test
+    @DisplayName("a result that keeps failing is retried maxAttempts times and then moved to the dead-letter file")
+    void submit_deadLettersPoisonResultAfterMaxAttempts() throws InterruptedException {
+        // ARRANGE
+        doThrow(new DataAccessException("Connection reset")).when(resultService).buildAndSaveFinalResult(any());
+        resultSubmissionService.start();
+
+        // ACT
+        resultSubmissionService.submit(result());
+
+        // ASSERT
+        awaitFile(deadLetterFile);
+        awaitReplayed();
+        verify(resultService, times(MAX_ATTEMPTS)).buildAndSaveFinalResult(any());
+        assertFalse(Files.exists(spillFile));
+    }
+
+    private void awaitFile(Path file) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!Files.exists(file) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(Files.exists(file));
+    }
+
+    private void awaitReplayed() throws InterruptedException {
+        Path replayFile = spillFile.resolveSibling(spillFile.getFileName() + ".replay");
+        long deadline = System.currentTimeMillis() + 5000;
+        while ((Files.exists(spillFile) || Files.exists(replayFile)) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+
+    private ResultDTO result() {
+        return ResultDTO.builder()
+                .userId(UUID.randomUUID())
+                .testId(UUID.randomUUID())
+                .score(1)
+                .testTitle("Java Basics")
+                .date(LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS))
+                .answersInResults(List.of(AnswersInResultDTO.builder()
+                        .question(QuestionDTO.builder().id(UUID.randomUUID()).build())
+                        .selectedAnswers(List.of(AnswerDTO.builder().id(UUID.randomUUID()).build()))
+                        .build()))
+                .build();
+    }
+}
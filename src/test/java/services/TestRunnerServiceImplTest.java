@@ -1,22 +1,18 @@
 package services;
 
+import cache.TestSnapshot;
+import cache.TestSnapshotCache;
 import dao.TestDAO;
 import dto.*;
-import entity.Question;
-import entity.Result;
-import entity.User;
 import exceptions.ValidationException;
-import mappers.QuestionMapper;
-import mappers.ResultMapper;
 import mappers.TestMapper;
-import mappers.UserMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
-import services.interfaces.ResultService;
+import scoring.ScoringMode;
 import validators.ValidatorTestRunnerService;
 
 import java.time.LocalDateTime;
@@ -33,17 +29,9 @@ class TestRunnerServiceImplTest {
     @Mock
     private TestDAO testDao;
     @Mock
-    private ResultService resultService;
-    @Mock
     private ValidatorTestRunnerService validatorTestRunnerService;
     @Mock
     private TestMapper testMapper;
-    @Mock
-    private QuestionMapper questionMapper;
-    @Mock
-    private ResultMapper resultMapper;
-    @Mock
-    private UserMapper userMapper;
 
     @InjectMocks
     private TestRunnerServiceImpl testRunnerService;
@@ -51,33 +39,30 @@ class TestRunnerServiceImplTest {
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
-        testRunnerService = new TestRunnerServiceImpl(testDao, resultService, validatorTestRunnerService, testMapper, questionMapper, resultMapper, userMapper);
+        TestSnapshotCache testSnapshotCache = new TestSnapshotCache(testDao, testMapper, 16);
+        testRunnerService = new TestRunnerServiceImpl(validatorTestRunnerService, testSnapshotCache, ScoringMode.ALL_OR_NOTHING);
     }
 
     @Test
-    @DisplayName("startTest returns first question and result on success")
+    @DisplayName("startTest returns first question and empty progress on success")
     void startTest_success() {
         // ARRANGE
         UUID testId = UUID.randomUUID();
-        UserDTO userDTO = UserDTO.builder().username("user").build();
+        UserDTO userDTO = UserDTO.builder().id(UUID.randomUUID()).username("user").build();
+        QuestionDTO q1 = TestDataBuilders.questionDTO(UUID.randomUUID(), 1);
+        QuestionDTO q2 = TestDataBuilders.questionDTO(UUID.randomUUID(), 2);
         entity.Test test = TestDataBuilders.test();
-        Question question = TestDataBuilders.question(new ArrayList<>(), 1);
-        test.setQuestions(List.of(question));
-        User user = TestDataBuilders.user();
-        Result result = TestDataBuilders.result(new ArrayList<>());
-        ResultDTO resultDTO = mock(ResultDTO.class);
-        QuestionDTO questionDTO = mock(QuestionDTO.class);
-        when(testDao.findByIdWithDetails(testId)).thenReturn(Optional.of(test));
-        doNothing().when(validatorTestRunnerService).validateTestSessionStart(test, userDTO);
-        when(userMapper.toEntity(userDTO)).thenReturn(user);
-        when(resultService.buildStartResultObject(eq(test), eq(user), any())).thenReturn(result);
-        when(questionMapper.toDTO(question)).thenReturn(questionDTO);
-        when(resultMapper.toDTO(result)).thenReturn(resultDTO);
+        when(testDao.findVersion(testId)).thenReturn(Optional.of(3));
+        when(testDao.findByIdWithDetails(testId)).thenReturn(Optional.of(test));
+        when(testMapper.toDTO(test)).thenReturn(TestDTO.builder().id(testId).version(3).questions(List.of(q2, q1)).build());
         // ACT
         TestSessionDTO session = testRunnerService.startTest(testId, userDTO);
         // ASSERT
-        assertEquals(questionDTO, session.getCurrentQuestion());
-        assertEquals(resultDTO, session.getResult());
+        assertEquals(q1, session.getCurrentQuestion());
+        assertEquals(testId, session.getProgress().getTestId());
+        assertEquals(3, session.getProgress().getTestVersion());
+        assertEquals(userDTO.getId(), session.getProgress().getUserId());
+        assertEquals(0, session.getProgress().getAnsweredCount());
         assertFalse(session.isTestTimeOut());
     }
 
@@ -92,6 +77,31 @@ class TestRunnerServiceImplTest {
         assertThrows(ValidationException.class, () -> testRunnerService.startTest(testId, userDTO));
     }
 
+    @Test
+    @DisplayName("startTest reloads a cached snapshot older than the version in the database")
+    void startTest_reloadsOutdatedSnapshot() {
+        // ARRANGE
+        TestSnapshotCache cache = new TestSnapshotCache(testDao, testMapper, 16);
+        testRunnerService = new TestRunnerServiceImpl(validatorTestRunnerService, cache, ScoringMode.ALL_OR_NOTHING);
+        UUID testId = UUID.randomUUID();
+        UserDTO userDTO = UserDTO.builder().id(UUID.randomUUID()).username("user").build();
+        QuestionDTO q1 = TestDataBuilders.questionDTO(UUID.randomUUID(), 1);
+        QuestionDTO q2 = TestDataBuilders.questionDTO(UUID.randomUUID(), 2);
+        entity.Test stale = TestDataBuilders.test();
+        entity.Test fresh = TestDataBuilders.test();
+        when(testDao.findByIdWithDetails(testId)).thenReturn(Optional.of(stale));
+        when(testDao.refreshByIdWithDetails(testId)).thenReturn(Optional.of(fresh));
+        when(testMapper.toDTO(stale)).thenReturn(TestDTO.builder().id(testId).version(1).questions(List.of(q2)).build());
+        when(testMapper.toDTO(fresh)).thenReturn(TestDTO.builder().id(testId).version(2).questions(List.of(q1, q2)).build());
+        cache.get(testId);
+        when(testDao.findVersion(testId)).thenReturn(Optional.of(2));
+        // ACT
+        TestSessionDTO session = testRunnerService.startTest(testId, userDTO);
+        // ASSERT
+        assertEquals(q1, session.getCurrentQuestion());
+        assertEquals(2, session.getProgress().getTestVersion());
+    }
+
     @Test
     @DisplayName("startTest throws if no questions in test")
     void startTest_throwsIfNoQuestions() {
@@ -99,10 +109,9 @@ class TestRunnerServiceImplTest {
         UUID testId = UUID.randomUUID();
         UserDTO userDTO = UserDTO.builder().username("user").build();
         entity.Test test = TestDataBuilders.test();
-        test.setQuestions(new ArrayList<>());
+        when(testDao.findVersion(testId)).thenReturn(Optional.of(1));
         when(testDao.findByIdWithDetails(testId)).thenReturn(Optional.of(test));
-        doNothing().when(validatorTestRunnerService).validateTestSessionStart(test, userDTO);
-        when(userMapper.toEntity(userDTO)).thenReturn(TestDataBuilders.user());
+        when(testMapper.toDTO(test)).thenReturn(TestDTO.builder().id(testId).questions(new ArrayList<>()).build());
         // ACT & ASSERT
         assertThrows(ValidationException.class, () -> testRunnerService.startTest(testId, userDTO));
     }
@@ -114,14 +123,53 @@ class TestRunnerServiceImplTest {
         UUID testId = UUID.randomUUID();
         UserDTO userDTO = UserDTO.builder().username("user").build();
         entity.Test test = TestDataBuilders.test();
-        Question question = TestDataBuilders.question(new ArrayList<>(), 1);
-        test.setQuestions(List.of(question));
+        when(testDao.findVersion(testId)).thenReturn(Optional.of(1));
         when(testDao.findByIdWithDetails(testId)).thenReturn(Optional.of(test));
-        doThrow(new ValidationException("fail")).when(validatorTestRunnerService).validateTestSessionStart(test, userDTO);
+        when(testMapper.toDTO(test)).thenReturn(TestDTO.builder().id(testId).questions(List.of(TestDataBuilders.questionDTO(UUID.randomUUID(), 1))).build());
+        doThrow(new ValidationException("fail")).when(validatorTestRunnerService).validateTestSessionStart(any(), eq(userDTO));
         // ACT & ASSERT
         assertThrows(ValidationException.class, () -> testRunnerService.startTest(testId, userDTO));
     }
 
+    @Test
+    @DisplayName("resumeTest reloads a stale cached snapshot when the attempt has a newer test version")
+    void resumeTest_reloadsStaleSnapshot() {
+        // ARRANGE
+        TestSnapshotCache cache = new TestSnapshotCache(testDao, testMapper, 16);
+        testRunnerService = new TestRunnerServiceImpl(validatorTestRunnerService, cache, ScoringMode.ALL_OR_NOTHING);
+        UUID testId = UUID.randomUUID();
+        QuestionDTO q1 = TestDataBuilders.questionDTO(UUID.randomUUID(), 1);
+        QuestionDTO q2 = TestDataBuilders.questionDTO(UUID.randomUUID(), 2);
+        entity.Test stale = TestDataBuilders.test();
+        entity.Test fresh = TestDataBuilders.test();
+        when(testDao.findByIdWithDetails(testId)).thenReturn(Optional.of(stale));
+        when(testDao.refreshByIdWithDetails(testId)).thenReturn(Optional.of(fresh));
+        when(testMapper.toDTO(stale)).thenReturn(TestDTO.builder().id(testId).version(1).questions(List.of(q1)).build());
+        when(testMapper.toDTO(fresh)).thenReturn(TestDTO.builder().id(testId).version(2).questions(List.of(q1, q2)).build());
+        cache.get(testId);
+        ExamProgressDTO progress = startProgress(testId).toBuilder().testVersion(2).selectedAnswers(new long[]{0L}).build();
+        // ACT
+        TestSessionDTO session = testRunnerService.resumeTest(progress);
+        // ASSERT
+        assertEquals(q2, session.getCurrentQuestion());
+        assertEquals(2, cache.getIfPresent(testId).getVersion());
+    }
+
+    @Test
+    @DisplayName("resumeTest still rejects the attempt if the reloaded test has another version")
+    void resumeTest_rejectsChangedTestAfterReload() {
+        // ARRANGE
+        UUID testId = UUID.randomUUID();
+        entity.Test test = TestDataBuilders.test();
+        TestDTO testDTO = TestDTO.builder().id(testId).version(1).questions(List.of(TestDataBuilders.questionDTO(UUID.randomUUID(), 1))).build();
+        when(testDao.findByIdWithDetails(testId)).thenReturn(Optional.of(test));
+        when(testDao.refreshByIdWithDetails(testId)).thenReturn(Optional.of(test));
+        when(testMapper.toDTO(test)).thenReturn(testDTO);
+        ExamProgressDTO progress = startProgress(testId).toBuilder().testVersion(2).build();
+        // ACT & ASSERT
+        assertThrows(ValidationException.class, () -> testRunnerService.resumeTest(progress));
+    }
+
     @Test
     @DisplayName("checkTimeIsEnded true if after end time")
     void checkTimeIsEnded_trueIfAfter() {
@@ -154,11 +202,11 @@ class TestRunnerServiceImplTest {
         entity.Test test = TestDataBuilders.test();
         test.setQuestions(new ArrayList<>());
         doNothing().when(validatorTestRunnerService).validateTestProgressDTO(any());
-        doNothing().when(validatorTestRunnerService).validateTest(test);
+        doNothing().when(validatorTestRunnerService).validateTest(any());
         when(testDao.findByIdWithDetails(testId)).thenReturn(Optional.of(test));
         when(testMapper.toDTO(test)).thenReturn(testDTO);
         TestProgressDTO progress = TestProgressDTO.builder()
-                .result(TestDataBuilders.resultDTO(UUID.randomUUID(), testId, new ArrayList<>()))
+                .progress(startProgress(testId))
                 .question(q1)
                 .answers(java.util.Collections.emptyList())
                 .build();
@@ -169,35 +217,71 @@ class TestRunnerServiceImplTest {
         assertFalse(result.isTestFinished());
     }
 
+    @Test
+    @DisplayName("resumeTest continues at the first unanswered question")
+    void resumeTest_continuesAtNextQuestion() {
+        // ARRANGE
+        UUID testId = UUID.randomUUID();
+        QuestionDTO q1 = TestDataBuilders.questionDTO(UUID.randomUUID(), 1);
+        QuestionDTO q2 = TestDataBuilders.questionDTO(UUID.randomUUID(), 2);
+        entity.Test test = TestDataBuilders.test();
+        when(testDao.findByIdWithDetails(testId)).thenReturn(Optional.of(test));
+        when(testMapper.toDTO(test)).thenReturn(TestDTO.builder().id(testId).title("Java Basics").questions(List.of(q1, q2)).build());
+        ExamProgressDTO progress = startProgress(testId).toBuilder().selectedAnswers(new long[]{1L}).build();
+        // ACT
+        TestSessionDTO session = testRunnerService.resumeTest(progress);
+        // ASSERT
+        assertEquals(q2, session.getCurrentQuestion());
+        assertEquals(progress, session.getProgress());
+        assertEquals("Java Basics", session.getTestTitle());
+        assertEquals(2, session.getQuestionCount());
+        assertFalse(session.isTestTimeOut());
+        assertEquals(progress.getStartedAt().plusMinutes(10), LocalDateTime.parse(session.getRoundedEndTime()));
+    }
+
+    @Test
+    @DisplayName("resumeTest marks the attempt as timed out once the test duration has passed")
+    void resumeTest_marksTimeOut() {
+        // ARRANGE
+        UUID testId = UUID.randomUUID();
+        entity.Test test = TestDataBuilders.test();
+        when(testDao.findByIdWithDetails(testId)).thenReturn(Optional.of(test));
+        when(testMapper.toDTO(test)).thenReturn(TestDTO.builder().id(testId).questions(List.of(TestDataBuilders.questionDTO(UUID.randomUUID(), 1))).build());
+        ExamProgressDTO progress = startProgress(testId).toBuilder().startedAt(LocalDateTime.now().minusMinutes(11)).build();
+        // ACT
+        TestSessionDTO session = testRunnerService.resumeTest(progress);
+        // ASSERT
+        assertTrue(session.isTestTimeOut());
+    }
+
     @Test
     @DisplayName("nextQuestion returns result if last question")
     void nextQuestion_successFinish() {
         // ARRANGE
         UUID testId = UUID.randomUUID();
-        QuestionDTO q1 = TestDataBuilders.questionDTO(UUID.randomUUID(), 1);
-        List<QuestionDTO> questions = List.of(q1);
+        AnswerDTO correct = TestDataBuilders.answerDTO(UUID.randomUUID()).toBuilder().correct(true).build();
+        AnswerDTO wrong = TestDataBuilders.answerDTO(UUID.randomUUID());
+        QuestionDTO q1 = TestDataBuilders.questionDTO(UUID.randomUUID(), 1).toBuilder().answers(List.of(correct, wrong)).build();
+        QuestionDTO q2 = TestDataBuilders.questionDTO(UUID.randomUUID(), 2).toBuilder().answers(List.of(correct.toBuilder().id(UUID.randomUUID()).build())).build();
+        List<QuestionDTO> questions = List.of(q1, q2);
         TestDTO testDTO = TestDTO.builder().id(testId).questions(questions).build();
         entity.Test test = TestDataBuilders.test();
         test.setQuestions(new ArrayList<>());
         doNothing().when(validatorTestRunnerService).validateTestProgressDTO(any());
-        doNothing().when(validatorTestRunnerService).validateTest(test);
+        doNothing().when(validatorTestRunnerService).validateTest(any());
         when(testDao.findByIdWithDetails(testId)).thenReturn(Optional.of(test));
         when(testMapper.toDTO(test)).thenReturn(testDTO);
-        ResultDTO resultDTO = mock(ResultDTO.class);
-        Result result = mock(Result.class);
-        when(resultMapper.toEntity(any())).thenReturn(result);
-        when(resultService.calculateScoreResult(result)).thenReturn(result);
-        when(resultMapper.toDTO(result)).thenReturn(resultDTO);
         TestProgressDTO progress = TestProgressDTO.builder()
-                .result(TestDataBuilders.resultDTO(UUID.randomUUID(), testId, new ArrayList<>()))
-                .question(q1)
-                .answers(java.util.Collections.emptyList())
+                .progress(startProgress(testId).toBuilder().selectedAnswers(new long[]{0L}).build())
+                .question(q2)
+                .answers(List.of(q2.getAnswers().get(0).getId().toString()))
                 .build();
         // ACT
         TestProgressDTO resultProgress = testRunnerService.nextQuestion(progress);
         // ASSERT
         assertTrue(resultProgress.isTestFinished());
-        assertEquals(resultDTO, resultProgress.getResult());
+        assertEquals(1, resultProgress.getProgress().getScore());
+        assertEquals(2, resultProgress.getProgress().getAnsweredCount());
     }
 
     @Test
@@ -205,9 +289,7 @@ class TestRunnerServiceImplTest {
     void nextQuestion_throwsIfTestNotFound() {
         // ARRANGE
         TestProgressDTO progress = mock(TestProgressDTO.class);
-        ResultDTO resultDTO = mock(ResultDTO.class);
-        when(progress.getResult()).thenReturn(resultDTO);
-        when(resultDTO.getTestId()).thenReturn(UUID.randomUUID());
+        when(progress.getProgress()).thenReturn(startProgress(UUID.randomUUID()));
         doNothing().when(validatorTestRunnerService).validateTestProgressDTO(progress);
         when(testDao.findByIdWithDetails(any())).thenReturn(Optional.empty());
         // ACT & ASSERT
@@ -229,14 +311,258 @@ class TestRunnerServiceImplTest {
     void nextQuestion_throwsIfInvalidTest() {
         // ARRANGE
         TestProgressDTO progress = mock(TestProgressDTO.class);
-        ResultDTO resultDTO = mock(ResultDTO.class);
-        when(progress.getResult()).thenReturn(resultDTO);
-        when(resultDTO.getTestId()).thenReturn(UUID.randomUUID());
+        when(progress.getProgress()).thenReturn(startProgress(UUID.randomUUID()));
         doNothing().when(validatorTestRunnerService).validateTestProgressDTO(progress);
         entity.Test test = TestDataBuilders.test();
         when(testDao.findByIdWithDetails(any())).thenReturn(Optional.of(test));
-        doThrow(new ValidationException("fail")).when(validatorTestRunnerService).validateTest(test);
+        when(testMapper.toDTO(test)).thenReturn(TestDTO.builder().id(test.getId()).questions(new ArrayList<>()).build());
+        doThrow(new ValidationException("fail")).when(validatorTestRunnerService).validateTest(any());
         // ACT & ASSERT
         assertThrows(ValidationException.class, () -> testRunnerService.nextQuestion(progress));
     }
+
+    @Test
+    @DisplayName("nextQuestion loads the test from the database only once")
+    void nextQuestion_usesCachedSnapshot() {
+        // ARRANGE
+        UUID testId = UUID.randomUUID();
+        QuestionDTO q1 = TestDataBuilders.questionDTO(UUID.randomUUID(), 1);
+        QuestionDTO q2 = TestDataBuilders.questionDTO(UUID.randomUUID(), 2);
+        QuestionDTO q3 = TestDataBuilders.questionDTO(UUID.randomUUID(), 3);
+        TestDTO testDTO = TestDTO.builder().id(testId).version(0).questions(List.of(q1, q2, q3)).build();
+        entity.Test test = TestDataBuilders.test();
+        when(testDao.findByIdWithDetails(testId)).thenReturn(Optional.of(test));
+        when(testMapper.toDTO(test)).thenReturn(testDTO);
+        // ACT
+        TestProgressDTO first = testRunnerService.nextQuestion(TestProgressDTO.builder()
+                .progress(startProgress(testId).toBuilder().testVersion(0).build())
+                .question(q1)
+                .answers(java.util.Collections.emptyList())
+                .build());
+        TestProgressDTO second = testRunnerService.nextQuestion(TestProgressDTO.builder()
+                .progress(first.getProgress())
+                .question(first.getQuestion())
+                .answers(java.util.Collections.emptyList())
+                .build());
+        // ASSERT
+        assertEquals(q3, second.getQuestion());
+        verify(testDao, times(1)).findByIdWithDetails(testId);
+        verify(testMapper, times(1)).toDTO(test);
+    }
+
+    @Test
+    @DisplayName("nextQuestion keeps only selected answers that belong to the current question")
+    void nextQuestion_resolvesAnswersThroughIndex() {
+        // ARRANGE
+        UUID testId = UUID.randomUUID();
+        AnswerDTO a1 = TestDataBuilders.answerDTO(UUID.randomUUID());
+        AnswerDTO a2 = TestDataBuilders.answerDTO(UUID.randomUUID());
+        QuestionDTO q1 = TestDataBuilders.questionDTO(UUID.randomUUID(), 1).toBuilder().answers(List.of(a1, a2)).build();
+        QuestionDTO q2 = TestDataBuilders.questionDTO(UUID.randomUUID(), 2);
+        TestDTO testDTO = TestDTO.builder().id(testId).questions(List.of(q2, q1)).build();
+        entity.Test test = TestDataBuilders.test();
+        when(testDao.findByIdWithDetails(testId)).thenReturn(Optional.of(test));
+        when(testMapper.toDTO(test)).thenReturn(testDTO);
+        TestProgressDTO progress = TestProgressDTO.builder()
+                .progress(startProgress(testId))
+                .question(q1)
+                .answers(List.of(a2.getId().toString(), UUID.randomUUID().toString()))
+                .build();
+        // ACT
+        TestProgressDTO result = testRunnerService.nextQuestion(progress);
+        // ASSERT
+        assertEquals(q2, result.getQuestion());
+        long mask = result.getProgress().getSelectedAnswers()[0];
+        assertEquals(1, Long.bitCount(mask));
+        assertEquals(List.of(a2), TestSnapshot.of(testDTO).getAnswers(0, mask));
+    }
+
+    @Test
+    @DisplayName("nextQuestion throws if question does not belong to the test")
+    void nextQuestion_throwsIfQuestionNotInTest() {
+        // ARRANGE
+        UUID testId = UUID.randomUUID();
+        QuestionDTO q1 = TestDataBuilders.questionDTO(UUID.randomUUID(), 1);
+        TestDTO testDTO = TestDTO.builder().id(testId).questions(List.of(q1)).build();
+        entity.Test test = TestDataBuilders.test();
+        when(testDao.findByIdWithDetails(testId)).thenReturn(Optional.of(test));
+        when(testMapper.toDTO(test)).thenReturn(testDTO);
+        TestProgressDTO progress = TestProgressDTO.builder()
+                .progress(startProgress(testId))
+                .question(TestDataBuilders.questionDTO(UUID.randomUUID(), 1))
+                .answers(java.util.Collections.emptyList())
+                .build();
+        // ACT & ASSERT
+        assertThrows(ValidationException.class, () -> testRunnerService.nextQuestion(progress));
+    }
+
+    @Test
+    @DisplayName("nextQuestion gives partial credit with the partial credit strategy")
+    void nextQuestion_usesScoringStrategy() {
+        // ARRANGE
+        testRunnerService = new TestRunnerServiceImpl(validatorTestRunnerService, new TestSnapshotCache(testDao, testMapper, 16), ScoringMode.PARTIAL_CREDIT);
+        UUID testId = UUID.randomUUID();
+        AnswerDTO a1 = TestDataBuilders.answerDTO(UUID.randomUUID()).toBuilder().correct(true).build();
+        AnswerDTO a2 = TestDataBuilders.answerDTO(UUID.randomUUID()).toBuilder().correct(true).build();
+        QuestionDTO q1 = TestDataBuilders.questionDTO(UUID.randomUUID(), 1).toBuilder().answers(List.of(a1, a2)).build();
+        TestDTO testDTO = TestDTO.builder().id(testId).questions(List.of(q1)).build();
+        entity.Test test = TestDataBuilders.test();
+        when(testDao.findByIdWithDetails(testId)).thenReturn(Optional.of(test));
+        when(testMapper.toDTO(test)).thenReturn(testDTO);
+        TestProgressDTO progress = TestProgressDTO.builder()
+                .progress(startProgress(testId))
+                .question(q1)
+                .answers(List.of(a1.getId().toString()))
+                .build();
+        // ACT
+        TestProgressDTO result = testRunnerService.nextQuestion(progress);
+        // ASSERT
+        assertEquals(1, result.getProgress().getScore());
+    }
+
+    @Test
+    @DisplayName("nextQuestion keeps a running credit and finishes with it")
+    void nextQuestion_accumulatesCredit() {
+        // ARRANGE
+        UUID testId = UUID.randomUUID();
+        AnswerDTO a1 = TestDataBuilders.answerDTO(UUID.randomUUID()).toBuilder().correct(true).build();
+        AnswerDTO a2 = TestDataBuilders.answerDTO(UUID.randomUUID()).toBuilder().correct(true).build();
+        QuestionDTO q1 = TestDataBuilders.questionDTO(UUID.randomUUID(), 1).toBuilder().answers(List.of(a1)).build();
+        QuestionDTO q2 = TestDataBuilders.questionDTO(UUID.randomUUID(), 2).toBuilder().answers(List.of(a2)).build();
+        entity.Test test = TestDataBuilders.test();
+        when(testDao.findByIdWithDetails(testId)).thenReturn(Optional.of(test));
+        when(testMapper.toDTO(test)).thenReturn(TestDTO.builder().id(testId).questions(List.of(q1, q2)).build());
+        // ACT
+        TestProgressDTO first = testRunnerService.nextQuestion(TestProgressDTO.builder()
+                .progress(startProgress(testId))
+                .question(q1)
+                .answers(List.of(a1.getId().toString()))
+                .build());
+        TestProgressDTO second = testRunnerService.nextQuestion(TestProgressDTO.builder()
+                .progress(first.getProgress())
+                .question(q2)
+                .answers(java.util.Collections.emptyList())
+                .build());
+        // ASSERT
+        assertEquals(1.0, first.getProgress().getCredit());
+        assertNull(first.getProgress().getScore());
+        assertEquals(1.0, second.getProgress().getCredit());
+        assertEquals(1, second.getProgress().getScore());
+    }
+
+    @Test
+    @DisplayName("nextQuestion gives no credit for missing or extra answers")
+    void nextQuestion_requiresExactSelection() {
+        // ARRANGE
+        UUID testId = UUID.randomUUID();
+        AnswerDTO correct1 = TestDataBuilders.answerDTO(UUID.randomUUID()).toBuilder().correct(true).build();
+        AnswerDTO correct2 = TestDataBuilders.answerDTO(UUID.randomUUID()).toBuilder().correct(true).build();
+        AnswerDTO wrong = TestDataBuilders.answerDTO(UUID.randomUUID());
+        List<AnswerDTO> answers = List.of(correct1, wrong, correct2);
+        QuestionDTO q1 = TestDataBuilders.questionDTO(UUID.randomUUID(), 1).toBuilder().answers(answers).build();
+        QuestionDTO q2 = TestDataBuilders.questionDTO(UUID.randomUUID(), 2).toBuilder().answers(answers).build();
+        QuestionDTO q3 = TestDataBuilders.questionDTO(UUID.randomUUID(), 3).toBuilder().answers(answers).build();
+        entity.Test test = TestDataBuilders.test();
+        when(testDao.findByIdWithDetails(testId)).thenReturn(Optional.of(test));
+        when(testMapper.toDTO(test)).thenReturn(TestDTO.builder().id(testId).questions(List.of(q1, q2, q3)).build());
+        // ACT
+        TestProgressDTO missing = testRunnerService.nextQuestion(TestProgressDTO.builder()
+                .progress(startProgress(testId))
+                .question(q1)
+                .answers(List.of(correct1.getId().toString()))
+                .build());
+        TestProgressDTO extra = testRunnerService.nextQuestion(TestProgressDTO.builder()
+                .progress(missing.getProgress())
+                .question(q2)
+                .answers(List.of(correct1.getId().toString(), correct2.getId().toString(), wrong.getId().toString()))
+                .build());
+        TestProgressDTO exact = testRunnerService.nextQuestion(TestProgressDTO.builder()
+                .progress(extra.getProgress())
+                .question(q3)
+                .answers(List.of(correct2.getId().toString(), correct1.getId().toString()))
+                .build());
+        // ASSERT
+        assertEquals(0.0, extra.getProgress().getCredit());
+        assertEquals(1, exact.getProgress().getScore());
+    }
+
+    @Test
+    @DisplayName("nextQuestion throws if the question has already been answered")
+    void nextQuestion_throwsIfQuestionAlreadyAnswered() {
+        // ARRANGE
+        UUID testId = UUID.randomUUID();
+        QuestionDTO q1 = TestDataBuilders.questionDTO(UUID.randomUUID(), 1);
+        QuestionDTO q2 = TestDataBuilders.questionDTO(UUID.randomUUID(), 2);
+        entity.Test test = TestDataBuilders.test();
+        when(testDao.findByIdWithDetails(testId)).thenReturn(Optional.of(test));
+        when(testMapper.toDTO(test)).thenReturn(TestDTO.builder().id(testId).questions(List.of(q1, q2)).build());
+        TestProgressDTO progress = TestProgressDTO.builder()
+                .progress(startProgress(testId).toBuilder().selectedAnswers(new long[]{0L}).build())
+                .question(q1)
+                .answers(java.util.Collections.emptyList())
+                .build();
+        // ACT & ASSERT
+        assertThrows(ValidationException.class, () -> testRunnerService.nextQuestion(progress));
+    }
+
+    @Test
+    @DisplayName("nextQuestion throws if the test has changed since it was started")
+    void nextQuestion_throwsIfTestVersionChanged() {
+        // ARRANGE
+        UUID testId = UUID.randomUUID();
+        QuestionDTO q1 = TestDataBuilders.questionDTO(UUID.randomUUID(), 1);
+        entity.Test test = TestDataBuilders.test();
+        when(testDao.findByIdWithDetails(testId)).thenReturn(Optional.of(test));
+        when(testMapper.toDTO(test)).thenReturn(TestDTO.builder().id(testId).version(2).questions(List.of(q1)).build());
+        TestProgressDTO progress = TestProgressDTO.builder()
+                .progress(startProgress(testId).toBuilder().testVersion(1).build())
+                .question(q1)
+                .answers(java.util.Collections.emptyList())
+                .build();
+        // ACT & ASSERT
+        assertThrows(ValidationException.class, () -> testRunnerService.nextQuestion(progress));
+    }
+
+    @Test
+    @DisplayName("buildResult restores selected answers from the progress")
+    void buildResult_success() {
+        // ARRANGE
+        UUID testId = UUID.randomUUID();
+        AnswerDTO a1 = TestDataBuilders.answerDTO(UUID.randomUUID());
+        AnswerDTO a2 = TestDataBuilders.answerDTO(UUID.randomUUID());
+        QuestionDTO q1 = TestDataBuilders.questionDTO(UUID.randomUUID(), 1).toBuilder().answers(List.of(a1, a2)).build();
+        TestDTO testDTO = TestDTO.builder().id(testId).title("Title").questions(List.of(q1)).build();
+        entity.Test test = TestDataBuilders.test();
+        when(testDao.findByIdWithDetails(testId)).thenReturn(Optional.of(test));
+        when(testMapper.toDTO(test)).thenReturn(testDTO);
+        ExamProgressDTO progress = startProgress(testId).toBuilder()
+                .selectedAnswers(new long[]{TestSnapshot.of(testDTO).toAnswerMask(0, List.of(a1.getId()))})
+                .score(0)
+                .build();
+        // ACT
+        ResultDTO result = testRunnerService.buildResult(progress);
+        // ASSERT
+        assertEquals(testId, result.getTestId());
+        assertEquals(progress.getUserId(), result.getUserId());
+        assertEquals("Title", result.getTestTitle());
+        assertEquals(0, result.getScore());
+        assertEquals(q1, result.getAnswersInResults().get(0).getQuestion());
+        assertEquals(List.of(a1), result.getAnswersInResults().get(0).getSelectedAnswers());
+    }
+
+    @Test
+    @DisplayName("buildResult returns null if the test is not finished")
+    void buildResult_returnsNullIfNotFinished() {
+        // ACT & ASSERT
+        assertNull(testRunnerService.buildResult(startProgress(UUID.randomUUID())));
+        assertNull(testRunnerService.buildResult(null));
+    }
+
+    private ExamProgressDTO startProgress(UUID testId) {
+        return ExamProgressDTO.builder()
+                .testId(testId)
+                .userId(UUID.randomUUID())
+                .startedAt(LocalDateTime.now())
+                .build();
+    }
 }
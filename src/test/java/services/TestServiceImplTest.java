@@ -1,5 +1,8 @@
 package services;
 
+import cache.TestSnapshot;
+import cache.TestSnapshotCache;
+import constants.TestSort;
 import dao.TestDAO;
 import dto.*;
 import entity.User;
@@ -35,6 +38,8 @@ class TestServiceImplTest {
     private TestMapper testMapper;
     @Mock
     private AnswerMapper answerMapper;
+    @Mock
+    private TestSnapshotCache testSnapshotCache;
 
     @InjectMocks
     private TestServiceImpl testService;
@@ -42,7 +47,7 @@ class TestServiceImplTest {
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
-        testService = new TestServiceImpl(testDao, userService, validatorTestService, testMapper, answerMapper);
+        testService = new TestServiceImpl(testDao, userService, validatorTestService, testMapper, answerMapper, testSnapshotCache);
     }
 
     @Test
@@ -172,6 +177,8 @@ class TestServiceImplTest {
         doNothing().when(testDao).deleteById(id);
         // ACT & ASSERT
         assertDoesNotThrow(() -> testService.deleteTest(id));
+        verify(testDao).incrementCatalogVersion();
+        verify(testSnapshotCache).invalidateAfterCommit(id);
     }
 
     @Test
@@ -185,6 +192,93 @@ class TestServiceImplTest {
         assertThrows(ValidationException.class, () -> testService.findTestById(id));
     }
 
+    @Test
+    @DisplayName("findCachedDTOById returns the test from the snapshot cache")
+    void findCachedDTOById_usesSnapshotCache() {
+        // ARRANGE
+        UUID id = UUID.randomUUID();
+        TestDTO dto = TestDTO.builder().id(id).version(2).questions(new ArrayList<>()).build();
+        when(testSnapshotCache.get(id)).thenReturn(TestSnapshot.of(dto));
+        // ACT
+        TestDTO result = testService.findCachedDTOById(id);
+        // ASSERT
+        assertEquals(id, result.getId());
+        assertEquals(2, result.getVersion());
+        verifyNoInteractions(testDao);
+    }
+
+    @Test
+    @DisplayName("getCatalogVersion is read from the database so that all nodes agree on it")
+    void getCatalogVersion_readsSharedVersion() {
+        // ARRANGE
+        when(testDao.findCatalogVersion()).thenReturn(7L);
+        // ACT & ASSERT
+        assertEquals("7", testService.getCatalogVersion());
+    }
+
+    @Test
+    @DisplayName("findCachedDTOById reloads a cached snapshot older than the version in the database")
+    void findCachedDTOById_reloadsOlderSnapshot() {
+        // ARRANGE
+        UUID id = UUID.randomUUID();
+        TestSnapshotCache cache = new TestSnapshotCache(testDao, testMapper, 16);
+        testService = new TestServiceImpl(testDao, userService, validatorTestService, testMapper, answerMapper, cache);
+        entity.Test stale = TestDataBuilders.test();
+        entity.Test fresh = TestDataBuilders.test();
+        when(testDao.findByIdWithDetails(id)).thenReturn(Optional.of(stale));
+        when(testDao.refreshByIdWithDetails(id)).thenReturn(Optional.of(fresh));
+        when(testMapper.toDTO(stale)).thenReturn(TestDTO.builder().id(id).version(1).questions(new ArrayList<>()).build());
+        when(testMapper.toDTO(fresh)).thenReturn(TestDTO.builder().id(id).version(2).questions(new ArrayList<>()).build());
+        cache.get(id);
+        // ACT
+        TestDTO result = testService.findCachedDTOById(id, 2);
+        // ASSERT
+        assertEquals(2, result.getVersion());
+        assertEquals(2, cache.getIfPresent(id).getVersion());
+    }
+
+    @Test
+    @DisplayName("findTestSummaryPage returns a cursor after the last test sorted by topic")
+    void findTestSummaryPage_returnsCursor() {
+        // ARRANGE
+        List<TestSummaryDTO> rows = new ArrayList<>();
+        for (int i = 0; i < 51; i++) {
+            rows.add(TestSummaryDTO.builder().id(UUID.randomUUID()).title("title" + i).topic("topic" + i).build());
+        }
+        TestSummaryDTO last = rows.get(49);
+        when(testDao.findSummaryPage("java", TestSort.TOPIC, true, null, null, 51)).thenReturn(rows);
+        when(testDao.findSummaryPage("java", TestSort.TOPIC, true, last.getTopic(), last.getId(), 51)).thenReturn(List.of(rows.get(50)));
+        // ACT
+        PageDTO<TestSummaryDTO> first = testService.findTestSummaryPage("java", "topic", "desc", null);
+        PageDTO<TestSummaryDTO> second = testService.findTestSummaryPage("java", "topic", "desc", first.getNextCursor());
+        // ASSERT
+        assertEquals(50, first.getItems().size());
+        assertTrue(first.isHasNext());
+        assertEquals(List.of(rows.get(50)), second.getItems());
+        assertNull(second.getNextCursor());
+    }
+
+    @Test
+    @DisplayName("findTestSummaryPage sorts by title ascending by default")
+    void findTestSummaryPage_defaultsToTitle() {
+        // ARRANGE
+        when(testDao.findSummaryPage(null, TestSort.TITLE, false, null, null, 51)).thenReturn(List.of());
+        // ACT
+        PageDTO<TestSummaryDTO> page = testService.findTestSummaryPage(null, null, null, null);
+        // ASSERT
+        assertTrue(page.getItems().isEmpty());
+        assertFalse(page.isHasNext());
+    }
+
+    @Test
+    @DisplayName("findTestSummaryPage rejects unsupported sort fields and directions")
+    void findTestSummaryPage_rejectsUnsupportedSort() {
+        // ACT & ASSERT
+        assertThrows(ValidationException.class, () -> testService.findTestSummaryPage(null, "id; DROP TABLE tests", null, null));
+        assertThrows(ValidationException.class, () -> testService.findTestSummaryPage(null, "title", "sideways", null));
+        verifyNoInteractions(testDao);
+    }
+
     @Test
     @DisplayName("findAllTestsDTO returns empty list if DAO returns null")
     void findAllTestsDTO_returnsEmptyListIfNull() {
@@ -208,14 +302,34 @@ class TestServiceImplTest {
         doNothing().when(validatorTestService).validate(testDTO);
         doNothing().when(validatorTestService).validateQuestions(any());
         when(testMapper.toEntity(testDTO)).thenReturn(testEntity);
-        when(userService.findUserById(any())).thenReturn(user);
+        when(userService.getUserReference(any())).thenReturn(user);
         when(validatorTestService.requireNonNullOrValidation(eq(testEntity), anyString())).thenReturn(testEntity);
         when(validatorTestService.requireNonNullOrValidation(eq(user), anyString())).thenReturn(user);
-        doNothing().when(testDao).update(any());
+        when(testDao.update(any())).thenReturn(testEntity);
         // ACT & ASSERT
         assertDoesNotThrow(() -> testService.saveTest(testDTO));
     }
 
+    @Test
+    @DisplayName("saveTest invalidates a newly created test by the id assigned on merge")
+    void saveTest_newTestInvalidatesMergedId() {
+        // ARRANGE
+        TestDTO testDTO = TestDataBuilders.testDTO(null, "title", "topic", UUID.randomUUID(), new ArrayList<>());
+        entity.Test newTest = TestDataBuilders.test();
+        newTest.setId(null);
+        entity.Test mergedTest = TestDataBuilders.test();
+        User user = TestDataBuilders.user();
+        when(testMapper.toEntity(testDTO)).thenReturn(newTest);
+        when(userService.getUserReference(any())).thenReturn(user);
+        when(validatorTestService.requireNonNullOrValidation(eq(user), anyString())).thenReturn(user);
+        when(testDao.update(newTest)).thenReturn(mergedTest);
+        // ACT
+        testService.saveTest(testDTO);
+        // ASSERT
+        verify(testDao).incrementCatalogVersion();
+        verify(testSnapshotCache).invalidateAfterCommit(mergedTest.getId());
+    }
+
     @Test
     @DisplayName("saveTest throws ValidationException if test mapping failed")
     void saveTest_throwsIfTestMappingFailed() {
@@ -241,7 +355,7 @@ class TestServiceImplTest {
         doNothing().when(validatorTestService).validate(testDTO);
         doNothing().when(validatorTestService).validateQuestions(any());
         when(testMapper.toEntity(testDTO)).thenReturn(testEntity);
-        when(userService.findUserById(any())).thenReturn(null);
+        when(userService.getUserReference(any())).thenReturn(null);
         when(validatorTestService.requireNonNullOrValidation(eq(testEntity), anyString())).thenReturn(testEntity);
         when(validatorTestService.requireNonNullOrValidation(isNull(), anyString()))
                 .thenThrow(new ValidationException("User not found"));
@@ -260,7 +374,7 @@ class TestServiceImplTest {
         doNothing().when(validatorTestService).validate(testDTO);
         doNothing().when(validatorTestService).validateQuestions(any());
         when(testMapper.toEntity(testDTO)).thenReturn(testEntity);
-        when(userService.findUserById(any())).thenReturn(user);
+        when(userService.getUserReference(any())).thenReturn(user);
         when(validatorTestService.requireNonNullOrValidation(eq(testEntity), anyString())).thenReturn(testEntity);
         when(validatorTestService.requireNonNullOrValidation(eq(user), anyString())).thenReturn(user);
         doThrow(new DataAccessException("fail")).when(testDao).update(any());
@@ -281,7 +395,7 @@ class TestServiceImplTest {
         doNothing().when(validatorTestService).validateTestId(id);
         when(testDao.findByIdWithDetails(id)).thenReturn(Optional.of(test));
         when(testDao.existByTitle("new")).thenReturn(false);
-        doNothing().when(testDao).update(test);
+        when(testDao.update(test)).thenReturn(test);
         when(testMapper.toDTO(any())).thenReturn(dto);
         // ACT
         TestDTO result = testService.updateTestDetails(id, "new", "newTopic");
@@ -337,12 +451,14 @@ class TestServiceImplTest {
         doNothing().when(validatorTestService).validateTestId(testId);
         when(testDao.findByIdWithDetails(testId)).thenReturn(Optional.of(test));
         when(answerMapper.toEntity(answerDTO)).thenReturn(TestDataBuilders.answer(true));
-        doNothing().when(testDao).update(test);
+        when(testDao.update(test)).thenReturn(test);
         when(testMapper.toDTO(any())).thenReturn(TestDataBuilders.testDTO(testId, "t", "topic", UUID.randomUUID(), new ArrayList<>()));
         // ACT
         TestDTO result = testService.updateQuestion(testId, questionDTO);
         // ASSERT
         assertNotNull(result);
+        verify(testDao).incrementVersion(test);
+        verify(testSnapshotCache).invalidateAfterCommit(testId);
     }
 
     @Test
@@ -381,5 +497,6 @@ class TestServiceImplTest {
         doThrow(new DataAccessException("fail")).when(testDao).update(test);
         // ACT & ASSERT
         assertThrows(SaveException.class, () -> testService.updateQuestion(testId, questionDTO));
+        verify(testSnapshotCache, never()).invalidateAfterCommit(any());
     }
 }
@@ -2,32 +2,45 @@ package services;
 
 import dao.UserDAO;
 import dto.UserDTO;
+import dto.UserImportReportDTO;
+import dto.UserImportRowDTO;
 import entity.User;
 import exceptions.AuthenticationException;
 import exceptions.DataAccessException;
 import exceptions.RegistrationException;
+import exceptions.ServiceBusyException;
 import exceptions.ValidationException;
 import mappers.UserMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.DisplayName;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.hibernate.Session;
+import org.hibernate.Transaction;
+import util.HibernateSessionManager;
+import util.LoginThrottle;
+import util.PasswordHasher;
 import validators.ValidatorUserService;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
 class UserServiceImplTest {
+    private static final String CLIENT_ADDRESS = "10.0.0.1";
+
     @Mock
     private UserDAO userDao;
     @Mock
-    private BCryptPasswordEncoder passwordEncoder;
+    private PasswordHasher passwordHasher;
     @Mock
     private ValidatorUserService validatorUserService;
     @Mock
@@ -39,7 +52,8 @@ class UserServiceImplTest {
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
-        userService = new UserServiceImpl(userDao, passwordEncoder, validatorUserService, userMapper);
+        userService = new UserServiceImpl(userDao, passwordHasher, validatorUserService, userMapper,
+                new LoginThrottle(100, 5, 50, 10 * 60 * 1000));
     }
 
     @Test
@@ -53,7 +67,7 @@ class UserServiceImplTest {
         doNothing().when(validatorUserService).validateUserDto(userDTO);
         doNothing().when(validatorUserService).validatePassword("pass");
         when(userDao.findByUsername("user")).thenReturn(Optional.empty());
-        when(passwordEncoder.encode("pass")).thenReturn("encoded");
+        when(passwordHasher.encode("pass")).thenReturn("encoded");
         when(userDao.save(any(User.class))).thenReturn(savedUser);
         when(userMapper.toDTO(savedUser)).thenReturn(savedUserDTO);
         // ACT
@@ -82,7 +96,7 @@ class UserServiceImplTest {
         doNothing().when(validatorUserService).validateUserDto(userDTO);
         doNothing().when(validatorUserService).validatePassword("pass");
         when(userDao.findByUsername("user")).thenReturn(Optional.empty());
-        when(passwordEncoder.encode("pass")).thenReturn("encoded");
+        when(passwordHasher.encode("pass")).thenReturn("encoded");
         when(userDao.save(any(User.class))).thenThrow(new DataAccessException("fail"));
         // ACT & ASSERT
         assertThrows(RegistrationException.class, () -> userService.registerUser(userDTO, "pass"));
@@ -99,12 +113,51 @@ class UserServiceImplTest {
         UserDTO userDTO = UserDTO.builder().username(username).build();
         doNothing().when(validatorUserService).validateUsernameAndPassword(username, password);
         when(userDao.findByUsername(username)).thenReturn(Optional.of(user));
-        when(passwordEncoder.matches(password, encoded)).thenReturn(true);
+        when(passwordHasher.matches(password, encoded)).thenReturn(true);
+        when(userMapper.toDTO(user)).thenReturn(userDTO);
+        // ACT
+        UserDTO result = userService.login(username, password, CLIENT_ADDRESS);
+        // ASSERT
+        assertEquals(userDTO, result);
+    }
+
+    @Test
+    @DisplayName("login rehashes the password when the cost factor has changed")
+    void login_rehashesPasswordWithOldCost() {
+        // ARRANGE
+        String username = "user";
+        String password = "pass";
+        User user = User.builder().username(username).password("old").build();
+        when(userDao.findByUsername(username)).thenReturn(Optional.of(user));
+        when(passwordHasher.matches(password, "old")).thenReturn(true);
+        when(passwordHasher.needsRehash("old")).thenReturn(true);
+        when(passwordHasher.encode(password)).thenReturn("new");
+        // ACT
+        userService.login(username, password, CLIENT_ADDRESS);
+        // ASSERT
+        assertEquals("new", user.getPassword());
+        verify(userDao).update(user);
+    }
+
+    @Test
+    @DisplayName("login succeeds without rehash when the hasher is busy")
+    void login_skipsRehashIfHasherBusy() {
+        // ARRANGE
+        String username = "user";
+        String password = "pass";
+        User user = User.builder().username(username).password("old").build();
+        UserDTO userDTO = UserDTO.builder().username(username).build();
+        when(userDao.findByUsername(username)).thenReturn(Optional.of(user));
+        when(passwordHasher.matches(password, "old")).thenReturn(true);
+        when(passwordHasher.needsRehash("old")).thenReturn(true);
+        when(passwordHasher.encode(password)).thenThrow(new ServiceBusyException("busy"));
         when(userMapper.toDTO(user)).thenReturn(userDTO);
         // ACT
-        UserDTO result = userService.login(username, password);
+        UserDTO result = userService.login(username, password, CLIENT_ADDRESS);
         // ASSERT
         assertEquals(userDTO, result);
+        assertEquals("old", user.getPassword());
+        verify(userDao, never()).update(any());
     }
 
     @Test
@@ -117,9 +170,9 @@ class UserServiceImplTest {
         User user = User.builder().username(username).password(encoded).build();
         doNothing().when(validatorUserService).validateUsernameAndPassword(username, password);
         when(userDao.findByUsername(username)).thenReturn(Optional.of(user));
-        when(passwordEncoder.matches(password, encoded)).thenReturn(false);
+        when(passwordHasher.matches(password, encoded)).thenReturn(false);
         // ACT & ASSERT
-        assertThrows(AuthenticationException.class, () -> userService.login(username, password));
+        assertThrows(AuthenticationException.class, () -> userService.login(username, password, CLIENT_ADDRESS));
     }
 
     @Test
@@ -131,7 +184,7 @@ class UserServiceImplTest {
         doNothing().when(validatorUserService).validateUsernameAndPassword(username, password);
         when(userDao.findByUsername(username)).thenReturn(Optional.empty());
         // ACT & ASSERT
-        assertThrows(AuthenticationException.class, () -> userService.login(username, password));
+        assertThrows(AuthenticationException.class, () -> userService.login(username, password, CLIENT_ADDRESS));
     }
 
     @Test
@@ -144,16 +197,16 @@ class UserServiceImplTest {
         User user = User.builder().username(username).password(encoded).build();
         doNothing().when(validatorUserService).validateUsernameAndPassword(username, password);
         when(userDao.findByUsername(username)).thenReturn(Optional.of(user));
-        when(passwordEncoder.matches(password, encoded)).thenReturn(false);
+        when(passwordHasher.matches(password, encoded)).thenReturn(false);
 
         for (int i = 0; i < 5; i++) {
             try {
-                userService.login(username, password);
+                userService.login(username, password, CLIENT_ADDRESS);
             } catch (AuthenticationException ignored) {}
         }
 
         // ACT & ASSERT: теперь пользователь заблокирован
-        assertThrows(AuthenticationException.class, () -> userService.login(username, password));
+        assertThrows(AuthenticationException.class, () -> userService.login(username, password, CLIENT_ADDRESS));
     }
 
     @Test
@@ -166,13 +219,30 @@ class UserServiceImplTest {
         User user = User.builder().username(username).password(encoded).build();
         doNothing().when(validatorUserService).validateUsernameAndPassword(username, password);
         when(userDao.findByUsername(username)).thenReturn(Optional.of(user));
-        when(passwordEncoder.matches(password, encoded)).thenReturn(false);
+        when(passwordHasher.matches(password, encoded)).thenReturn(false);
         userService = spy(userService);
         for (int i = 0; i < 4; i++) {
-            try { userService.login(username, "wrong"); } catch (Exception ignored) {}
+            try { userService.login(username, "wrong", CLIENT_ADDRESS); } catch (Exception ignored) {}
+        }
+        // ACT & ASSERT
+        assertThrows(AuthenticationException.class, () -> userService.login(username, password, CLIENT_ADDRESS));
+    }
+
+    @Test
+    @DisplayName("login does not check the password while the account is locked")
+    void login_skipsPasswordCheckIfBlocked() {
+        // ARRANGE
+        String username = "user";
+        String encoded = "encoded";
+        User user = User.builder().username(username).password(encoded).build();
+        when(userDao.findByUsername(username)).thenReturn(Optional.of(user));
+        when(passwordHasher.matches("wrong", encoded)).thenReturn(false);
+        for (int i = 0; i < 5; i++) {
+            try { userService.login(username, "wrong", CLIENT_ADDRESS); } catch (AuthenticationException ignored) {}
         }
         // ACT & ASSERT
-        assertThrows(AuthenticationException.class, () -> userService.login(username, password));
+        assertThrows(AuthenticationException.class, () -> userService.login(username, "pass", "10.0.0.2"));
+        verify(passwordHasher, never()).matches(eq("pass"), anyString());
     }
 
     @Test
@@ -183,7 +253,60 @@ class UserServiceImplTest {
         String password = "pass";
         doThrow(new ValidationException("fail")).when(validatorUserService).validateUsernameAndPassword(username, password);
         // ACT & ASSERT
-        assertThrows(ValidationException.class, () -> userService.login(username, password));
+        assertThrows(ValidationException.class, () -> userService.login(username, password, CLIENT_ADDRESS));
+    }
+
+    @Test
+    @DisplayName("importUsers saves valid rows in one batch and reports the rest per row")
+    @SuppressWarnings("unchecked")
+    void importUsers_reportsFailedRows() {
+        // ARRANGE
+        List<UserImportRowDTO> rows = List.of(
+                UserImportRowDTO.builder().row(1).username("alice").password("password1").build(),
+                UserImportRowDTO.builder().row(2).username("bob").password("short").build(),
+                UserImportRowDTO.builder().row(3).username("carol").password("password3").build(),
+                UserImportRowDTO.builder().row(4).username("alice").password("password4").build(),
+                UserImportRowDTO.builder().row(5).username("dave").password("password5").build());
+        doThrow(new ValidationException("Password must be at least 8 characters long."))
+                .when(validatorUserService).validatePassword("short");
+        when(userDao.findExistingUsernames(List.of("alice", "carol", "dave"))).thenReturn(Set.of("carol"));
+        when(passwordHasher.encodeAll(List.of("password1", "password5"))).thenReturn(List.of("hash1", "hash5"));
+        // ACT
+        UserImportReportDTO report = userService.importUsers(rows.iterator());
+        // ASSERT
+        assertEquals(5, report.getTotal());
+        assertEquals(2, report.getImported());
+        assertEquals(List.of(2L, 3L, 4L), report.getErrors().stream().map(e -> e.getRow()).toList());
+        ArgumentCaptor<List<User>> captor = ArgumentCaptor.forClass(List.class);
+        verify(userDao).saveAll(captor.capture());
+        assertEquals(List.of("alice", "dave"), captor.getValue().stream().map(User::getUsername).toList());
+        assertEquals(List.of("hash1", "hash5"), captor.getValue().stream().map(User::getPassword).toList());
+        verify(userDao, never()).findByUsername(anyString());
+    }
+
+    @Test
+    @DisplayName("importUsers commits each chunk, so a failing chunk does not roll back the ones before it")
+    void importUsers_commitsEachChunk() {
+        // ARRANGE
+        Session session = mock(Session.class);
+        Transaction transaction = mock(Transaction.class);
+        when(session.getTransaction()).thenReturn(transaction);
+        when(transaction.isActive()).thenReturn(true);
+        List<UserImportRowDTO> rows = new ArrayList<>();
+        for (int i = 1; i <= 501; i++) {
+            rows.add(UserImportRowDTO.builder().row(i).username("user" + i).password("password" + i).build());
+        }
+        when(passwordHasher.encodeAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+        doNothing().doThrow(new DataAccessException("insert failed")).when(userDao).saveAll(anyList());
+        HibernateSessionManager.setSession(session);
+        try {
+            // ACT & ASSERT
+            assertThrows(DataAccessException.class, () -> userService.importUsers(rows.iterator()));
+            verify(transaction, times(1)).commit();
+            verify(session, times(1)).beginTransaction();
+        } finally {
+            HibernateSessionManager.clearSession();
+        }
     }
 
     @Test
@@ -208,4 +331,25 @@ class UserServiceImplTest {
         // ACT & ASSERT
         assertThrows(ValidationException.class, () -> userService.findUserById(id));
     }
+
+    @Test
+    @DisplayName("getUserReference returns a reference without loading the user")
+    void getUserReference_returnsReference() {
+        // ARRANGE
+        UUID id = UUID.randomUUID();
+        User reference = User.builder().id(id).build();
+        when(userDao.getReference(id)).thenReturn(reference);
+        // ACT
+        User result = userService.getUserReference(id);
+        // ASSERT
+        assertEquals(reference, result);
+        verify(userDao, never()).findById(any());
+    }
+
+    @Test
+    @DisplayName("getUserReference throws ValidationException if id is null")
+    void getUserReference_throwsIfIdIsNull() {
+        // ACT & ASSERT
+        assertThrows(ValidationException.class, () -> userService.getUserReference(null));
+    }
 }
@@ -0,0 +1,50 @@
+package servlets.filter;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import util.ConnectionLimiter;
+import util.HibernateSessionManager;
+
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class ErrorHandlingFilterTest {
+    @Mock
+    private HttpServletRequest request;
+    @Mock
+    private HttpServletResponse response;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+    }
+
+    @AfterEach
+    void tearDown() {
+        HibernateSessionManager.setConnectionLimiter(null);
+    }
+
+    @Test
+    @DisplayName("a request that gets no connection permit in time is answered with 503 and Retry-After")
+    void saturatedLimiterAnswers503() throws Exception {
+        // ARRANGE
+        HibernateSessionManager.setConnectionLimiter(new ConnectionLimiter(0, 10));
+        TransactionFilter transactionFilter = new TransactionFilter();
+        FilterChain servlet = (req, resp) -> HibernateSessionManager.getSession();
+        FilterChain chain = (req, resp) -> transactionFilter.doFilter(req, resp, servlet);
+        // ACT
+        new ErrorHandlingFilter().doFilter(request, response, chain);
+        // ASSERT
+        verify(response).setHeader(eq("Retry-After"), anyString());
+        verify(response).sendError(eq(HttpServletResponse.SC_SERVICE_UNAVAILABLE), anyString());
+        verify(response, never()).sendRedirect(anyString());
+    }
+}
@@ -0,0 +1,116 @@
+package servlets.filter;
+
+import dto.ExamProgressDTO;
+import dto.UserDTO;
+import examstate.ExamStateStore;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.FilterConfig;
+import jakarta.servlet.ServletContext;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpSession;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import services.interfaces.TestRunnerService;
+import util.ExamProgressCodec;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class ExamStateFilterTest {
+    @Mock
+    private ExamStateStore examStateStore;
+    @Mock
+    private TestRunnerService testRunnerService;
+    @Mock
+    private FilterConfig filterConfig;
+    @Mock
+    private ServletContext servletContext;
+    @Mock
+    private HttpServletRequest request;
+    @Mock
+    private HttpServletResponse response;
+    @Mock
+    private HttpSession session;
+    @Mock
+    private FilterChain chain;
+
+    private final UserDTO user = UserDTO.builder().id(UUID.randomUUID()).username("alice").role("USER").build();
+    private ExamStateFilter filter;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        MockitoAnnotations.openMocks(this);
+        when(filterConfig.getServletContext()).thenReturn(servletContext);
+        when(servletContext.getAttribute("examStateStore")).thenReturn(examStateStore);
+        when(servletContext.getAttribute("testRunnerService")).thenReturn(testRunnerService);
+        when(request.getAttribute(AuthenticationFilter.USER_ATTRIBUTE)).thenReturn(user);
+        when(request.getSession(false)).thenReturn(session);
+        when(request.getSession()).thenReturn(session);
+        filter = new ExamStateFilter();
+        filter.init(filterConfig);
+    }
+
+    @Test
+    @DisplayName("progress kept in the session is served without reading the exam state store")
+    void servesProgressFromSession() throws Exception {
+        // ARRANGE
+        ExamProgressDTO progress = progress(user.getId());
+        when(session.getAttribute("progress")).thenReturn(ExamProgressCodec.encode(progress));
+        // ACT
+        filter.doFilter(request, response, chain);
+        // ASSERT
+        verifyNoInteractions(examStateStore);
+        verify(request).setAttribute(eq(ExamStateFilter.PROGRESS_ATTRIBUTE), any(ExamProgressDTO.class));
+        verify(testRunnerService).resumeTest(any(ExamProgressDTO.class));
+        verify(chain).doFilter(request, response);
+    }
+
+    @Test
+    @DisplayName("without progress in the session it is read from the store and kept in the session")
+    void readsStoreWhenSessionHasNoProgress() throws Exception {
+        // ARRANGE
+        ExamProgressDTO progress = progress(user.getId());
+        when(session.getAttribute("progress")).thenReturn(null);
+        when(examStateStore.find(user.getId())).thenReturn(Optional.of(progress));
+        // ACT
+        filter.doFilter(request, response, chain);
+        // ASSERT
+        verify(examStateStore).find(user.getId());
+        verify(session).setAttribute(eq("progress"), any(byte[].class));
+        verify(request).setAttribute(ExamStateFilter.PROGRESS_ATTRIBUTE, progress);
+        verify(chain).doFilter(request, response);
+    }
+
+    @Test
+    @DisplayName("progress of another user left in the session is ignored")
+    void ignoresProgressOfAnotherUser() throws Exception {
+        // ARRANGE
+        when(session.getAttribute("progress")).thenReturn(ExamProgressCodec.encode(progress(UUID.randomUUID())));
+        when(examStateStore.find(user.getId())).thenReturn(Optional.empty());
+        // ACT
+        filter.doFilter(request, response, chain);
+        // ASSERT
+        verify(examStateStore).find(user.getId());
+        verifyNoInteractions(testRunnerService);
+        verify(chain).doFilter(request, response);
+    }
+
+    private static ExamProgressDTO progress(UUID userId) {
+        return ExamProgressDTO.builder()
+                .testId(UUID.randomUUID())
+                .userId(userId)
+                .startedAt(LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS))
+                .selectedAnswers(new long[]{1})
+                .build();
+    }
+}
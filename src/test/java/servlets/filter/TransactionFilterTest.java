@@ -0,0 +1,124 @@
+package servlets.filter;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletContext;
+import jakarta.servlet.ServletRegistration;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletMapping;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import servlets.ReadOnlyTransaction;
+import util.HibernateSessionManager;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class TransactionFilterTest {
+    @Mock
+    private HttpServletRequest request;
+    @Mock
+    private HttpServletResponse response;
+    @Mock
+    private HttpServletMapping mapping;
+    @Mock
+    private ServletContext servletContext;
+    @Mock
+    private ServletRegistration registration;
+
+    private final TransactionFilter filter = new TransactionFilter();
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(request.getHttpServletMapping()).thenReturn(mapping);
+        when(request.getServletContext()).thenReturn(servletContext);
+        when(servletContext.getServletRegistration(anyString())).thenReturn(registration);
+        when(servletContext.getClassLoader()).thenReturn(getClass().getClassLoader());
+    }
+
+    @Test
+    @DisplayName("a request to a handler marked @ReadOnlyTransaction runs read-only, other methods of the servlet do not")
+    void resolvesAnnotationOfHandler() throws Exception {
+        // ARRANGE
+        mapServlet(ReadingServlet.class);
+        // ACT & ASSERT
+        assertTrue(runsReadOnly("GET"));
+        assertTrue(runsReadOnly("HEAD"));
+        assertFalse(runsReadOnly("POST"));
+    }
+
+    @Test
+    @DisplayName("a handler inherited from a superclass keeps its @ReadOnlyTransaction, an overriding one decides itself")
+    void resolvesAnnotationThroughSuperclasses() throws Exception {
+        // ARRANGE & ACT & ASSERT
+        mapServlet(InheritingServlet.class);
+        assertTrue(runsReadOnly("GET"));
+        mapServlet(OverridingServlet.class);
+        assertFalse(runsReadOnly("GET"));
+    }
+
+    @Test
+    @DisplayName("the handler of a servlet and method is resolved once and then served from the cache")
+    void cachesResolvedHandler() throws Exception {
+        // ARRANGE
+        mapServlet(ReadingServlet.class);
+        // ACT
+        runsReadOnly("GET");
+        runsReadOnly("GET");
+        // ASSERT
+        verify(servletContext, times(1)).getServletRegistration(ReadingServlet.class.getSimpleName());
+    }
+
+    @Test
+    @DisplayName("a request without a servlet mapping runs read-write")
+    void runsReadWriteWithoutMapping() throws Exception {
+        // ARRANGE
+        when(request.getHttpServletMapping()).thenReturn(null);
+        // ACT & ASSERT
+        assertFalse(runsReadOnly("GET"));
+    }
+
+    private void mapServlet(Class<? extends HttpServlet> servletClass) {
+        when(mapping.getServletName()).thenReturn(servletClass.getSimpleName());
+        when(registration.getClassName()).thenReturn(servletClass.getName());
+    }
+
+    /**
+     * Passes a request with the given method through the filter and reports whether the chain ran read-only.
+     */
+    private boolean runsReadOnly(String method) throws Exception {
+        when(request.getMethod()).thenReturn(method);
+        AtomicReference<Boolean> readOnly = new AtomicReference<>();
+        FilterChain chain = (req, resp) -> readOnly.set(HibernateSessionManager.isReadOnly());
+        filter.doFilter(request, response, chain);
+        return readOnly.get();
+    }
+
+    static class ReadingServlet extends HttpServlet {
+        @Override
+        @ReadOnlyTransaction
+        protected void doGet(HttpServletRequest req, HttpServletResponse resp) {
+        }
+
+        @Override
+        protected void doPost(HttpServletRequest req, HttpServletResponse resp) {
+        }
+    }
+
+    static class InheritingServlet extends ReadingServlet {
+    }
+
+    static class OverridingServlet extends ReadingServlet {
+        @Override
+        protected void doGet(HttpServletRequest req, HttpServletResponse resp) {
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package util;
+
+import dto.UserDTO;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AuthTokensTest {
+    private static final String OLD_KEY = "k1:" + Base64.getEncoder().encodeToString(new byte[32]);
+    private static final String NEW_KEY = "k2:" + Base64.getEncoder().encodeToString("0123456789abcdef0123456789abcdef".getBytes());
+    private static final Duration TTL = Duration.ofMinutes(30);
+    private static final Instant NOW = Instant.parse("2025-01-01T10:00:00Z");
+
+    private final UserDTO user = UserDTO.builder().id(UUID.randomUUID()).username("alice").role("ADMIN").build();
+
+    @Test
+    @DisplayName("issued token is verified back into the same user")
+    void roundTrip() {
+        // ARRANGE
+        AuthTokens authTokens = new AuthTokens(NEW_KEY, TTL);
+        // ACT
+        String token = authTokens.issue(user, NOW);
+        // ASSERT
+        assertEquals(user, authTokens.verify(token, NOW.plusSeconds(60)).orElseThrow().getUser());
+    }
+
+    @Test
+    @DisplayName("tampered or expired token is rejected")
+    void rejectsTamperedAndExpired() {
+        // ARRANGE
+        AuthTokens authTokens = new AuthTokens(NEW_KEY, TTL);
+        String token = authTokens.issue(user, NOW);
+        int signatureStart = token.indexOf('.') + 1;
+        char first = token.charAt(signatureStart);
+        String tampered = token.substring(0, signatureStart) + (first == 'A' ? 'B' : 'A') + token.substring(signatureStart + 1);
+        // ACT & ASSERT
+        assertTrue(authTokens.verify(tampered, NOW).isEmpty());
+        assertTrue(authTokens.verify("not-a-token", NOW).isEmpty());
+        assertTrue(authTokens.verify(token, NOW.plus(TTL)).isEmpty());
+    }
+
+    @Test
+    @DisplayName("token signed with a rotated key is accepted only while that key is configured")
+    void acceptsRotatedKey() {
+        // ARRANGE
+        String token = new AuthTokens(OLD_KEY, TTL).issue(user, NOW);
+        // ACT & ASSERT
+        assertTrue(new AuthTokens(NEW_KEY + "," + OLD_KEY, TTL).verify(token, NOW).isPresent());
+        assertTrue(new AuthTokens(NEW_KEY, TTL).verify(token, NOW).isEmpty());
+    }
+
+    @Test
+    @DisplayName("username longer than 255 UTF-8 bytes survives the round trip")
+    void roundTripLongUsername() {
+        // ARRANGE
+        AuthTokens authTokens = new AuthTokens(NEW_KEY, TTL);
+        UserDTO longNamed = user.toBuilder().username("ж".repeat(200)).build();
+        // ACT
+        String token = authTokens.issue(longNamed, NOW);
+        // ASSERT
+        assertEquals(longNamed, authTokens.verify(token, NOW).orElseThrow().getUser());
+    }
+
+    @Test
+    @DisplayName("username too long for the length field is refused when the token is issued")
+    void refusesOversizedUsername() {
+        // ARRANGE
+        AuthTokens authTokens = new AuthTokens(NEW_KEY, TTL);
+        UserDTO oversized = user.toBuilder().username("a".repeat(70_000)).build();
+        // ACT & ASSERT
+        assertThrows(IllegalArgumentException.class, () -> authTokens.issue(oversized, NOW));
+    }
+
+    @Test
+    @DisplayName("short keys are refused at startup")
+    void refusesShortKey() {
+        assertThrows(IllegalArgumentException.class, () -> new AuthTokens("k1:c2hvcnQ=", TTL));
+    }
+}
@@ -0,0 +1,67 @@
+package util;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ClientAddressResolverTest {
+    private static final String PROXY = "10.0.0.1";
+
+    private HttpServletRequest request(String remoteAddress, String... forwardedFor) {
+        HttpServletRequest request = mock(HttpServletRequest.class);
+        when(request.getRemoteAddr()).thenReturn(remoteAddress);
+        when(request.getHeaders("X-Forwarded-For")).thenReturn(Collections.enumeration(List.of(forwardedFor)));
+        return request;
+    }
+
+    @Test
+    @DisplayName("X-Forwarded-For is ignored when no proxy is trusted")
+    void ignoresHeaderWithoutTrustedProxies() {
+        // ARRANGE
+        ClientAddressResolver resolver = ClientAddressResolver.fromList("");
+        // ACT
+        String address = resolver.resolve(request("203.0.113.7", "198.51.100.1"));
+        // ASSERT
+        assertEquals("203.0.113.7", address);
+    }
+
+    @Test
+    @DisplayName("X-Forwarded-For is ignored when the connection does not come from a trusted proxy")
+    void ignoresHeaderFromUntrustedPeer() {
+        // ARRANGE
+        ClientAddressResolver resolver = ClientAddressResolver.fromList(PROXY);
+        // ACT
+        String address = resolver.resolve(request("203.0.113.7", "198.51.100.1"));
+        // ASSERT
+        assertEquals("203.0.113.7", address);
+    }
+
+    @Test
+    @DisplayName("right-most untrusted hop is the client, so a spoofed left part of the header is skipped")
+    void takesRightMostUntrustedHop() {
+        // ARRANGE
+        ClientAddressResolver resolver = ClientAddressResolver.fromList(PROXY + ", 10.0.0.2");
+        // ACT
+        String address = resolver.resolve(request(PROXY, "1.2.3.4, 203.0.113.7", "10.0.0.2"));
+        // ASSERT
+        assertEquals("203.0.113.7", address);
+    }
+
+    @Test
+    @DisplayName("trusted proxy without X-Forwarded-For resolves to its own address")
+    void fallsBackToRemoteAddress() {
+        // ARRANGE
+        ClientAddressResolver resolver = ClientAddressResolver.fromList(PROXY);
+        // ACT
+        String address = resolver.resolve(request(PROXY));
+        // ASSERT
+        assertEquals(PROXY, address);
+    }
+}
@@ -0,0 +1,77 @@
+package util;
+
+import dto.ExamProgressDTO;
+import exceptions.ValidationException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExamProgressCodecTest {
+    private static final LocalDateTime STARTED_AT = LocalDateTime.of(2025, 1, 1, 10, 0, 0, 123_000_000);
+
+    @Test
+    @DisplayName("running test progress survives the round trip")
+    void roundTripRunningTest() {
+        // ARRANGE
+        ExamProgressDTO progress = ExamProgressDTO.builder()
+                .testId(UUID.randomUUID())
+                .testVersion(3)
+                .userId(UUID.randomUUID())
+                .startedAt(STARTED_AT)
+                .selectedAnswers(new long[]{0, 1, 0x7F, 0x80, 1L << 40, -1L})
+                .credit(2.5)
+                .build();
+        // ACT
+        ExamProgressDTO decoded = ExamProgressCodec.decode(ExamProgressCodec.encode(progress));
+        // ASSERT
+        assertEquals(progress.getTestId(), decoded.getTestId());
+        assertEquals(progress.getTestVersion(), decoded.getTestVersion());
+        assertEquals(progress.getUserId(), decoded.getUserId());
+        assertEquals(progress.getStartedAt(), decoded.getStartedAt());
+        assertArrayEquals(progress.getSelectedAnswers(), decoded.getSelectedAnswers());
+        assertEquals(progress.getCredit(), decoded.getCredit());
+        assertNull(decoded.getScore());
+        assertFalse(decoded.isFinished());
+    }
+
+    @Test
+    @DisplayName("finished test without a version survives the round trip")
+    void roundTripFinishedTest() {
+        // ARRANGE
+        ExamProgressDTO progress = ExamProgressDTO.builder()
+                .testId(UUID.randomUUID())
+                .userId(UUID.randomUUID())
+                .startedAt(STARTED_AT)
+                .score(80)
+                .build();
+        // ACT
+        ExamProgressDTO decoded = ExamProgressCodec.decode(ExamProgressCodec.encode(progress));
+        // ASSERT
+        assertNull(decoded.getTestVersion());
+        assertEquals(80, decoded.getScore());
+        assertEquals(0, decoded.getAnsweredCount());
+        assertTrue(decoded.isFinished());
+    }
+
+    @Test
+    @DisplayName("truncated or foreign bytes are rejected")
+    void rejectsCorruptedProgress() {
+        // ARRANGE
+        byte[] encoded = ExamProgressCodec.encode(ExamProgressDTO.builder()
+                .testId(UUID.randomUUID())
+                .userId(UUID.randomUUID())
+                .startedAt(STARTED_AT)
+                .selectedAnswers(new long[]{1, 2})
+                .build());
+        byte[] foreign = encoded.clone();
+        foreign[0] = 0;
+        // ACT & ASSERT
+        assertThrows(ValidationException.class, () -> ExamProgressCodec.decode(Arrays.copyOf(encoded, encoded.length - 1)));
+        assertThrows(ValidationException.class, () -> ExamProgressCodec.decode(foreign));
+    }
+}
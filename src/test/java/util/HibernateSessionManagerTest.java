@@ -0,0 +1,134 @@
+package util;
+
+import exceptions.ServiceBusyException;
+import org.hibernate.CacheMode;
+import org.hibernate.FlushMode;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.Transaction;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class HibernateSessionManagerTest {
+    @Mock
+    private SessionFactory sessionFactory;
+    @Mock
+    private Session session;
+    @Mock
+    private Transaction transaction;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(sessionFactory.openSession()).thenReturn(session);
+        when(session.getTransaction()).thenReturn(transaction);
+    }
+
+    @AfterEach
+    void tearDown() {
+        HibernateSessionManager.clearSession();
+        HibernateSessionManager.setConnectionLimiter(null);
+    }
+
+    @Test
+    @DisplayName("a request that never touches the database opens no session and takes no permit")
+    void bind_opensNothingUntilFirstUse() {
+        // ARRANGE
+        ConnectionLimiter limiter = new ConnectionLimiter(1, 10);
+        HibernateSessionManager.setConnectionLimiter(limiter);
+        // ACT
+        HibernateSessionManager.bind(sessionFactory, false);
+        Session openSession = HibernateSessionManager.getOpenSession();
+        HibernateSessionManager.closeSession();
+        // ASSERT
+        assertNull(openSession);
+        verify(sessionFactory, never()).openSession();
+        assertEquals(1, limiter.getAvailablePermits());
+    }
+
+    @Test
+    @DisplayName("the session is opened with a transaction on first use and reused afterwards")
+    void getSession_opensOnceOnFirstUse() {
+        // ARRANGE
+        HibernateSessionManager.bind(sessionFactory, false);
+        // ACT
+        Session first = HibernateSessionManager.getSession();
+        Session second = HibernateSessionManager.getSession();
+        // ASSERT
+        assertSame(session, first);
+        assertSame(first, second);
+        verify(sessionFactory, times(1)).openSession();
+        verify(session, times(1)).beginTransaction();
+        verify(session, never()).setHibernateFlushMode(any());
+        verify(session, never()).setDefaultReadOnly(true);
+    }
+
+    @Test
+    @DisplayName("a read-only session never flushes, loads read-only entities and does not fill the cache")
+    void getSession_configuresReadOnlySession() {
+        // ARRANGE
+        HibernateSessionManager.bind(sessionFactory, true);
+        // ACT
+        HibernateSessionManager.getSession();
+        // ASSERT
+        assertTrue(HibernateSessionManager.isReadOnly());
+        verify(session).setHibernateFlushMode(FlushMode.MANUAL);
+        verify(session).setDefaultReadOnly(true);
+        verify(session).setCacheMode(CacheMode.GET);
+        verify(session).doWork(any());
+        verify(session).beginTransaction();
+    }
+
+    @Test
+    @DisplayName("a request session holds a permit until it is closed, and a saturated limiter rejects the next one")
+    void getSession_rejectedWhenLimiterIsSaturated() throws InterruptedException {
+        // ARRANGE
+        ConnectionLimiter limiter = new ConnectionLimiter(1, 10);
+        HibernateSessionManager.setConnectionLimiter(limiter);
+        HibernateSessionManager.bind(sessionFactory, false);
+        HibernateSessionManager.getSession();
+        AtomicReference<RuntimeException> rejection = new AtomicReference<>();
+        // ACT
+        Thread other = new Thread(() -> {
+            HibernateSessionManager.bind(sessionFactory, true);
+            try {
+                HibernateSessionManager.getSession();
+            } catch (RuntimeException e) {
+                rejection.set(e);
+            } finally {
+                HibernateSessionManager.closeSession();
+            }
+        });
+        other.start();
+        other.join(5000);
+        int permitsWhileOpen = limiter.getAvailablePermits();
+        HibernateSessionManager.closeSession();
+        // ASSERT
+        assertInstanceOf(ServiceBusyException.class, rejection.get());
+        assertEquals(0, permitsWhileOpen);
+        assertEquals(1, limiter.getAvailablePermits());
+        verify(sessionFactory, times(1)).openSession();
+    }
+
+    @Test
+    @DisplayName("background work does not wait for the request limiter")
+    void runInTransaction_bypassesLimiter() {
+        // ARRANGE
+        HibernateSessionManager.setConnectionLimiter(new ConnectionLimiter(0, 10));
+        // ACT
+        assertDoesNotThrow(() -> HibernateSessionManager.runInTransaction(sessionFactory, HibernateSessionManager::getSession));
+        // ASSERT
+        verify(session).beginTransaction();
+        verify(session).close();
+    }
+}
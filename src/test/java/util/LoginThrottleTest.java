@@ -0,0 +1,122 @@
+package util;
+
+import dto.LoginThrottleStatsDTO;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LoginThrottleTest {
+    private static final long BLOCK_MILLIS = 60_000;
+    private static final String ADDRESS = "10.0.0.1";
+
+    private final AtomicLong now = new AtomicLong(1_000_000);
+
+    private LoginThrottle throttle(int maxEntries, int maxFailuresPerUser, int maxFailuresPerAddress) {
+        return new LoginThrottle(maxEntries, maxFailuresPerUser, maxFailuresPerAddress, BLOCK_MILLIS, now::get);
+    }
+
+    @Test
+    @DisplayName("username is locked after too many failures and unlocked when the block expires")
+    void locksUserAndExpires() {
+        // ARRANGE
+        LoginThrottle throttle = throttle(100, 3, 100);
+        // ACT
+        assertFalse(throttle.recordFailure("user", ADDRESS));
+        assertFalse(throttle.recordFailure("user", ADDRESS));
+        boolean locked = throttle.recordFailure("user", ADDRESS);
+        // ASSERT
+        assertTrue(locked);
+        assertTrue(throttle.isBlocked("user", "10.0.0.2"));
+        now.addAndGet(BLOCK_MILLIS);
+        assertFalse(throttle.isBlocked("user", "10.0.0.2"));
+    }
+
+    @Test
+    @DisplayName("address is locked after failures spread over many usernames")
+    void locksAddressAcrossUsernames() {
+        // ARRANGE
+        LoginThrottle throttle = throttle(100, 5, 3);
+        // ACT
+        for (int i = 0; i < 3; i++) {
+            throttle.recordFailure("user" + i, ADDRESS);
+        }
+        // ASSERT
+        assertTrue(throttle.isBlocked("someone-else", ADDRESS));
+        assertFalse(throttle.isBlocked("someone-else", "10.0.0.2"));
+    }
+
+    @Test
+    @DisplayName("successful login resets the username but not the address")
+    void successResetsUserOnly() {
+        // ARRANGE
+        LoginThrottle throttle = throttle(100, 2, 2);
+        throttle.recordFailure("user", ADDRESS);
+        // ACT
+        throttle.recordSuccess("user");
+        boolean locked = throttle.recordFailure("user", ADDRESS);
+        // ASSERT
+        assertTrue(locked);
+        assertFalse(throttle.isBlocked("user", "10.0.0.2"));
+        assertTrue(throttle.isBlocked("other", ADDRESS));
+    }
+
+    @Test
+    @DisplayName("store stays bounded under random usernames by evicting the oldest unlocked keys")
+    void staysBounded() {
+        // ARRANGE
+        LoginThrottle throttle = throttle(10, 5, 1_000_000);
+        // ACT
+        for (int i = 0; i < 1000; i++) {
+            now.incrementAndGet();
+            throttle.recordFailure("random" + i, ADDRESS);
+        }
+        LoginThrottleStatsDTO full = throttle.getStats();
+        now.addAndGet(BLOCK_MILLIS);
+        throttle.recordFailure("late", ADDRESS);
+        // ASSERT
+        assertTrue(full.getTrackedKeys() <= 10);
+        assertEquals(1000, full.getFailedAttempts());
+        assertTrue(full.getEvictedKeys() > 0);
+        assertEquals(0, full.getRefusedFailures());
+        assertEquals(2, throttle.getStats().getTrackedKeys());
+    }
+
+    @Test
+    @DisplayName("failure for a new key still counts when the store is full, and locked keys are never evicted")
+    void fullStoreKeepsCountingNewKeys() {
+        // ARRANGE
+        LoginThrottle throttle = throttle(4, 2, 1_000_000);
+        throttle.recordFailure("locked", ADDRESS);
+        throttle.recordFailure("locked", ADDRESS);
+        for (int i = 0; i < 10; i++) {
+            now.incrementAndGet();
+            throttle.recordFailure("random" + i, ADDRESS);
+        }
+        // ACT
+        now.incrementAndGet();
+        throttle.recordFailure("victim", "10.0.0.2");
+        now.incrementAndGet();
+        boolean locked = throttle.recordFailure("victim", "10.0.0.2");
+        // ASSERT
+        assertTrue(locked);
+        assertTrue(throttle.isBlocked("victim", "10.0.0.3"));
+        assertTrue(throttle.isBlocked("locked", "10.0.0.3"));
+    }
+
+    @Test
+    @DisplayName("failure for a new key is refused when every tracked key is locked")
+    void refusesWhenAllKeysLocked() {
+        // ARRANGE
+        LoginThrottle throttle = throttle(2, 1, 1);
+        throttle.recordFailure("user", ADDRESS);
+        // ACT
+        boolean locked = throttle.recordFailure("other", "10.0.0.2");
+        // ASSERT
+        assertTrue(locked);
+        assertEquals(2, throttle.getStats().getRefusedFailures());
+        assertTrue(throttle.isBlocked("user", "10.0.0.3"));
+    }
+}
@@ -0,0 +1,46 @@
+package util;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PasswordHasherTest {
+    private final PasswordHasher passwordHasher = new PasswordHasher(4, 1, 1);
+
+    @AfterEach
+    void tearDown() {
+        passwordHasher.shutdown();
+    }
+
+    @Test
+    @DisplayName("encodeAll waits for room in a full queue instead of rejecting the passwords")
+    void encodeAll_waitsWhenQueueIsFull() throws Exception {
+        // ARRANGE
+        List<String> passwords = IntStream.range(0, 20).mapToObj(i -> "password" + i).toList();
+        ExecutorService callers = Executors.newFixedThreadPool(4);
+        try {
+            // ACT
+            List<Future<List<String>>> results = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                results.add(callers.submit(() -> passwordHasher.encodeAll(passwords)));
+            }
+            // ASSERT
+            for (Future<List<String>> result : results) {
+                List<String> hashes = result.get();
+                assertEquals(passwords.size(), hashes.size());
+                assertTrue(passwordHasher.matches(passwords.get(0), hashes.get(0)));
+            }
+        } finally {
+            callers.shutdownNow();
+        }
+    }
+}